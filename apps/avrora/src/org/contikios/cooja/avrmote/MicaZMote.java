@@ -50,6 +50,7 @@ import avrora.core.LoadableProgram;
 import avrora.sim.AtmelInterpreter;
 import avrora.sim.Simulator;
 import avrora.sim.State;
+import avrora.sim.clock.MainClock;
 import avrora.sim.mcu.AtmelMicrocontroller;
 import avrora.sim.mcu.EEPROM;
 import avrora.sim.platform.MicaZ;
@@ -66,6 +67,9 @@ public class MicaZMote extends AbstractEmulatedMote implements Mote {
   /* 8 MHz according to Contiki config */
   public static long NR_CYCLES_PER_MSEC = 8000;
 
+  /* Longest time a sleeping mote without pending clock events is left alone */
+  private static final long MAX_SLEEP_MSEC = 1000;
+
   private MoteInterfaceHandler myMoteInterfaceHandler;
   private AtmelMicrocontroller myCpu = null;
   private MicaZ micaZ = null;
@@ -190,6 +194,56 @@ public class MicaZMote extends AbstractEmulatedMote implements Mote {
 
   private long cyclesExecuted = 0;
   private long cyclesUntil = 0;
+  private long lastExecuteTime = -1;
+
+  /**
+   * @return True if the CPU sleeps and no interrupt is pending
+   */
+  private boolean isIdle() {
+    return myCpu.getFSM().getCurrentState() != AtmelMicrocontroller.MODE_ACTIVE
+        && interpreter.getInterruptTable().getPendingInterrupts() == 0;
+  }
+
+  /**
+   * Executes CPU cycles. While the CPU sleeps, the clock is advanced
+   * directly to the next clock event, which may wake it up.
+   *
+   * @param until Cycle count to execute until
+   */
+  private void executeCycles(long until) {
+    MainClock clock = interpreter.getMainClock();
+    while (cyclesExecuted < until) {
+      if (isIdle()) {
+        long delta = clock.getFirstEventDelta();
+        long remaining = until - cyclesExecuted;
+        if (delta < 0 || delta > remaining) {
+          delta = remaining;
+        }
+        if (delta > 1) {
+          clock.advance(delta);
+          cyclesExecuted += delta;
+          continue;
+        }
+      }
+      cyclesExecuted += interpreter.step();
+    }
+  }
+
+  /**
+   * Lets a sleeping mote catch up with the simulation time, and wakes it
+   * up as soon as possible. Must be called before input from outside the
+   * mote, such as received radio data, is fed to its devices.
+   */
+  public void wakeup() {
+    long now = getSimulation().getSimulationTime();
+    if (lastExecuteTime >= 0 && now > lastExecuteTime + Simulation.MILLISECOND) {
+      /* The CPU has already been executed until one millisecond after last wakeup */
+      executeCycles(cyclesUntil
+          + (now - lastExecuteTime - Simulation.MILLISECOND) * NR_CYCLES_PER_MSEC / Simulation.MILLISECOND);
+    }
+    scheduleNextWakeup(now);
+  }
+
   public void execute(long t) {
     MicaClock clock = ((MicaClock) (myMoteInterfaceHandler.getClock()));
     double deviation = clock.getDeviation();
@@ -214,20 +268,36 @@ public class MicaZMote extends AbstractEmulatedMote implements Mote {
       scheduleNextWakeup(t + Simulation.MILLISECOND);
     }
     
-    /* Execute one millisecond */
-    cyclesUntil += NR_CYCLES_PER_MSEC;
-    while (cyclesExecuted < cyclesUntil) {
-      cyclesExecuted += interpreter.step();
+    /* Execute until one millisecond ahead, including any time slept since last wakeup */
+    if (lastExecuteTime < 0) {
+      cyclesUntil += NR_CYCLES_PER_MSEC;
+    } else {
+      cyclesUntil += (t - lastExecuteTime) * NR_CYCLES_PER_MSEC / Simulation.MILLISECOND;
     }
+    lastExecuteTime = t;
+    executeCycles(cyclesUntil);
 
      /* book keeping */
     executed += 1;
     
     /* TODO Poll mote interfaces? */
 
-    /* Schedule wakeup every millisecond */
-    /* TODO Optimize next wakeup time */
-    scheduleNextWakeup(t + Simulation.MILLISECOND);
+    /* Schedule wakeup every millisecond while busy. A sleeping CPU is
+     * instead woken up in the millisecond of its next clock event, or
+     * earlier by external input (see wakeup()). */
+    long nextWakeup = t + Simulation.MILLISECOND;
+    if (isIdle()) {
+      long delta = interpreter.getMainClock().getFirstEventDelta();
+      long msec = MAX_SLEEP_MSEC;
+      if (delta >= 0) {
+        long cycles = cyclesExecuted + delta - cyclesUntil;
+        msec = Math.min(MAX_SLEEP_MSEC, (cycles + NR_CYCLES_PER_MSEC - 1) / NR_CYCLES_PER_MSEC);
+      }
+      if (msec > 1) {
+        nextWakeup = t + msec * Simulation.MILLISECOND;
+      }
+    }
+    scheduleNextWakeup(nextWakeup);
   }
   
   public boolean setConfigXML(Simulation simulation, Collection<Element> configXML, boolean visAvailable) {
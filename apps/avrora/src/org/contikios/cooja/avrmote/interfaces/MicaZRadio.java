@@ -146,11 +146,13 @@ public class MicaZRadio extends Radio802154 {
 
   protected void handleEndOfReception() {
       /* tell the receiver that the packet is ended */
+      ((MicaZMote) mote).wakeup();
       recv.nextByte(false, (byte)0);
   }
 
   protected void handleReceive(byte b) {
       //System.out.println("MicaZ: Received: " + (b &0xff));
+      ((MicaZMote) mote).wakeup();
       recv.nextByte(true, (byte)b);
   }
   
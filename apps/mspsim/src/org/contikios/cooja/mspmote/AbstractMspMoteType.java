@@ -37,6 +37,7 @@ package org.contikios.cooja.mspmote;
 import java.awt.Container;
 import java.awt.Image;
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 
 import javax.swing.*;
@@ -118,6 +119,32 @@ public abstract class AbstractMspMoteType extends MspMoteType {
             throw new MoteTypeCreationException("No identifier");
         }
 
+        /* Reuse previously compiled firmware if all inputs are unchanged */
+        FirmwareCache cache = FirmwareCache.getDefault();
+        String cacheKey = null;
+        File[] cacheOutputs = new File[] { getContikiFirmwareFile() };
+        if (cache != null && getCompileCommands() != null
+                && getContikiSourceFile() != null && getContikiFirmwareFile() != null) {
+            try {
+                String contikiPath = Cooja.getExternalToolsSetting("PATH_CONTIKI", null);
+                cacheKey = FirmwareCache.createKey(
+                        getContikiSourceFile().getParentFile(),
+                        contikiPath == null ? null : new File(contikiPath),
+                        getCompileCommands(),
+                        null,
+                        new String[] {
+                            "msp430-gcc", Cooja.getExternalToolsSetting("PATH_MAKE", "make")
+                        },
+                        cacheOutputs);
+            } catch (IOException e) {
+                logger.warn("Could not create firmware cache key: " + e.getMessage());
+            }
+        }
+        if (cacheKey != null && cache.restore(cacheKey, cacheOutputs)) {
+            logger.info("Using cached firmware: " + getContikiFirmwareFile());
+            return true;
+        }
+
         final MessageList compilationOutput = MessageContainer.createMessageList(visAvailable);
 
         if (getCompileCommands() != null) {
@@ -163,6 +190,9 @@ public abstract class AbstractMspMoteType extends MspMoteType {
                     "Contiki firmware file does not exist: "
                             + getContikiFirmwareFile());
         }
+        if (cacheKey != null) {
+            cache.store(cacheKey, cacheOutputs);
+        }
         return true;
     }
 
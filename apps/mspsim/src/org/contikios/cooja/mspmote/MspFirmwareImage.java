@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.mspmote;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+import org.contikios.cooja.mote.memory.MemoryInterface.Symbol;
+import org.contikios.cooja.util.FirmwareSymbols;
+import se.sics.mspsim.util.DebugInfo;
+import se.sics.mspsim.util.ELF;
+import se.sics.mspsim.util.MapEntry;
+
+/**
+ * Decoded firmware shared by all motes of one MSP mote type.
+ *
+ * Holds the symbol table of the firmware, and its debug line tables as
+ * sorted primitive arrays. The tables are kept in the firmware cache, so
+ * the debug information of a firmware is only decoded once.
+ * The image is immutable: motes only keep their own memory and CPU state.
+ */
+public class MspFirmwareImage {
+  private static Logger logger = Logger.getLogger(MspFirmwareImage.class);
+
+  private final ELF elf;
+  private final FirmwareSymbols tables;
+  private final Map<String, Symbol> symbols;
+
+  /* Debug line tables: per source file, line numbers (sorted) and addresses */
+  private final File[] files;
+  private final int[][] lines;
+  private final int[][] addresses;
+  private final HashMap<File, Integer> fileIndex = new HashMap<File, Integer>();
+
+  MspFirmwareImage(ELF elf, FirmwareSymbols tables) {
+    this.elf = elf;
+    this.tables = tables;
+
+    LinkedHashMap<String, Symbol> vars = new LinkedHashMap<String, Symbol>();
+    String[] names = tables.getSymbolNames();
+    long[] symbolAddresses = tables.getSymbolAddresses();
+    int[] sizes = tables.getSymbolSizes();
+    for (int i = 0; i < names.length; i++) {
+      vars.put(names[i], new Symbol(
+          Symbol.Type.VARIABLE,
+          names[i],
+          symbolAddresses[i],
+          sizes[i]));
+    }
+    this.symbols = Collections.unmodifiableMap(vars);
+
+    String[] lineFiles = tables.getLineFiles();
+    this.files = new File[lineFiles.length];
+    for (int i = 0; i < files.length; i++) {
+      files[i] = new File(lineFiles[i]);
+      fileIndex.put(files[i], i);
+    }
+    this.lines = tables.getLines();
+    this.addresses = tables.getLineAddresses();
+  }
+
+  /**
+   * Decodes firmware, or loads previously decoded tables from the firmware cache.
+   *
+   * @param elf Firmware
+   * @param firmwareFile Firmware file, used as cache key. May be null.
+   * @return Firmware image
+   */
+  public static MspFirmwareImage create(ELF elf, File firmwareFile) {
+    String key = null;
+    if (firmwareFile != null && firmwareFile.exists()) {
+      try {
+        /* Relative debug paths are resolved against the working directory */
+        key = FirmwareSymbols.createKey(new File[] { firmwareFile },
+            "mspsim:" + new File(".").getCanonicalPath());
+      } catch (IOException e) {
+        logger.warn("Could not create symbol cache key: " + e.getMessage());
+      }
+    }
+    FirmwareSymbols tables = FirmwareSymbols.load(key);
+    if (tables == null) {
+      tables = decode(elf);
+      tables.store(key);
+    }
+    return new MspFirmwareImage(elf, tables);
+  }
+
+  private static FirmwareSymbols decode(ELF elf) {
+    ArrayList<MapEntry> vars = new ArrayList<MapEntry>();
+    for (MapEntry entry: elf.getMap().getAllEntries()) {
+      if (entry.getType() == MapEntry.TYPE.variable) {
+        vars.add(entry);
+      }
+    }
+    String[] names = new String[vars.size()];
+    int[] sections = new int[vars.size()];
+    long[] symbolAddresses = new long[vars.size()];
+    int[] sizes = new int[vars.size()];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = vars.get(i).getName();
+      sections[i] = -1;
+      symbolAddresses[i] = vars.get(i).getAddress();
+      sizes[i] = vars.get(i).getSize();
+    }
+
+    /* Source files without duplicates */
+    LinkedHashSet<String> sourceFiles = new LinkedHashSet<String>();
+    if (elf.getDebug() != null && elf.getDebug().getSourceFiles() != null) {
+      sourceFiles.addAll(Arrays.asList(elf.getDebug().getSourceFiles()));
+    }
+
+    /* Collect (line, address) pairs per file, in executable address order */
+    LinkedHashMap<File, LineTableBuilder> tables = new LinkedHashMap<File, LineTableBuilder>();
+    ArrayList<Integer> executable = elf.getDebug() == null ? null : elf.getDebug().getExecutableAddresses();
+    if (executable != null) {
+      for (int address: executable) {
+        DebugInfo info = elf.getDebugInfo(address);
+        if (info == null) {
+          continue;
+        }
+        if (info.getPath() == null && info.getFile() == null) {
+          continue;
+        }
+        if (info.getLine() < 0) {
+          continue;
+        }
+
+        File file;
+        if (info.getPath() != null) {
+          file = new File(info.getPath(), info.getFile());
+        } else {
+          file = new File(info.getFile());
+        }
+        try {
+          file = file.getCanonicalFile();
+        } catch (IOException e) {
+        } catch (java.security.AccessControlException e) {
+        }
+
+        LineTableBuilder table = tables.get(file);
+        if (table == null) {
+          table = new LineTableBuilder();
+          tables.put(file, table);
+        }
+        table.add(info.getLine(), address);
+      }
+    }
+
+    File[] files = tables.keySet().toArray(new File[0]);
+    String[] lineFiles = new String[files.length];
+    int[][] lines = new int[files.length][];
+    int[][] addresses = new int[files.length][];
+    for (int f = 0; f < files.length; f++) {
+      LineTableBuilder table = tables.get(files[f]);
+      table.build();
+      lineFiles[f] = files[f].getPath();
+      lines[f] = table.lines;
+      addresses[f] = table.addresses;
+    }
+
+    return new FirmwareSymbols(
+        new String[0], new long[0], new int[0],
+        names, sections, symbolAddresses, sizes,
+        sourceFiles.toArray(new String[0]), lineFiles, lines, addresses);
+  }
+
+  /**
+   * @return Firmware
+   */
+  public ELF getELF() {
+    return elf;
+  }
+
+  /**
+   * @return Unmodifiable variable symbol table
+   */
+  public Map<String, Symbol> getSymbolMap() {
+    return symbols;
+  }
+
+  /**
+   * @return Source files referenced by debug information, without duplicates
+   */
+  public String[] getDebugSourceFiles() {
+    return tables.getSourceFiles().clone();
+  }
+
+  /**
+   * @return Source files with debug line information
+   */
+  public File[] getSourceFiles() {
+    return files.clone();
+  }
+
+  /**
+   * Returns the executable address of a source line.
+   * Files are matched by name if no exact match exists.
+   *
+   * @param file Source file
+   * @param lineNr Line number
+   * @return Executable address, or -1 if unknown
+   */
+  public int getExecutableAddressOf(File file, int lineNr) {
+    if (file == null || lineNr < 0) {
+      return -1;
+    }
+
+    Integer index = fileIndex.get(file);
+    if (index == null) {
+      for (int i = 0; i < files.length; i++) {
+        if (files[i] != null && files[i].getName().equals(file.getName())) {
+          index = i;
+          break;
+        }
+      }
+    }
+    if (index == null) {
+      return -1;
+    }
+
+    int pos = Arrays.binarySearch(lines[index], lineNr);
+    if (pos < 0) {
+      return -1;
+    }
+    return addresses[index][pos];
+  }
+
+  private static class LineTableBuilder {
+    private long[] entries = new long[16];
+    private int[] entryAddresses = new int[16];
+    private int count = 0;
+    int[] lines;
+    int[] addresses;
+
+    void add(int line, int address) {
+      if (count == entries.length) {
+        entries = Arrays.copyOf(entries, count*2);
+        entryAddresses = Arrays.copyOf(entryAddresses, count*2);
+      }
+      /* Line in upper half, insertion order in lower half */
+      entries[count] = ((long) line << 32) | count;
+      entryAddresses[count] = address;
+      count++;
+    }
+
+    void build() {
+      long[] sorted = Arrays.copyOf(entries, count);
+      Arrays.sort(sorted);
+      int[] l = new int[count];
+      int[] a = new int[count];
+      int n = 0;
+      for (int i = 0; i < count; i++) {
+        int line = (int) (sorted[i] >>> 32);
+        int address = entryAddresses[(int) sorted[i]];
+        if (n > 0 && l[n - 1] == line) {
+          /* Last address of a line wins */
+          a[n - 1] = address;
+        } else {
+          l[n] = line;
+          a[n] = address;
+          n++;
+        }
+      }
+      lines = Arrays.copyOf(l, n);
+      addresses = Arrays.copyOf(a, n);
+    }
+  }
+}
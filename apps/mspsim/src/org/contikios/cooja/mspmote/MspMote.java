@@ -36,7 +36,6 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Hashtable;
 
 import org.apache.log4j.Logger;
 import org.jdom.Element;
@@ -50,6 +49,7 @@ import org.contikios.cooja.Simulation;
 import org.contikios.cooja.Watchpoint;
 import org.contikios.cooja.WatchpointMote;
 import org.contikios.cooja.interfaces.IPAddress;
+import org.contikios.cooja.interfaces.Radio;
 import org.contikios.cooja.mote.memory.MemoryInterface;
 import org.contikios.cooja.motes.AbstractEmulatedMote;
 import org.contikios.cooja.mspmote.interfaces.Msp802154Radio;
@@ -75,7 +75,6 @@ import se.sics.mspsim.util.ConfigManager;
 import se.sics.mspsim.util.DebugInfo;
 import se.sics.mspsim.util.ELF;
 import se.sics.mspsim.util.MapEntry;
-import se.sics.mspsim.util.MapTable;
 import se.sics.mspsim.profiler.SimpleProfiler;
 
 import org.contikios.cooja.mspmote.interfaces.MspClock;
@@ -88,6 +87,9 @@ public abstract class MspMote extends AbstractEmulatedMote implements Mote, Watc
 
   private final static int EXECUTE_DURATION_US = 1; /* We always execute in 1 us steps */
 
+  /* Time after an interaction point during which the mote executes in 1 us steps */
+  private final static long INTERACTION_HOLDOFF_US = Simulation.MILLISECOND;
+
   {
     Visualizer.registerVisualizerSkin(CodeVisualizerSkin.class);
   }
@@ -104,6 +106,14 @@ public abstract class MspMote extends AbstractEmulatedMote implements Mote, Watc
 
   public GenericNode mspNode = null;
 
+  /* Longest execution step, see MSPSIM_MAX_QUANTUM_US. 1 disables adaptive steps */
+  private long maxQuantum = EXECUTE_DURATION_US;
+  private long fineStepsUntil = 0;
+
+  /* Radio with lazily sampled RSSI, resolved at first execution */
+  private Msp802154Radio msp802154Radio = null;
+  private boolean radioResolved = false;
+
   public MspMote(MspMoteType moteType, Simulation simulation) {
     this.simulation = simulation;
     myMoteType = moteType;
@@ -156,7 +166,7 @@ public abstract class MspMote extends AbstractEmulatedMote implements Mote, Watc
       });
 
       try {
-        debuggingInfo = ((MspMoteType)getType()).getFirmwareDebugInfo();
+        firmwareImage = ((MspMoteType)getType()).getFirmwareImage();
       } catch (IOException e) {
         throw (RuntimeException) new RuntimeException("Error: " + e.getMessage()).initCause(e);
       }
@@ -234,17 +244,50 @@ public abstract class MspMote extends AbstractEmulatedMote implements Mote, Watc
 
     logger.info("Loading firmware from: " + fileELF.getAbsolutePath());
     Cooja.setProgressMessage("Loading " + fileELF.getName());
-    node.loadFirmware(((MspMoteType)getType()).getELF());
+    firmwareImage = ((MspMoteType)getType()).getFirmwareImage();
+    node.loadFirmware(firmwareImage.getELF());
 
     /* Throw exceptions at bad memory access */
     /*myCpu.setThrowIfWarning(true);*/
 
-    /* Create mote address memory */
-    MapTable map = ((MspMoteType)getType()).getELF().getMap();
-    MapEntry[] allEntries = map.getAllEntries();
-    myMemory = new MspMoteMemory(this, allEntries, myCpu);
+    /* Create mote address memory, sharing symbols with other motes */
+    myMemory = new MspMoteMemory(this, firmwareImage, myCpu);
 
     myCpu.reset();
+
+    try {
+      maxQuantum = Math.max(EXECUTE_DURATION_US, Long.parseLong(
+          Cooja.getExternalToolsSetting("MSPSIM_MAX_QUANTUM_US", "" + EXECUTE_DURATION_US)));
+    } catch (NumberFormatException e) {
+      logger.warn("Bad MSPSIM_MAX_QUANTUM_US: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Signals input to, or output from, the mote that other simulation
+   * components may react to, such as radio data or a radio state change.
+   * The mote then executes in 1 us steps for a while, instead of running
+   * ahead in larger steps.
+   */
+  public void interactionPoint() {
+    fineStepsUntil = getSimulation().getSimulationTime() + INTERACTION_HOLDOFF_US;
+  }
+
+  /**
+   * Returns how long the mote may execute from the given time.
+   * Unless interacting, the mote runs until the next scheduled simulation
+   * event, at most maxQuantum. No input can reach the mote before then.
+   */
+  private long getQuantum(long t, int duration) {
+    if (maxQuantum <= duration || t < fineStepsUntil) {
+      return duration;
+    }
+    long quantum = maxQuantum;
+    long nextEvent = getSimulation().getNextEventTime();
+    if (nextEvent >= 0) {
+      quantum = Math.min(quantum, nextEvent - t);
+    }
+    return Math.max(duration, quantum);
   }
 
   public CommandHandler getCLICommandHandler() {
@@ -331,10 +374,28 @@ public abstract class MspMote extends AbstractEmulatedMote implements Mote, Watc
       scheduleNextWakeup(nextExecute);
     }
     
+    if (duration == 0) {
+      /* Synchronized for input from other simulation components */
+      interactionPoint();
+    }
+    long quantum = getQuantum(t, duration);
+
+    /* Sample signal strength into the RSSI register before the CPU can read it */
+    if (!radioResolved) {
+      radioResolved = true;
+      Radio radio = myMoteInterfaceHandler.getRadio();
+      if (radio instanceof Msp802154Radio) {
+        msp802154Radio = (Msp802154Radio) radio;
+      }
+    }
+    if (msp802154Radio != null) {
+      msp802154Radio.updateRSSI(t);
+    }
+
     /* Execute MSPSim-based mote */
     /* TODO Try-catch overhead */
     try {
-      nextExecute = myCpu.stepMicros(Math.max(0, t-lastExecute), duration) + t + duration;
+      nextExecute = myCpu.stepMicros(Math.max(0, t-lastExecute), quantum) + t + quantum;
       lastExecute = t;
     } catch (EmulationException e) {
       String trace = e.getMessage() + "\n\n" + getStackTrace();
@@ -348,7 +409,7 @@ public abstract class MspMote extends AbstractEmulatedMote implements Mote, Watc
     }
 
     /*logger.debug(t + ": Schedule next wakeup at " + nextExecute);*/
-    executed += duration; 
+    executed += quantum;
     scheduleNextWakeup(nextExecute);
 
     if (stopNextInstruction) {
@@ -414,7 +475,7 @@ public abstract class MspMote extends AbstractEmulatedMote implements Mote, Watc
     }
 
     try {
-      debuggingInfo = ((MspMoteType)getType()).getFirmwareDebugInfo();
+      firmwareImage = ((MspMoteType)getType()).getFirmwareImage();
     } catch (IOException e) {
       throw (RuntimeException) new RuntimeException("Error: " + e.getMessage()).initCause(e);
     }
@@ -553,7 +614,7 @@ public abstract class MspMote extends AbstractEmulatedMote implements Mote, Watc
   /* WatchpointMote */
   private ArrayList<WatchpointListener> watchpointListeners = new ArrayList<WatchpointListener>();
   private ArrayList<MspBreakpoint> watchpoints = new ArrayList<MspBreakpoint>();
-  private Hashtable<File, Hashtable<Integer, Integer>> debuggingInfo = null;
+  private MspFirmwareImage firmwareImage = null;
 
   public void addWatchpointListener(WatchpointListener listener) {
     watchpointListeners.add(listener);
@@ -614,36 +675,10 @@ public abstract class MspMote extends AbstractEmulatedMote implements Mote, Watc
   }
 
   public int getExecutableAddressOf(File file, int lineNr) {
-    if (file == null || lineNr < 0 || debuggingInfo == null) {
+    if (firmwareImage == null) {
       return -1;
     }
-
-    /* Match file */
-    Hashtable<Integer, Integer> lineTable = debuggingInfo.get(file);
-    if (lineTable == null) {
-      for (File f: debuggingInfo.keySet()) {
-        if (f != null && f.getName().equals(file.getName())) {
-          lineTable = debuggingInfo.get(f);
-          break;
-        }
-      }
-    }
-    if (lineTable == null) {
-      return -1;
-    }
-
-    /* Match line number */
-    Integer address = lineTable.get(lineNr);
-    if (address != null) {
-      for (Integer l: lineTable.keySet()) {
-        if (l != null && l.intValue() == lineNr) {
-          /* Found line address */
-          return lineTable.get(l);
-        }
-      }
-    }
-
-    return -1;
+    return firmwareImage.getExecutableAddressOf(file, lineNr);
   }
 
   private long lastBreakpointCycles = -1;
@@ -32,7 +32,6 @@ package org.contikios.cooja.mspmote;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.log4j.Logger;
@@ -44,24 +43,23 @@ import org.contikios.cooja.mote.memory.MemoryLayout;
 import se.sics.mspsim.core.MSP430;
 import se.sics.mspsim.core.Memory.AccessMode;
 import se.sics.mspsim.core.Memory.AccessType;
-import se.sics.mspsim.util.MapEntry;
 
 public class MspMoteMemory implements MemoryInterface {
   private static Logger logger = Logger.getLogger(MspMoteMemory.class);
-  private final ArrayList<MapEntry> mapEntries;
+  private final Map<String, Symbol> symbols;
   private final MemoryLayout memLayout;
 
   private final MSP430 cpu;
 
-  public MspMoteMemory(Mote mote, MapEntry[] allEntries, MSP430 cpu) {
-    this.mapEntries = new ArrayList<MapEntry>();
-
-    for (MapEntry entry: allEntries) {
-      if (entry.getType() == MapEntry.TYPE.variable) {
-        mapEntries.add(entry);
-      }
-    }
-
+  /**
+   * Creates memory sharing the symbol table of the firmware image.
+   *
+   * @param mote Mote
+   * @param image Firmware image
+   * @param cpu MSP430 cpu
+   */
+  public MspMoteMemory(Mote mote, MspFirmwareImage image, MSP430 cpu) {
+    this.symbols = image.getSymbolMap();
     this.cpu = cpu;
     memLayout = new MemoryLayout(ByteOrder.LITTLE_ENDIAN, MemoryLayout.ARCH_16BIT, 2);
   }
@@ -114,18 +112,7 @@ public class MspMoteMemory implements MemoryInterface {
 
   @Override
   public Map<String, Symbol> getSymbolMap() {
-    Map<String, Symbol> vars = new HashMap<>();
-    for (MapEntry entry : mapEntries) {
-      if (entry.getType() != MapEntry.TYPE.variable) {
-        continue;
-      }
-      vars.put(entry.getName(), new Symbol(
-              Symbol.Type.VARIABLE,
-              entry.getName(), 
-              entry.getAddress(), 
-              entry.getSize()));
-    }
-    return vars;
+    return symbols;
   }
 
   @Override
@@ -33,7 +33,6 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Hashtable;
 
 import javax.swing.Icon;
 import javax.swing.JComponent;
@@ -52,7 +51,6 @@ import org.contikios.cooja.Simulation;
 import org.contikios.cooja.interfaces.IPAddress;
 import org.contikios.cooja.mspmote.interfaces.Msp802154Radio;
 import org.contikios.cooja.mspmote.interfaces.MspSerial;
-import se.sics.mspsim.util.DebugInfo;
 import se.sics.mspsim.util.ELF;
 
 /**
@@ -333,7 +331,7 @@ public abstract class MspMoteType implements MoteType {
   }
 
   private ELF elf; /* cached */
-  public ELF getELF() throws IOException {
+  public synchronized ELF getELF() throws IOException {
     if (elf == null) {
       if (Cooja.isVisualizedInApplet()) {
         logger.warn("ELF loading in applet not implemented");
@@ -343,65 +341,16 @@ public abstract class MspMoteType implements MoteType {
     return elf;
   }
 
-  private Hashtable<File, Hashtable<Integer, Integer>> debuggingInfo = null; /* cached */
-  public Hashtable<File, Hashtable<Integer, Integer>> getFirmwareDebugInfo()
-  throws IOException {
-    if (debuggingInfo == null) {
-      debuggingInfo = getFirmwareDebugInfo(getELF());
+  private MspFirmwareImage firmwareImage; /* cached */
+  /**
+   * @return Decoded firmware shared by all motes of this type
+   * @throws IOException If firmware could not be loaded
+   */
+  public synchronized MspFirmwareImage getFirmwareImage() throws IOException {
+    if (firmwareImage == null) {
+      firmwareImage = MspFirmwareImage.create(getELF(), getContikiFirmwareFile());
     }
-    return debuggingInfo;
-  }
-
-  public static Hashtable<File, Hashtable<Integer, Integer>> getFirmwareDebugInfo(ELF elf) {
-    Hashtable<File, Hashtable<Integer, Integer>> fileToLineHash =
-      new Hashtable<File, Hashtable<Integer, Integer>>();
-
-    if (elf.getDebug() == null) {
-      // No debug information is available
-      return fileToLineHash;
-    }
-
-    /* Fetch all executable addresses */
-    ArrayList<Integer> addresses = elf.getDebug().getExecutableAddresses();
-    if (addresses == null) {
-      // No debug information is available
-      return fileToLineHash;
-    }
-
-    for (int address: addresses) {
-      DebugInfo info = elf.getDebugInfo(address);
-      if (info == null) {
-        continue;
-      }
-      if (info.getPath() == null && info.getFile() == null) {
-        continue;
-      }
-      if (info.getLine() < 0) {
-        continue;
-      }
-
-      File file;
-      if (info.getPath() != null) {
-        file = new File(info.getPath(), info.getFile());
-      } else {
-        file = new File(info.getFile());
-      }
-      try {
-        file = file.getCanonicalFile();
-      } catch (IOException e) {
-      } catch (java.security.AccessControlException e) {
-      }
-
-      Hashtable<Integer, Integer> lineToAddrHash = fileToLineHash.get(file);
-      if (lineToAddrHash == null) {
-        lineToAddrHash = new Hashtable<Integer, Integer>();
-        fileToLineHash.put(file, lineToAddrHash);
-      }
-
-      lineToAddrHash.put(info.getLine(), address);
-    }
-
-    return fileToLineHash;
+    return firmwareImage;
   }
 
 }
@@ -97,6 +97,7 @@ public class Msp802154Radio extends Radio implements CustomDataRadio {
       final private byte[] syncSeq = {0,0,0,0,0x7A};
       
       public void receivedByte(byte data) {
+        mote.interactionPoint();
         if (!isTransmitting()) {
           lastEvent = RadioEvent.TRANSMISSION_STARTED;
           lastOutgoingPacket = null;
@@ -153,6 +154,7 @@ public class Msp802154Radio extends Radio implements CustomDataRadio {
 
     radio.addOperatingModeListener(new OperatingModeListener() {
       public void modeChanged(Chip source, int mode) {
+        mote.interactionPoint();
         if (radio.isReadyToReceive()) {
           lastEvent = RadioEvent.HW_ON;
           setChanged();
@@ -165,6 +167,7 @@ public class Msp802154Radio extends Radio implements CustomDataRadio {
 
     radio.addChannelListener(new ChannelListener() {
       public void channelChanged(int channel) {
+        mote.interactionPoint();
         /* XXX Currently assumes zero channel switch time */
         lastEvent = RadioEvent.UNKNOWN;
         setChanged();
@@ -343,10 +346,16 @@ public class Msp802154Radio extends Radio implements CustomDataRadio {
   double currentSignalStrength = 0;
 
   /**
-   * Last 8 received signal strengths
+   * Last 8 sampled signal strengths, as a ring buffer.
+   * The CC2420 RSSI register is their average.
    */
   private double[] rssiLast = new double[8];
+  private int rssiLastIndex = 0;
+
+  /* Samples left to take, one every DELAY_BETWEEN_BYTES/2, and time of next sample */
   private int rssiLastCounter = 0;
+  private long rssiNextSample = 0;
+  private boolean rssiSampled = false;
 
   public double getCurrentSignalStrength() {
     return currentSignalStrength;
@@ -356,31 +365,53 @@ public class Msp802154Radio extends Radio implements CustomDataRadio {
     if (signalStrength == currentSignalStrength) {
       return; /* ignored */
     }
+    long now = mote.getSimulation().getSimulationTime();
+
+    /* Samples before now saw the previous signal strength */
+    sampleSignalStrength(now - 1);
+
     currentSignalStrength = signalStrength;
     if (rssiLastCounter == 0) {
-      getMote().getSimulation().scheduleEvent(new MspMoteTimeEvent(mote, 0) {
-        public void execute(long t) {
-          super.execute(t);
+      rssiNextSample = now;
+    }
+    rssiLastCounter = 8;
+    mote.interactionPoint();
+  }
 
-          /* Update average */
-          System.arraycopy(rssiLast, 1, rssiLast, 0, 7);
-          rssiLast[7] = currentSignalStrength;
-          double avg = 0;
-          for (double v: rssiLast) {
-            avg += v;
-          }
-          avg /= rssiLast.length;
+  /**
+   * Updates the CC2420 RSSI register with all signal strength samples
+   * until given time. Called before the mote executes, instead of
+   * scheduling an event per sample.
+   *
+   * @param time Simulation time
+   */
+  public void updateRSSI(long time) {
+    sampleSignalStrength(time);
+    if (!rssiSampled) {
+      return;
+    }
+    rssiSampled = false;
+
+    /* Oldest sample first */
+    double avg = 0;
+    for (int i = 0; i < rssiLast.length; i++) {
+      avg += rssiLast[(rssiLastIndex + i) % rssiLast.length];
+    }
+    avg /= rssiLast.length;
 
-          radio.setRSSI((int) avg);
+    radio.setRSSI((int) avg);
+  }
 
-          rssiLastCounter--;
-          if (rssiLastCounter > 0) {
-            mote.getSimulation().scheduleEvent(this, t+DELAY_BETWEEN_BYTES/2);
-          }
-        }
-      }, mote.getSimulation().getSimulationTime());
+  /* Takes the samples until given time. The signal strength has not
+   * changed since the first of these samples. */
+  private void sampleSignalStrength(long time) {
+    while (rssiLastCounter > 0 && rssiNextSample <= time) {
+      rssiLast[rssiLastIndex] = currentSignalStrength;
+      rssiLastIndex = (rssiLastIndex + 1) % rssiLast.length;
+      rssiLastCounter--;
+      rssiNextSample += DELAY_BETWEEN_BYTES/2;
+      rssiSampled = true;
     }
-    rssiLastCounter = 8;
   }
   
   
@@ -37,7 +37,7 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.io.File;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 
 import javax.swing.JEditorPane;
 import javax.swing.JMenuItem;
@@ -75,7 +75,8 @@ public class CodeUI extends JPanel {
   }
 
   private JEditorPane codeEditor = null;
-  private HashMap<Integer, Integer> codeEditorLines = null;
+  /* Start offset of each line, indexed by line number and ending with text length */
+  private int[] codeEditorLines = new int[0];
   protected File displayedFile = null;
 
   private static final HighlightPainter CURRENT_LINE_MARKER = new SimpleMarker(Color.ORANGE);
@@ -109,7 +110,6 @@ public class CodeUI extends JPanel {
     add(new JScrollPane(codeEditor), BorderLayout.CENTER);
     doLayout();
 
-    codeEditorLines = new HashMap<Integer, Integer>();
     codeEditor.setContentType("text/c");
     DefaultSyntaxKit kit = (DefaultSyntaxKit) codeEditor.getEditorKit();
     kit.setProperty("Action.addbreakpoint", JSyntaxAddBreakpoint.class.getName());
@@ -133,7 +133,7 @@ public class CodeUI extends JPanel {
     }
 
     codeEditor.setText("");
-    codeEditorLines.clear();
+    codeEditorLines = new int[0];
     codeEditor.setEditable(false);
 
     Highlighter hl = codeEditor.getHighlighter();
@@ -170,8 +170,8 @@ public class CodeUI extends JPanel {
         if (address < 0) {
           return;
         }
-        final int start = codeEditorLines.get(line);
-        int end = codeEditorLines.get(line+1);
+        final int start = codeEditorLines[line];
+        int end = codeEditorLines[line+1];
         Highlighter hl = codeEditor.getHighlighter();
         try {
           hl.changeHighlight(selectedLineTag, start, end);
@@ -219,9 +219,12 @@ public class CodeUI extends JPanel {
       if (!w.getCodeFile().equals(displayedFile)) {
         continue;
       }
+      if (!hasLine(w.getLineNumber())) {
+        continue;
+      }
 
-      final int start = codeEditorLines.get(w.getLineNumber());
-      int end = codeEditorLines.get(w.getLineNumber()+1);
+      final int start = codeEditorLines[w.getLineNumber()];
+      int end = codeEditorLines[w.getLineNumber()+1];
       try {
         breakpointsLineTags.add(hl.addHighlight(start, end, BREAKPOINTS_MARKER));
       } catch (BadLocationException e1) {
@@ -229,8 +232,13 @@ public class CodeUI extends JPanel {
     }
   }
 
+  private boolean hasLine(int line) {
+    return line >= 1 && line+1 < codeEditorLines.length;
+  }
+
   private int getCodeEditorMouseLine() {
-    if (codeEditorLines == null) {
+    int lines = codeEditorLines.length - 2;
+    if (lines < 1) {
       return -1;
     }
     Point mousePos = codeEditor.getMousePosition();
@@ -238,15 +246,11 @@ public class CodeUI extends JPanel {
       return -1;
     }
     int modelPos = codeEditor.viewToModel(mousePos);
-    int line = 1;
-    while (codeEditorLines.containsKey(line+1)) {
-      int next = codeEditorLines.get(line+1);
-      if (modelPos < next) {
-        return line;
-      }
-      line++;
+    if (modelPos < 0 || modelPos >= codeEditorLines[lines+1]) {
+      return -1;
     }
-    return -1;
+    int pos = Arrays.binarySearch(codeEditorLines, 1, lines+2, modelPos);
+    return pos >= 0 ? pos : -pos-2;
   }
 
   /**
@@ -258,7 +262,7 @@ public class CodeUI extends JPanel {
         displayedFile = null;
         codeEditor.setText("[no source displayed]");
         codeEditor.setEnabled(false);
-        codeEditorLines.clear();
+        codeEditorLines = new int[0];
         displayLine(-1, markCurrent);
       }
     });
@@ -282,12 +286,14 @@ public class CodeUI extends JPanel {
 
       String[] lines = data.split("\n");
       logger.info("Opening " + codeFile + " (" + lines.length + " lines)");
+      int[] lineStarts = new int[lines.length+2];
       int length = 0;
-      codeEditorLines.clear();
       for (int line=1; line-1 < lines.length; line++) {
-        codeEditorLines.put(line, length);
+        lineStarts[line] = length;
         length += lines[line-1].length()+1;
       }
+      lineStarts[lines.length+1] = length;
+      codeEditorLines = lineStarts;
       codeEditor.setText(data.toString());
       displayedFile = codeFile;
       updateBreakpoints();
@@ -315,9 +321,9 @@ public class CodeUI extends JPanel {
         hl.changeHighlight(currentLineTag, 0, 0);
       }
 
-      if (lineNumber >= 0) {
-        final int start = codeEditorLines.get(lineNumber);
-        int end = codeEditorLines.get(lineNumber+1);
+      if (hasLine(lineNumber)) {
+        final int start = codeEditorLines[lineNumber];
+        int end = codeEditorLines[lineNumber+1];
         if (markCurrent) {
           /* highlight code */
           Highlighter hl = codeEditor.getHighlighter();
@@ -136,33 +136,15 @@ public class MspCodeWatcher extends VisPlugin implements MotePlugin {
       if (debug == null) {
         throw new RuntimeException("No debugging info found in firmware, aborting");
       }
-      debugSourceFiles = debug.getSourceFiles();
-      if (debugSourceFiles == null) {
+      /* Source files without duplicates, shared by all motes of this type */
+      debugSourceFiles = ((MspMoteType)mspMote.getType()).getFirmwareImage().getDebugSourceFiles();
+      if (debugSourceFiles.length == 0) {
         throw new RuntimeException("No debugging info found in firmware, aborting");
       }
     } catch (IOException e1) {
       throw new RuntimeException("No debugging info found in firmware, aborting");
     }
 
-    /* XXX Temporary workaround: source file removing duplicates awaiting Mspsim update */
-    {
-      ArrayList<String> newDebugSourceFiles = new ArrayList<String>();
-      for (String sf: debugSourceFiles) {
-        boolean found = false;
-        for (String nsf: newDebugSourceFiles) {
-          if (sf.equals(nsf)) {
-            found = true;
-            break;
-          }
-        }
-        if (!found) {
-          newDebugSourceFiles.add(sf);
-        }
-      }
-      debugSourceFiles = newDebugSourceFiles.toArray(new String[0]);
-    }
-
-
     rules = new ArrayList<Rule>();
 
     loadDefaultRules();
@@ -38,8 +38,6 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Observable;
-import java.util.Observer;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -297,7 +295,7 @@ public class PowerTracker extends VisPlugin {
     return sb.toString();
   }
 
-  public static class MoteTracker implements Observer {
+  public static class MoteTracker implements Radio.RadioEventListener {
     /* last radio state */
     private boolean radioWasOn;
     private RadioState lastRadioState;
@@ -331,10 +329,10 @@ public class PowerTracker extends VisPlugin {
       }
       lastUpdateTime = simulation.getSimulationTime();
 
-      radio.addObserver(this);
+      radio.addRadioEventListener(this);
     }
 
-    public void update(Observable o, Object arg) {
+    public void radioEvent(Radio radio, Radio.RadioEvent event) {
       update();
     }
     public void update() {
@@ -409,7 +407,7 @@ public class PowerTracker extends VisPlugin {
     }
 
     public void dispose() {
-      radio.deleteObserver(this);
+      radio.removeRadioEventListener(this);
       radio = null;
       mote = null;
     }
@@ -442,7 +440,7 @@ public class PowerTracker extends VisPlugin {
 
     /* Radio observer */
     MoteTracker tracker = new MoteTracker(mote);
-    tracker.update(null, null);
+    tracker.update();
     return tracker;
   }
 
@@ -0,0 +1,588 @@
+package org.contikios.cooja.serialsocket;
+
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+import java.awt.BorderLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.JLabel;
+import javax.swing.Timer;
+
+import org.apache.log4j.Logger;
+import org.jdom.Element;
+
+import org.contikios.cooja.ClassDescription;
+import org.contikios.cooja.Cooja;
+import org.contikios.cooja.Mote;
+import org.contikios.cooja.PluginType;
+import org.contikios.cooja.Simulation;
+import org.contikios.cooja.VisPlugin;
+import org.contikios.cooja.interfaces.SerialPort;
+
+/**
+ * Forwards the serial ports of all motes to sockets, using a single
+ * selector thread. Data from sockets is handed to the simulation thread in
+ * batches. This plugin can be run without visualization.
+ *
+ * Configuration:
+ * mode - "ports" (default): one listen port per mote, port + mote ID,
+ *        accepting one client each, like SerialSocketServer.
+ *        "framed": one listen port for all motes, accepting any number of
+ *        clients. Data in both directions is framed as a 2 byte mote ID,
+ *        a 2 byte length and the data, all big-endian.
+ * port - Base port in ports mode, default 60000. Listen port in framed mode.
+ *
+ * Motes in the simulation when the plugin is started are forwarded.
+ */
+@ClassDescription("Serial Socket Gateway")
+@PluginType(PluginType.SIM_PLUGIN)
+public class SerialSocketGateway extends VisPlugin {
+  private static final long serialVersionUID = 1L;
+  private static final Logger logger = Logger.getLogger(SerialSocketGateway.class);
+
+  private static final int UPDATE_INTERVAL = 1000; /* ms */
+  private static final int FRAME_HEADER = 4;
+  private static final int MAX_FRAME_DATA = 0xFFFF;
+  private static final int READ_BUFFER_SIZE = FRAME_HEADER + MAX_FRAME_DATA;
+  private static final int WRITE_BUFFER_SIZE = 16*1024;
+
+  private final Simulation simulation;
+
+  private boolean framed = false;
+  private int port = 60000;
+
+  private volatile Selector selector = null;
+  private Thread selectorThread = null;
+  private volatile boolean running = false;
+
+  private final Map<Integer, MotePort> motePorts = new HashMap<Integer, MotePort>();
+  private final List<Connection> framedClients = new CopyOnWriteArrayList<Connection>();
+
+  /* Set when motes have output for the selector thread */
+  private final AtomicBoolean outputPending = new AtomicBoolean(false);
+  /* Set when socket input has been handed to the simulation thread */
+  private final AtomicBoolean inputPending = new AtomicBoolean(false);
+
+  private JLabel statusLabel = null;
+  private Timer updateTimer = null;
+
+  public SerialSocketGateway(Simulation simulation, Cooja gui) {
+    super("Serial Socket Gateway", gui, false);
+    this.simulation = simulation;
+
+    if (!Cooja.isVisualized()) {
+      return;
+    }
+
+    statusLabel = new JLabel();
+    add(BorderLayout.CENTER, statusLabel);
+    updateTimer = new Timer(UPDATE_INTERVAL, new ActionListener() {
+      public void actionPerformed(ActionEvent e) {
+        updateStatus();
+      }
+    });
+    setSize(400, 60);
+  }
+
+  public void startPlugin() {
+    super.startPlugin();
+
+    try {
+      selector = Selector.open();
+      if (framed) {
+        ServerSocketChannel server = openServer(port);
+        server.register(selector, SelectionKey.OP_ACCEPT, null);
+      }
+      for (Mote mote : simulation.getMotes()) {
+        if (!(mote.getInterfaces().getLog() instanceof SerialPort)) {
+          continue;
+        }
+        MotePort motePort = new MotePort(mote);
+        if (!framed) {
+          motePort.server = openServer(port + mote.getID());
+          motePort.server.register(selector, SelectionKey.OP_ACCEPT, motePort);
+        }
+        motePorts.put(mote.getID(), motePort);
+      }
+    } catch (IOException e) {
+      logger.error("Could not start serial socket gateway: " + e.getMessage(), e);
+      stopGateway();
+      return;
+    }
+
+    for (MotePort motePort : motePorts.values()) {
+      motePort.serialPort.addSerialDataObserver(motePort);
+    }
+
+    running = true;
+    selectorThread = new Thread(new Runnable() {
+      public void run() {
+        selectLoop();
+      }
+    }, "Serial Socket Gateway");
+    selectorThread.setDaemon(true);
+    selectorThread.start();
+    logger.info("Forwarding " + motePorts.size() + " serial ports "
+        + (framed ? "on port " + port : "on ports " + port + " + mote ID"));
+
+    if (updateTimer != null) {
+      updateStatus();
+      updateTimer.start();
+    }
+  }
+
+  private static ServerSocketChannel openServer(int port) throws IOException {
+    ServerSocketChannel server = ServerSocketChannel.open();
+    server.configureBlocking(false);
+    server.socket().setReuseAddress(true);
+    server.bind(new InetSocketAddress(port));
+    return server;
+  }
+
+  private void selectLoop() {
+    while (running) {
+      try {
+        selector.select();
+      } catch (IOException e) {
+        logger.error("Serial socket gateway stopped: " + e.getMessage(), e);
+        break;
+      }
+      if (!running) {
+        break;
+      }
+
+      if (outputPending.getAndSet(false)) {
+        flushOutput();
+      }
+
+      boolean gotInput = false;
+      Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+      while (keys.hasNext()) {
+        SelectionKey key = keys.next();
+        keys.remove();
+        try {
+          if (!key.isValid()) {
+            continue;
+          }
+          if (key.isAcceptable()) {
+            accept(key);
+          } else {
+            Connection conn = (Connection) key.attachment();
+            if (key.isReadable()) {
+              gotInput |= conn.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+              conn.write();
+            }
+          }
+        } catch (IOException e) {
+          if (key.attachment() instanceof Connection) {
+            ((Connection) key.attachment()).close();
+          } else {
+            logger.warn("Accept failed: " + e.getMessage());
+          }
+        }
+      }
+
+      if (gotInput && !inputPending.getAndSet(true)) {
+        simulation.invokeSimulationThread(handOffInput);
+      }
+    }
+  }
+
+  private void accept(SelectionKey key) throws IOException {
+    SocketChannel channel = ((ServerSocketChannel) key.channel()).accept();
+    if (channel == null) {
+      return;
+    }
+    MotePort motePort = (MotePort) key.attachment();
+    if (motePort != null && motePort.client != null) {
+      logger.info("Refused connection of client " + channel.getRemoteAddress());
+      channel.close();
+      return;
+    }
+    channel.configureBlocking(false);
+    channel.socket().setTcpNoDelay(true);
+    Connection conn = new Connection(channel, motePort);
+    conn.key = channel.register(selector, SelectionKey.OP_READ, conn);
+    if (motePort != null) {
+      motePort.client = conn;
+    } else {
+      framedClients.add(conn);
+    }
+    logger.info("Client connected: " + channel.getRemoteAddress()
+        + (motePort != null ? " to " + motePort.mote : ""));
+  }
+
+  /* Moves output of all motes to connections, and writes it */
+  private void flushOutput() {
+    for (MotePort motePort : motePorts.values()) {
+      byte[] data;
+      int len;
+      synchronized (motePort) {
+        if (motePort.outputLen == 0) {
+          continue;
+        }
+        data = motePort.output;
+        len = motePort.outputLen;
+        motePort.output = motePort.spareOutput;
+        motePort.spareOutput = data;
+        motePort.outputLen = 0;
+      }
+      motePort.outBytes += len;
+      if (motePort.client != null) {
+        motePort.client.queue(data, 0, len);
+      }
+      for (Connection conn : framedClients) {
+        for (int off = 0; off < len; off += MAX_FRAME_DATA) {
+          int n = Math.min(MAX_FRAME_DATA, len - off);
+          conn.queueFrameHeader(motePort.mote.getID(), n);
+          conn.queue(data, off, n);
+        }
+      }
+    }
+    for (MotePort motePort : motePorts.values()) {
+      if (motePort.client != null) {
+        motePort.client.writeOrClose();
+      }
+    }
+    for (Connection conn : framedClients) {
+      conn.writeOrClose();
+    }
+  }
+
+  /* Writes all socket input to the motes, in the simulation thread */
+  private final Runnable handOffInput = new Runnable() {
+    public void run() {
+      inputPending.set(false);
+      if (!running) {
+        return;
+      }
+      for (MotePort motePort : motePorts.values()) {
+        byte[] data;
+        int len;
+        synchronized (motePort) {
+          if (motePort.inputLen == 0) {
+            continue;
+          }
+          data = motePort.input;
+          len = motePort.inputLen;
+          motePort.input = motePort.spareInput;
+          motePort.spareInput = data;
+          motePort.inputLen = 0;
+        }
+        for (int i = 0; i < len; i++) {
+          motePort.serialPort.writeByte(data[i]);
+        }
+        motePort.inBytes += len;
+      }
+    }
+  };
+
+  /**
+   * Serial port of one mote. Data is buffered in both directions, and
+   * buffers are swapped when handed over between threads.
+   */
+  private class MotePort implements Observer {
+    final Mote mote;
+    final SerialPort serialPort;
+    ServerSocketChannel server = null;
+    volatile Connection client = null;
+
+    /* Socket -> mote, appended by selector thread */
+    byte[] input = new byte[256];
+    byte[] spareInput = new byte[256];
+    int inputLen = 0;
+
+    /* Mote -> socket, appended by simulation thread */
+    byte[] output = new byte[256];
+    byte[] spareOutput = new byte[256];
+    int outputLen = 0;
+
+    volatile long inBytes = 0;
+    volatile long outBytes = 0;
+
+    MotePort(Mote mote) {
+      this.mote = mote;
+      this.serialPort = (SerialPort) mote.getInterfaces().getLog();
+    }
+
+    synchronized void appendInput(ByteBuffer src, int len) {
+      if (inputLen + len > input.length) {
+        byte[] larger = new byte[Math.max(2*input.length, inputLen + len)];
+        System.arraycopy(input, 0, larger, 0, inputLen);
+        input = larger;
+      }
+      src.get(input, inputLen, len);
+      inputLen += len;
+    }
+
+    /* Serial data from mote */
+    public void update(Observable obs, Object obj) {
+      if (client == null && framedClients.isEmpty()) {
+        return;
+      }
+      synchronized (this) {
+        if (outputLen == output.length) {
+          byte[] larger = new byte[2*output.length];
+          System.arraycopy(output, 0, larger, 0, outputLen);
+          output = larger;
+        }
+        output[outputLen++] = serialPort.getLastSerialData();
+      }
+      Selector sel = selector;
+      if (!outputPending.getAndSet(true) && sel != null) {
+        sel.wakeup();
+      }
+    }
+  }
+
+  /**
+   * Client connection, either to one mote or framed.
+   * Only accessed from the selector thread.
+   */
+  private class Connection {
+    final SocketChannel channel;
+    final MotePort motePort;
+    SelectionKey key = null;
+    final ByteBuffer in = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    ByteBuffer out = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+
+    Connection(SocketChannel channel, MotePort motePort) {
+      this.channel = channel;
+      this.motePort = motePort;
+    }
+
+    /**
+     * @return True if input was passed on to a mote
+     * @throws IOException On read error or end of stream
+     */
+    boolean read() throws IOException {
+      if (channel.read(in) < 0) {
+        throw new IOException("End of stream");
+      }
+      in.flip();
+      boolean gotInput = false;
+      if (motePort != null) {
+        if (in.hasRemaining()) {
+          motePort.appendInput(in, in.remaining());
+          gotInput = true;
+        }
+      } else {
+        while (in.remaining() >= FRAME_HEADER) {
+          int id = in.getShort(in.position()) & 0xFFFF;
+          int len = in.getShort(in.position() + 2) & 0xFFFF;
+          if (in.remaining() < FRAME_HEADER + len) {
+            break;
+          }
+          in.position(in.position() + FRAME_HEADER);
+          MotePort target = motePorts.get(id);
+          if (target == null) {
+            logger.warn("Dropping frame to unknown mote " + id);
+            in.position(in.position() + len);
+            continue;
+          }
+          target.appendInput(in, len);
+          gotInput = true;
+        }
+      }
+      in.compact();
+      return gotInput;
+    }
+
+    private void ensureOutCapacity(int len) {
+      if (out.remaining() >= len) {
+        return;
+      }
+      ByteBuffer larger = ByteBuffer.allocateDirect(
+          Math.max(2*out.capacity(), out.position() + len));
+      out.flip();
+      larger.put(out);
+      out = larger;
+    }
+
+    void queueFrameHeader(int id, int len) {
+      ensureOutCapacity(FRAME_HEADER);
+      out.putShort((short) id);
+      out.putShort((short) len);
+    }
+
+    void queue(byte[] data, int off, int len) {
+      ensureOutCapacity(len);
+      out.put(data, off, len);
+    }
+
+    /* Writes queued data, and waits for the socket to be writable if not all was written */
+    void write() throws IOException {
+      out.flip();
+      channel.write(out);
+      out.compact();
+      if (out.position() > 0) {
+        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+      } else {
+        key.interestOps(SelectionKey.OP_READ);
+      }
+    }
+
+    void writeOrClose() {
+      if (out.position() == 0) {
+        return;
+      }
+      try {
+        write();
+      } catch (IOException e) {
+        close();
+      }
+    }
+
+    void close() {
+      try {
+        logger.info("Client disconnected: " + channel.getRemoteAddress());
+      } catch (IOException e) {
+        /* Already closed */
+      }
+      if (key != null) {
+        key.cancel();
+      }
+      try {
+        channel.close();
+      } catch (IOException e) {
+        logger.warn("Error closing client: " + e.getMessage());
+      }
+      if (motePort != null) {
+        if (motePort.client == this) {
+          motePort.client = null;
+        }
+      } else {
+        framedClients.remove(this);
+      }
+    }
+  }
+
+  private void stopGateway() {
+    running = false;
+    if (selector != null) {
+      selector.wakeup();
+    }
+    if (selectorThread != null) {
+      try {
+        selectorThread.join(1000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      selectorThread = null;
+    }
+    for (MotePort motePort : motePorts.values()) {
+      motePort.serialPort.deleteSerialDataObserver(motePort);
+    }
+    if (selector != null) {
+      for (SelectionKey key : selector.keys()) {
+        try {
+          key.channel().close();
+        } catch (IOException e) {
+          logger.warn("Error closing channel: " + e.getMessage());
+        }
+      }
+      try {
+        selector.close();
+      } catch (IOException e) {
+        logger.warn("Error closing selector: " + e.getMessage());
+      }
+      selector = null;
+    }
+  }
+
+  private void updateStatus() {
+    long in = 0, out = 0;
+    int clients = framedClients.size();
+    for (MotePort motePort : motePorts.values()) {
+      in += motePort.inBytes;
+      out += motePort.outBytes;
+      if (motePort.client != null) {
+        clients++;
+      }
+    }
+    statusLabel.setText(motePorts.size() + " motes, " + clients + " clients, "
+        + in + " bytes to motes, " + out + " bytes from motes");
+  }
+
+  public void closePlugin() {
+    if (updateTimer != null) {
+      updateTimer.stop();
+    }
+    stopGateway();
+  }
+
+  public Collection<Element> getConfigXML() {
+    ArrayList<Element> config = new ArrayList<Element>();
+    Element element;
+
+    element = new Element("mode");
+    element.setText(framed ? "framed" : "ports");
+    config.add(element);
+
+    element = new Element("port");
+    element.setText(Integer.toString(port));
+    config.add(element);
+
+    return config;
+  }
+
+  public boolean setConfigXML(Collection<Element> configXML, boolean visAvailable) {
+    for (Element element : configXML) {
+      String name = element.getName();
+      if ("mode".equals(name)) {
+        framed = "framed".equalsIgnoreCase(element.getText().trim());
+      } else if ("port".equals(name)) {
+        port = Integer.parseInt(element.getText().trim());
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja;
+
+import java.util.Random;
+
+import javax.swing.JDesktopPane;
+
+import org.contikios.cooja.interfaces.Position;
+import org.contikios.cooja.motes.DisturberMoteType;
+
+/**
+ * Headless simulation setup shared by the benchmarks.
+ */
+public class BenchmarkSimulation {
+
+  /**
+   * @return New simulation without GUI, radio medium or motes
+   */
+  public static Simulation create() {
+    Cooja cooja = new Cooja(new JDesktopPane());
+    Simulation sim = new Simulation(cooja);
+    sim.setRandomSeed(123456);
+    return sim;
+  }
+
+  /**
+   * Adds application level motes uniformly spread over a square area.
+   * The simulation radio medium must be set before adding motes.
+   *
+   * @param sim Simulation
+   * @param count Number of motes
+   * @param side Side of square area
+   * @param seed Placement seed
+   * @return Added motes
+   */
+  public static Mote[] addMotes(Simulation sim, int count, double side, long seed) {
+    DisturberMoteType type = new DisturberMoteType("bench");
+    sim.addMoteType(type);
+
+    Random random = new Random(seed);
+    Mote[] motes = new Mote[count];
+    for (int i = 0; i < count; i++) {
+      Mote mote = type.generateMote(sim);
+      mote.getInterfaces().getMoteID().setMoteID(i + 1);
+      Position pos = mote.getInterfaces().getPosition();
+      pos.setCoordinates(random.nextDouble()*side, random.nextDouble()*side, 0);
+      sim.addMote(mote);
+      motes[i] = mote;
+    }
+    return motes;
+  }
+}
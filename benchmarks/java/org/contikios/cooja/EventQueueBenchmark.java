@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Event queue operations with a steady-state population of pending events,
+ * as in a simulation where every mote has one or a few scheduled wakeups.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventQueueBenchmark {
+
+  /* Number of pending events */
+  @Param({"10", "100", "1000"})
+  public int events;
+
+  private EventQueue queue;
+  private TimeEvent[] pending;
+  private Random random;
+  private long now;
+
+  private static class NopEvent extends TimeEvent {
+    public NopEvent() {
+      super(0);
+    }
+    public void execute(long t) {
+    }
+  }
+
+  @Setup
+  public void setup() {
+    queue = new EventQueue();
+    random = new Random(1);
+    pending = new TimeEvent[events];
+    now = 0;
+    for (int i = 0; i < events; i++) {
+      pending[i] = new NopEvent();
+      queue.addEvent(pending[i], nextTime());
+    }
+  }
+
+  private long nextTime() {
+    /* Wakeups spread over the next 10 ms */
+    return now + 1 + random.nextInt(10*1000);
+  }
+
+  /**
+   * Executes the next event and reschedules it, like a mote wakeup.
+   */
+  @Benchmark
+  public TimeEvent popAndReschedule() {
+    TimeEvent e = queue.popFirst();
+    now = e.getTime();
+    queue.addEvent(e, nextTime());
+    return e;
+  }
+
+  /**
+   * Reschedules an already scheduled event (removal followed by insertion).
+   */
+  @Benchmark
+  public TimeEvent removeAndReschedule() {
+    TimeEvent e = pending[random.nextInt(events)];
+    e.remove();
+    queue.addEvent(e, nextTime());
+    return e;
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.mote.memory;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.contikios.cooja.mote.memory.MemoryInterface.SegmentMonitor;
+import org.contikios.cooja.mote.memory.MemoryInterface.Symbol;
+
+/**
+ * Variable and segment access on a sectioned mote memory, laid out like
+ * a Cooja mote (data, bss and common sections).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryBenchmark {
+  private static final int SECTION_SIZE = 4096;
+  private static final long[] SECTION_ADDRS = { 0x10000, 0x20000, 0x30000 };
+  private static final String[] SECTION_NAMES = { "data", "bss", "common" };
+
+  /* Number of polled segment monitors */
+  @Param({"0", "10"})
+  public int monitors;
+
+  private SectionMoteMemory memory;
+  private VarMemory vars;
+  private String[] names;
+  private long[] addrs;
+  private int next = 0;
+  private int changes = 0;
+
+  @Setup
+  public void setup() {
+    MemoryLayout layout = MemoryLayout.getNative();
+    HashMap<String, Symbol> symbols = new HashMap<String, Symbol>();
+    int perSection = SECTION_SIZE/layout.intSize;
+    names = new String[SECTION_ADDRS.length*perSection];
+    addrs = new long[names.length];
+    for (int s = 0; s < SECTION_ADDRS.length; s++) {
+      for (int i = 0; i < perSection; i++) {
+        int idx = s*perSection + i;
+        names[idx] = SECTION_NAMES[s] + "_var" + i;
+        addrs[idx] = SECTION_ADDRS[s] + i*layout.intSize;
+        symbols.put(names[idx], new Symbol(Symbol.Type.VARIABLE, names[idx], SECTION_NAMES[s], addrs[idx], layout.intSize));
+      }
+    }
+
+    memory = new SectionMoteMemory(symbols);
+    for (int s = 0; s < SECTION_ADDRS.length; s++) {
+      memory.addMemorySection(SECTION_NAMES[s],
+          new ArrayMemory(SECTION_ADDRS[s], SECTION_SIZE, layout, symbols));
+    }
+    vars = new VarMemory(memory);
+
+    SegmentMonitor monitor = new SegmentMonitor() {
+      public void memoryChanged(MemoryInterface mem, EventType type, long address) {
+        changes++;
+      }
+    };
+    for (int i = 0; i < monitors; i++) {
+      memory.addSegmentMonitor(SegmentMonitor.EventType.WRITE, addrs[i*37 % addrs.length], 16, monitor);
+    }
+  }
+
+  private int nextIndex() {
+    next = (next + 7) % names.length;
+    return next;
+  }
+
+  @Benchmark
+  public int getIntValueOfVariable() {
+    return vars.getIntValueOf(names[nextIndex()]);
+  }
+
+  @Benchmark
+  public int setIntValueOfVariable() {
+    int idx = nextIndex();
+    vars.setIntValueOf(names[idx], idx);
+    return idx;
+  }
+
+  @Benchmark
+  public byte[] getMemorySegment() {
+    return memory.getMemorySegment(addrs[nextIndex()], 4);
+  }
+
+  /**
+   * Monitor polling, as done after every Cooja mote tick.
+   */
+  @Benchmark
+  public int pollForMemoryChanges() {
+    int idx = nextIndex();
+    memory.setMemorySegment(addrs[idx], new byte[] { (byte) idx, 0, 0, 0 });
+    memory.pollForMemoryChanges();
+    return changes;
+  }
+}
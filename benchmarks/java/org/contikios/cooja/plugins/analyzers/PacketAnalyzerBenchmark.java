@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.plugins.analyzers;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.contikios.cooja.plugins.RadioLogger;
+
+/**
+ * 6LoWPAN analyzer chain, as used by the radio logger, on an IEEE 802.15.4
+ * frame carrying an IPHC compressed ICMPv6 echo request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketAnalyzerBenchmark {
+
+  private static final byte[] FRAME = {
+    /* 802.15.4: data, PAN ID compression, long addresses */
+    0x41, (byte) 0xcc, 0x17, (byte) 0xcd, (byte) 0xab,
+    0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08,
+    0x11, 0x12, 0x13, 0x14, 0x15, 0x16, 0x17, 0x18,
+    /* IPHC: addresses elided, hop limit 64, next header inline */
+    0x7a, 0x33, 0x3a,
+    /* ICMPv6 echo request */
+    (byte) 0x80, 0x00, 0x12, 0x34, 0x00, 0x01, 0x00, 0x07,
+    0x48, 0x65, 0x6c, 0x6c, 0x6f, 0x20, 0x43, 0x6f, 0x6f, 0x6a, 0x61
+  };
+
+  private ArrayList<PacketAnalyzer> analyzers;
+
+  @Setup
+  public void setup() {
+    analyzers = new ArrayList<PacketAnalyzer>();
+    analyzers.add(new IEEE802154Analyzer(false));
+    analyzers.add(new FragHeadPacketAnalyzer());
+    analyzers.add(new IPHCPacketAnalyzer());
+    analyzers.add(new IPv6PacketAnalyzer());
+    analyzers.add(new ICMPv6Analyzer());
+  }
+
+  @Benchmark
+  public int analyze() {
+    PacketAnalyzer.Packet packet = new PacketAnalyzer.Packet(FRAME, PacketAnalyzer.MAC_LEVEL, 0);
+    StringBuilder brief = new StringBuilder();
+    StringBuilder verbose = new StringBuilder();
+    RadioLogger.analyzePacket(analyzers, packet, brief, verbose);
+    return brief.length() + verbose.length();
+  }
+}
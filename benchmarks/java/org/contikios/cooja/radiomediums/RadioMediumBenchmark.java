@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.radiomediums;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.contikios.cooja.BenchmarkSimulation;
+import org.contikios.cooja.Mote;
+import org.contikios.cooja.RadioConnection;
+import org.contikios.cooja.Simulation;
+import org.contikios.cooja.interfaces.Radio;
+
+/**
+ * Radio medium connection setup and edge analysis at varying network sizes
+ * and densities.
+ * <p>
+ * Motes are spread over a square area sized so that each mote on average
+ * has the given number of neighbors within transmission range.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RadioMediumBenchmark {
+  private static final double RANGE = 50;
+
+  @Param({"100", "500"})
+  public int motes;
+
+  /* Average number of neighbors per mote */
+  @Param({"5", "20"})
+  public int density;
+
+  private UDGM udgm;
+  private DirectedGraphMedium dgrm;
+  private Radio[] radios;
+  private int sender = 0;
+
+  @Setup
+  public void setup() {
+    /* Area where a circle of radius RANGE holds density motes on average */
+    double side = Math.sqrt(motes * Math.PI * RANGE * RANGE / density);
+
+    Simulation sim = BenchmarkSimulation.create();
+    udgm = new UDGM(sim);
+    /* No interference-only zone and no random failures: connection setup
+     * does not change receiver state, so every invocation does the same work */
+    udgm.TRANSMITTING_RANGE = RANGE;
+    udgm.INTERFERENCE_RANGE = RANGE;
+    udgm.SUCCESS_RATIO_TX = 1.0;
+    udgm.SUCCESS_RATIO_RX = 1.0;
+    sim.setRadioMedium(udgm);
+
+    Mote[] added = BenchmarkSimulation.addMotes(sim, motes, side, 1);
+    radios = new Radio[added.length];
+    for (int i = 0; i < added.length; i++) {
+      radios[i] = added[i].getInterfaces().getRadio();
+    }
+
+    /* DGRM with the same connectivity as UDGM */
+    dgrm = new DirectedGraphMedium(sim);
+    for (Radio src: radios) {
+      for (Radio dst: radios) {
+        if (src != dst && src.getPosition().getDistanceTo(dst.getPosition()) < RANGE) {
+          dgrm.addEdge(new DirectedGraphMedium.Edge(src, new DGRMDestinationRadio(dst)));
+        }
+      }
+    }
+  }
+
+  private Radio nextSender() {
+    sender = (sender + 1) % radios.length;
+    return radios[sender];
+  }
+
+  @Benchmark
+  public RadioConnection udgmCreateConnections() {
+    return udgm.createConnections(nextSender());
+  }
+
+  /**
+   * Connection setup after a topology change, e.g. a mote moved.
+   */
+  @Benchmark
+  public RadioConnection udgmCreateConnectionsAfterMove() {
+    udgm.setTxRange(RANGE);
+    return udgm.createConnections(nextSender());
+  }
+
+  @Benchmark
+  public RadioConnection dgrmCreateConnections() {
+    return dgrm.createConnections(nextSender());
+  }
+
+  @Benchmark
+  public DirectedGraphMedium dgrmAnalyzeEdges() {
+    dgrm.analyzeEdges();
+    return dgrm;
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Simulation component whose run-time state can be saved to, and later
+ * restored from, a simulation checkpoint.
+ *
+ * Unlike the XML config, the checkpoint state is the full dynamic state of
+ * the component, such as memory contents and pending wakeup times.
+ * Restoring is always done on a component created from the same
+ * simulation config, while the simulation is stopped.
+ *
+ * @see SimulationCheckpoint
+ */
+public interface Checkpointable {
+
+  /**
+   * Writes the current state of this component.
+   *
+   * @param out Checkpoint output
+   * @throws IOException On write error, or if current state cannot be saved
+   */
+  public void saveCheckpoint(DataOutputStream out) throws IOException;
+
+  /**
+   * Restores state previously written by {@link #saveCheckpoint(DataOutputStream)}.
+   *
+   * @param in Checkpoint input
+   * @throws IOException On read error, or if state does not match component
+   */
+  public void restoreCheckpoint(DataInputStream in) throws IOException;
+
+}
@@ -1323,6 +1323,21 @@ public class Cooja extends Observable {
       configureFrame(gui, false);
     }
 
+    if (config.getName().endsWith(SimulationCheckpoint.FILE_SUFFIX) ||
+        config.getName().endsWith(SimulationCheckpoint.FILE_SUFFIX + ".gz")) {
+      try {
+        Simulation newSim = SimulationCheckpoint.restore(gui, config, true);
+        if (newSim == null) {
+          return null;
+        }
+        gui.setSimulation(newSim, false);
+        return newSim;
+      } catch (Exception e) {
+        logger.fatal("Exception when restoring simulation checkpoint: ", e);
+        return null;
+      }
+    }
+
     if (vis) {
       gui.doLoadConfig(false, true, config, manualRandomSeed);
       return gui.getSimulation();
@@ -3124,6 +3139,35 @@ public class Cooja extends Observable {
     return null;
   }
 
+  private static void installProfiler(Simulation sim, final String reportFile, boolean jfr) {
+    final SimulationProfiler profiler = new SimulationProfiler();
+    if (jfr) {
+      profiler.setJFREnabled(true);
+    }
+    sim.setProfiler(profiler);
+    if (reportFile == null) {
+      return;
+    }
+
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      public void run() {
+        String report = profiler.getReport();
+        if (reportFile.equals("-")) {
+          System.out.print(report);
+          System.out.flush();
+          return;
+        }
+        try {
+          PrintStream out = new PrintStream(new FileOutputStream(reportFile), false, "UTF-8");
+          out.print(report);
+          out.close();
+        } catch (IOException e) {
+          System.err.println("Failed to write profile report " + reportFile + ": " + e.getMessage());
+        }
+      }
+    });
+  }
+
   /**
    * Load configurations and create a GUI.
    *
@@ -3133,6 +3177,8 @@ public class Cooja extends Observable {
   public static void main(String[] args) {
     String logConfigFile = null;
     Long randomSeed = null;
+    String profileReport = null;
+    boolean profileJFR = false;
     
     
     for (String element : args) {
@@ -3201,6 +3247,15 @@ public class Cooja extends Observable {
           logger.error("Failed to convert \"" + arg +"\" to an integer.");
         }
       }
+
+      if (element.equals("-profile")) {
+        profileReport = "-";
+      } else if (element.startsWith("-profile=")) {
+        profileReport = element.substring("-profile=".length());
+      }
+      if (element.equals("-profile-jfr")) {
+        profileJFR = true;
+      }
     }
 
     // Check if simulator should be quick-started
@@ -3243,6 +3298,11 @@ public class Cooja extends Observable {
       }
       Cooja gui = sim.getCooja();
 
+      /* Profile simulation loop, report at exit */
+      if (profileReport != null || profileJFR) {
+        installProfiler(sim, profileReport, profileJFR);
+      }
+
       /* Make sure at least one plugin controlling the simulation */
       boolean hasController = false;
       for (Plugin startedPlugin : gui.startedPlugins) {
@@ -4365,7 +4425,9 @@ public class Cooja extends Observable {
       PROGRESS_BAR.setStringPainted(true);
     }
     if (type != MessageListUI.NORMAL) {
-      PROGRESS_WARNINGS.add(msg);
+      synchronized (PROGRESS_WARNINGS) {
+        PROGRESS_WARNINGS.add(msg);
+      }
     }
   }
 
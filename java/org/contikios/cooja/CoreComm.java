@@ -31,10 +31,15 @@ package org.contikios.cooja;
 import java.io.*;
 import java.lang.reflect.*;
 import java.net.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Vector;
 
+import org.apache.log4j.Logger;
+
 import org.contikios.cooja.MoteType.MoteTypeCreationException;
 import org.contikios.cooja.contikimote.ContikiMoteType;
+import org.contikios.cooja.dialogs.FirmwareCache;
 import org.contikios.cooja.dialogs.MessageContainer;
 import org.contikios.cooja.dialogs.MessageList;
 
@@ -71,6 +76,7 @@ import org.contikios.cooja.dialogs.MessageList;
  * @author Fredrik Osterlind
  */
 public abstract class CoreComm {
+  private static Logger logger = Logger.getLogger(CoreComm.class);
 
   // Static pointers to current libraries
   private final static Vector<CoreComm> coreComms = new Vector<CoreComm>();
@@ -115,10 +121,30 @@ public abstract class CoreComm {
    *
    * @return Class name
    */
-  public static String getAvailableClassName() {
+  public static synchronized String getAvailableClassName() {
     return "Lib" + fileCounter;
   }
 
+  /**
+   * Get and reserve the class name of next free core communicator class.
+   * Used when several mote types are created concurrently.
+   *
+   * @return Class name
+   */
+  public static synchronized String reserveClassName() {
+    return "Lib" + fileCounter++;
+  }
+
+  /* Class names up to the given one are no longer available */
+  private static synchronized void classNameUsed(String className) {
+    if (className.startsWith("Lib")) {
+      try {
+        fileCounter = Math.max(fileCounter, Integer.parseInt(className.substring(3)) + 1);
+      } catch (NumberFormatException e) {
+      }
+    }
+  }
+
   /**
    * Generates new source file by reading default source template and replacing
    * the class name field.
@@ -213,6 +239,7 @@ public abstract class CoreComm {
         .getInputStream(MessageList.ERROR);
 
     File classFile = new File("org/contikios/cooja/corecomm/" + className + ".class");
+    File sourceFile = new File("org/contikios/cooja/corecomm/" + className + ".java");
 
     try {
       int b;
@@ -224,6 +251,21 @@ public abstract class CoreComm {
           + "/tools/cooja/dist/cooja.jar",
           "org/contikios/cooja/corecomm/" + className + ".java" };
 
+      /* Reuse previously compiled class if source is unchanged */
+      FirmwareCache cache = FirmwareCache.getDefault();
+      String cacheKey = null;
+      if (cache != null) {
+        try {
+          cacheKey = FirmwareCache.createKey(new File[] { sourceFile }, cmd[0],
+              new String[] { Cooja.getExternalToolsSetting("PATH_JAVAC") });
+        } catch (IOException e) {
+          logger.warn("Could not create class cache key: " + e.getMessage());
+        }
+      }
+      if (cacheKey != null && cache.restore(cacheKey, new File[] { classFile })) {
+        return;
+      }
+
       Process p = Runtime.getRuntime().exec(cmd, null, null);
       InputStream outputStream = p.getInputStream();
       InputStream errorStream = p.getErrorStream();
@@ -236,6 +278,9 @@ public abstract class CoreComm {
       p.waitFor();
 
       if (classFile.exists()) {
+        if (cacheKey != null) {
+          cache.store(cacheKey, new File[] { classFile });
+        }
         return;
       }
 
@@ -293,6 +338,51 @@ public abstract class CoreComm {
     return loadedClass;
   }
 
+  /**
+   * Loads Java class in a class loader of its own, never delegating to the
+   * parent class loader. Native methods of the class are then bound to the
+   * library loaded by that class only.
+   *
+   * @param className Class name
+   * @return Loaded class
+   * @throws MoteTypeCreationException If error occurs
+   */
+  private static Class<?> loadIsolatedClassFile(String className)
+      throws MoteTypeCreationException {
+    final String name = "org.contikios.cooja.corecomm." + className;
+    try {
+      ClassLoader isolatedClassLoader = new URLClassLoader(
+          new URL[] { new File(".").toURI().toURL() },
+          CoreComm.class.getClassLoader()) {
+        @Override
+        protected Class<?> loadClass(String n, boolean resolve) throws ClassNotFoundException {
+          if (!n.equals(name)) {
+            return super.loadClass(n, resolve);
+          }
+          synchronized (getClassLoadingLock(n)) {
+            Class<?> c = findLoadedClass(n);
+            if (c == null) {
+              c = findClass(n);
+            }
+            if (resolve) {
+              resolveClass(c);
+            }
+            return c;
+          }
+        }
+      };
+      return isolatedClassLoader.loadClass(name);
+    } catch (MalformedURLException e) {
+      throw (MoteTypeCreationException) new MoteTypeCreationException(
+          "Could not load corecomm class file: " + className + ".class")
+          .initCause(e);
+    } catch (ClassNotFoundException e) {
+      throw (MoteTypeCreationException) new MoteTypeCreationException(
+          "Could not load corecomm class file: " + className + ".class")
+          .initCause(e);
+    }
+  }
+
   /**
    * Create and return an instance of the core communicator identified by
    * className. This core communicator will load the native library libFile.
@@ -309,17 +399,35 @@ public abstract class CoreComm {
 
     compileSourceFile(className);
 
-    Class newCoreCommClass = loadClassFile(className);
+    CoreComm coreComm = loadCoreComm(className, libFile);
+    classNameUsed(className);
+    return coreComm;
+  }
+
+  /**
+   * Create and return an instance of an already compiled core communicator.
+   * This core communicator will load the native library libFile.
+   *
+   * @param className
+   *          Class name of core communicator, already compiled
+   * @param libFile
+   *          Native library file
+   * @return Core Communicator
+   * @throws MoteTypeCreationException
+   *          If class or library could not be loaded
+   */
+  public static CoreComm loadCoreComm(String className, File libFile)
+      throws MoteTypeCreationException {
+    Class<?> newCoreCommClass = loadClassFile(className);
 
     try {
-      Constructor constr = newCoreCommClass
-          .getConstructor(new Class[] { File.class });
+      Constructor<?> constr = newCoreCommClass
+          .getConstructor(File.class);
       CoreComm newCoreComm = (CoreComm) constr
-          .newInstance(new Object[] { libFile });
+          .newInstance(libFile);
 
       coreComms.add(newCoreComm);
       coreCommFiles.add(libFile);
-      fileCounter++;
 
       return newCoreComm;
     } catch (Exception e) {
@@ -328,6 +436,49 @@ public abstract class CoreComm {
     }
   }
 
+  /**
+   * Loads a separate copy of an already loaded library, with its own global
+   * variables. The copy is loaded through a new class loader, so that a new
+   * instance of the core communicator class can bind to it.
+   *
+   * @param className
+   *          Class name of core communicator, already compiled
+   * @param libFile
+   *          Native library file
+   * @return Core Communicator
+   * @throws MoteTypeCreationException
+   *          If library copy could not be loaded
+   */
+  public static CoreComm createIsolatedCoreComm(String className, File libFile)
+      throws MoteTypeCreationException {
+    File copy;
+    try {
+      /* Keep copy next to original: temporary directories may not allow loading libraries */
+      copy = File.createTempFile(className + "-", "-" + libFile.getName(), libFile.getAbsoluteFile().getParentFile());
+      Files.copy(libFile.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw (MoteTypeCreationException) new MoteTypeCreationException(
+          "Could not copy library: " + libFile).initCause(e);
+    }
+
+    /* Not registered with the other core communicators: the copy and its
+     * class loader are released together with the returned instance */
+    try {
+      Class<?> newCoreCommClass = loadIsolatedClassFile(className);
+      Constructor<?> constr = newCoreCommClass
+          .getConstructor(File.class);
+      return (CoreComm) constr.newInstance(copy);
+    } catch (Exception e) {
+      throw (MoteTypeCreationException) new MoteTypeCreationException(
+          "Error when creating isolated corecomm instance: " + className).initCause(e);
+    } finally {
+      /* Loaded libraries remain loaded after their file is deleted */
+      if (!copy.delete()) {
+        copy.deleteOnExit();
+      }
+    }
+  }
+
   /**
    * Ticks a mote once. This should not be used directly, but instead via
    * {@link ContikiMoteType#tick()}.
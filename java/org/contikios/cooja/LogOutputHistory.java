@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import org.contikios.cooja.SimEventCentral.LogOutputEvent;
+
+/**
+ * Compact log output history.
+ *
+ * Log outputs are kept in a ring buffer of primitive columns: time,
+ * mote index and message index. Messages are stored once as UTF-8 in a
+ * shared arena, and repeated messages share the same bytes.
+ * The history is read via cursors, that copy small batches of entries.
+ *
+ * @see SimEventCentral#getLogOutputCursor()
+ */
+public class LogOutputHistory {
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int CURSOR_BATCH = 256;
+  private static final int MIN_COMPACT_SIZE = 64*1024;
+
+  /* Entries */
+  private long[] times = new long[INITIAL_CAPACITY];
+  private int[] moteIndices = new int[INITIAL_CAPACITY];
+  private int[] messageIndices = new int[INITIAL_CAPACITY];
+  private int head = 0;
+  private int count = 0;
+  private long firstSeq = 0;
+
+  /* Motes */
+  private final IdentityHashMap<Mote, Integer> moteMap = new IdentityHashMap<Mote, Integer>();
+  private Mote[] motes = new Mote[16];
+  private int[] moteRefs = new int[16];
+  private int[] freeMotes = new int[16];
+  private int freeMoteCount = 0;
+  private int moteCount = 0;
+
+  /* Messages */
+  private byte[] arena = new byte[4096];
+  private int arenaSize = 0;
+  private int arenaUnused = 0;
+  private int[] msgOffset = new int[64];
+  private int[] msgLength = new int[64];
+  private int[] msgHash = new int[64];
+  private int[] msgRefs = new int[64];
+  private int[] msgNext = new int[64];
+  private int[] msgBuckets = newBuckets(64);
+  private int[] freeMessages = new int[64];
+  private int freeMessageCount = 0;
+  private int messageCount = 0;
+
+  /* Encoding buffer */
+  private byte[] encoded = new byte[256];
+
+  /**
+   * @return Number of stored log outputs
+   */
+  public synchronized int size() {
+    return count;
+  }
+
+  /**
+   * @return Number of distinct stored messages
+   */
+  public synchronized int getMessageCount() {
+    return messageCount - freeMessageCount;
+  }
+
+  /**
+   * Appends log output.
+   *
+   * @param mote Mote
+   * @param time Simulation time
+   * @param msg Message
+   */
+  public synchronized void add(Mote mote, long time, String msg) {
+    if (count == times.length) {
+      grow();
+    }
+    int pos = (head + count) % times.length;
+    times[pos] = time;
+    moteIndices[pos] = refMote(mote);
+    messageIndices[pos] = refMessage(msg);
+    count++;
+  }
+
+  /**
+   * Removes the oldest log output.
+   *
+   * @return Removed log output, or null if empty
+   */
+  public synchronized LogOutputEvent removeFirst() {
+    if (count == 0) {
+      return null;
+    }
+    LogOutputEvent ev = new LogOutputEvent(
+        motes[moteIndices[head]], times[head], decode(messageIndices[head]));
+    unrefMote(moteIndices[head]);
+    unrefMessage(messageIndices[head]);
+    head = (head + 1) % times.length;
+    count--;
+    firstSeq++;
+    return ev;
+  }
+
+  /**
+   * Removes all log outputs.
+   */
+  public synchronized void clear() {
+    firstSeq += count;
+    head = 0;
+    count = 0;
+
+    moteMap.clear();
+    Arrays.fill(motes, null);
+    moteCount = 0;
+    freeMoteCount = 0;
+
+    arenaSize = 0;
+    arenaUnused = 0;
+    Arrays.fill(msgBuckets, -1);
+    messageCount = 0;
+    freeMessageCount = 0;
+  }
+
+  /**
+   * Creates a cursor positioned before the oldest stored log output.
+   * Log outputs added after the cursor was created are also visited, and
+   * log outputs removed before being visited are skipped.
+   *
+   * @return Cursor
+   */
+  public synchronized Cursor cursor() {
+    return new Cursor(firstSeq);
+  }
+
+  private void grow() {
+    int capacity = times.length*2;
+    long[] newTimes = new long[capacity];
+    int[] newMotes = new int[capacity];
+    int[] newMessages = new int[capacity];
+    for (int i = 0; i < count; i++) {
+      int pos = (head + i) % times.length;
+      newTimes[i] = times[pos];
+      newMotes[i] = moteIndices[pos];
+      newMessages[i] = messageIndices[pos];
+    }
+    times = newTimes;
+    moteIndices = newMotes;
+    messageIndices = newMessages;
+    head = 0;
+  }
+
+  private int refMote(Mote mote) {
+    Integer index = moteMap.get(mote);
+    if (index != null) {
+      moteRefs[index]++;
+      return index;
+    }
+
+    int i;
+    if (freeMoteCount > 0) {
+      i = freeMotes[--freeMoteCount];
+    } else {
+      if (moteCount == motes.length) {
+        motes = Arrays.copyOf(motes, moteCount*2);
+        moteRefs = Arrays.copyOf(moteRefs, moteCount*2);
+        freeMotes = Arrays.copyOf(freeMotes, moteCount*2);
+      }
+      i = moteCount++;
+    }
+    motes[i] = mote;
+    moteRefs[i] = 1;
+    moteMap.put(mote, i);
+    return i;
+  }
+
+  private void unrefMote(int i) {
+    if (--moteRefs[i] > 0) {
+      return;
+    }
+    /* Forget mote */
+    moteMap.remove(motes[i]);
+    motes[i] = null;
+    freeMotes[freeMoteCount++] = i;
+  }
+
+  private static int[] newBuckets(int size) {
+    int[] buckets = new int[size];
+    Arrays.fill(buckets, -1);
+    return buckets;
+  }
+
+  private int encode(String msg) {
+    int len = msg.length();
+    if (encoded.length < len) {
+      encoded = new byte[Math.max(len, encoded.length*2)];
+    }
+    for (int i = 0; i < len; i++) {
+      char c = msg.charAt(i);
+      if (c >= 0x80) {
+        /* Not ASCII */
+        byte[] bytes = msg.getBytes(StandardCharsets.UTF_8);
+        if (encoded.length < bytes.length) {
+          encoded = new byte[bytes.length];
+        }
+        System.arraycopy(bytes, 0, encoded, 0, bytes.length);
+        return bytes.length;
+      }
+      encoded[i] = (byte) c;
+    }
+    return len;
+  }
+
+  private String decode(int i) {
+    return new String(arena, msgOffset[i], msgLength[i], StandardCharsets.UTF_8);
+  }
+
+  private int refMessage(String msg) {
+    int len = encode(msg);
+    int hash = 1;
+    for (int i = 0; i < len; i++) {
+      hash = 31*hash + encoded[i];
+    }
+
+    /* Existing message? */
+    int bucket = hash & (msgBuckets.length - 1);
+    for (int i = msgBuckets[bucket]; i >= 0; i = msgNext[i]) {
+      if (msgHash[i] == hash && msgLength[i] == len && equalsEncoded(msgOffset[i], len)) {
+        msgRefs[i]++;
+        return i;
+      }
+    }
+
+    /* Store new message */
+    if (arenaSize + len > arena.length) {
+      arena = Arrays.copyOf(arena, Math.max(arenaSize + len, arena.length*2));
+    }
+    System.arraycopy(encoded, 0, arena, arenaSize, len);
+
+    int i;
+    if (freeMessageCount > 0) {
+      i = freeMessages[--freeMessageCount];
+    } else {
+      if (messageCount == msgOffset.length) {
+        growMessages();
+        bucket = hash & (msgBuckets.length - 1);
+      }
+      i = messageCount++;
+    }
+    msgOffset[i] = arenaSize;
+    msgLength[i] = len;
+    msgHash[i] = hash;
+    msgRefs[i] = 1;
+    msgNext[i] = msgBuckets[bucket];
+    msgBuckets[bucket] = i;
+    arenaSize += len;
+    return i;
+  }
+
+  private boolean equalsEncoded(int offset, int len) {
+    for (int i = 0; i < len; i++) {
+      if (arena[offset + i] != encoded[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void growMessages() {
+    int size = msgOffset.length*2;
+    msgOffset = Arrays.copyOf(msgOffset, size);
+    msgLength = Arrays.copyOf(msgLength, size);
+    msgHash = Arrays.copyOf(msgHash, size);
+    msgRefs = Arrays.copyOf(msgRefs, size);
+    msgNext = Arrays.copyOf(msgNext, size);
+    freeMessages = Arrays.copyOf(freeMessages, size);
+
+    /* Rehash */
+    msgBuckets = newBuckets(size);
+    for (int i = 0; i < messageCount; i++) {
+      if (msgRefs[i] <= 0) {
+        continue;
+      }
+      int bucket = msgHash[i] & (size - 1);
+      msgNext[i] = msgBuckets[bucket];
+      msgBuckets[bucket] = i;
+    }
+  }
+
+  private void unrefMessage(int i) {
+    if (--msgRefs[i] > 0) {
+      return;
+    }
+
+    /* Unlink from hash bucket */
+    int bucket = msgHash[i] & (msgBuckets.length - 1);
+    if (msgBuckets[bucket] == i) {
+      msgBuckets[bucket] = msgNext[i];
+    } else {
+      for (int j = msgBuckets[bucket]; j >= 0; j = msgNext[j]) {
+        if (msgNext[j] == i) {
+          msgNext[j] = msgNext[i];
+          break;
+        }
+      }
+    }
+    freeMessages[freeMessageCount++] = i;
+    arenaUnused += msgLength[i];
+
+    if (arenaUnused > MIN_COMPACT_SIZE && arenaUnused > arenaSize/2) {
+      compactArena();
+    }
+  }
+
+  private void compactArena() {
+    byte[] compacted = new byte[Math.max(4096, 2*(arenaSize - arenaUnused))];
+    int size = 0;
+    for (int i = 0; i < messageCount; i++) {
+      if (msgRefs[i] <= 0) {
+        continue;
+      }
+      System.arraycopy(arena, msgOffset[i], compacted, size, msgLength[i]);
+      msgOffset[i] = size;
+      size += msgLength[i];
+    }
+    arena = compacted;
+    arenaSize = size;
+    arenaUnused = 0;
+  }
+
+  /**
+   * Log output history cursor. Not thread-safe.
+   */
+  public class Cursor {
+    private long nextSeq;
+
+    private final long[] batchTimes = new long[CURSOR_BATCH];
+    private final Mote[] batchMotes = new Mote[CURSOR_BATCH];
+    private final String[] batchMessages = new String[CURSOR_BATCH];
+    private int batchSize = 0;
+    private int batchPos = -1;
+
+    private Cursor(long seq) {
+      nextSeq = seq;
+    }
+
+    /**
+     * Moves to the next log output.
+     *
+     * @return True if there was a next log output
+     */
+    public boolean next() {
+      if (batchPos + 1 < batchSize) {
+        batchPos++;
+        return true;
+      }
+      if (!fetch()) {
+        return false;
+      }
+      batchPos = 0;
+      return true;
+    }
+
+    private boolean fetch() {
+      synchronized (LogOutputHistory.this) {
+        if (nextSeq < firstSeq) {
+          /* Skip removed */
+          nextSeq = firstSeq;
+        }
+        int offset = (int) (nextSeq - firstSeq);
+        int n = Math.min(CURSOR_BATCH, count - offset);
+        if (n <= 0) {
+          return false;
+        }
+        for (int i = 0; i < n; i++) {
+          int pos = (head + offset + i) % times.length;
+          batchTimes[i] = times[pos];
+          batchMotes[i] = motes[moteIndices[pos]];
+          batchMessages[i] = decode(messageIndices[pos]);
+        }
+        if (n < batchSize) {
+          Arrays.fill(batchMotes, n, batchSize, null);
+          Arrays.fill(batchMessages, n, batchSize, null);
+        }
+        batchSize = n;
+        nextSeq += n;
+        return true;
+      }
+    }
+
+    /**
+     * @return Simulation time of current log output
+     */
+    public long getTime() {
+      return batchTimes[batchPos];
+    }
+
+    /**
+     * @return Mote of current log output
+     */
+    public Mote getMote() {
+      return batchMotes[batchPos];
+    }
+
+    /**
+     * @return Message of current log output
+     */
+    public String getMessage() {
+      return batchMessages[batchPos];
+    }
+
+    /**
+     * @return Current log output as event
+     */
+    public LogOutputEvent getEvent() {
+      return new LogOutputEvent(getMote(), getTime(), getMessage());
+    }
+  }
+}
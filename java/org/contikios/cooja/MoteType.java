@@ -217,6 +217,14 @@ public interface MoteType {
       Simulation simulation, Collection<Element> configXML, boolean visAvailable)
   throws MoteTypeCreationException;
 
+  /**
+   * Called when mote type is removed from simulation, after its motes.
+   * Releases resources such as loaded libraries or started processes.
+   * Does nothing by default.
+   */
+  public default void removed() {
+  }
+
   public static class MoteTypeCreationException extends Exception {
     private static final long serialVersionUID = 7625450894307392953L;
 
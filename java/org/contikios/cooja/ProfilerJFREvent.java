@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event emitted by {@link SimulationProfiler} for every profiled section.
+ * Only loaded when JFR events have been enabled in the profiler.
+ */
+@Name("org.contikios.cooja.SimulationSection")
+@Label("Simulation Section")
+@Category("Cooja")
+@Description("Execution of a simulation event, radio medium callback or simulation thread invoke")
+class ProfilerJFREvent extends Event {
+  @Label("Category")
+  String category;
+
+  @Label("Name")
+  String name;
+
+  @Label("Mote ID")
+  int moteID;
+
+  @Label("Exclusive Time")
+  @Timespan(Timespan.NANOSECONDS)
+  long exclusive;
+
+  /**
+   * @return Started event, or null if event is not recorded
+   */
+  static Object start() {
+    ProfilerJFREvent event = new ProfilerJFREvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  static void finish(Object started, SimulationProfiler.Category category, String name, int moteID, long exclusive) {
+    ProfilerJFREvent event = (ProfilerJFREvent) started;
+    event.end();
+    if (!event.shouldCommit()) {
+      return;
+    }
+    event.category = category.toString();
+    event.name = name;
+    event.moteID = moteID;
+    event.exclusive = exclusive;
+    event.commit();
+  }
+}
@@ -30,6 +30,9 @@
 
 package org.contikios.cooja;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Random;
 
 /**
@@ -40,9 +43,20 @@ import java.util.Random;
  * generator concurrency is introduced, thus it can not be guaranteed
  * that simulations are reproducible.
  *
+ * The generator state is kept here instead of in java.util.Random,
+ * using the same algorithm, so that it can be saved in checkpoints.
+ *
  */
-public class SafeRandom extends Random {
-  
+public class SafeRandom extends Random implements Checkpointable {
+  private static final long MULTIPLIER = 0x5DEECE66DL;
+  private static final long ADDEND = 0xBL;
+  private static final long MASK = (1L << 48) - 1;
+
+  /* Not initialized here: set by setSeed() from the super-constructor */
+  private long state;
+  private double nextNextGaussian;
+  private boolean haveNextNextGaussian;
+
   Simulation sim = null;
   Thread initThread = null;
   Boolean simStarted = false;
@@ -85,7 +99,8 @@ public class SafeRandom extends Random {
   
   synchronized public void setSeed(long seed) {
     assertSimThread();
-    super.setSeed(seed);
+    state = (seed ^ MULTIPLIER) & MASK;
+    haveNextNextGaussian = false;
   }
   
   /*
@@ -94,7 +109,42 @@ public class SafeRandom extends Random {
    */
   protected int next(int bits) {
     assertSimThread();
-    return super.next(bits);
+    state = (state * MULTIPLIER + ADDEND) & MASK;
+    return (int)(state >>> (48 - bits));
+  }
+
+  /*
+   * Same polar method as java.util.Random, which keeps its cached
+   * value private.
+   * @see java.util.Random#nextGaussian()
+   */
+  synchronized public double nextGaussian() {
+    if (haveNextNextGaussian) {
+      haveNextNextGaussian = false;
+      return nextNextGaussian;
+    }
+    double v1, v2, s;
+    do {
+      v1 = 2 * nextDouble() - 1;
+      v2 = 2 * nextDouble() - 1;
+      s = v1 * v1 + v2 * v2;
+    } while (s >= 1 || s == 0);
+    double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s)/s);
+    nextNextGaussian = v2 * multiplier;
+    haveNextNextGaussian = true;
+    return v1 * multiplier;
+  }
+
+  synchronized public void saveCheckpoint(DataOutputStream out) throws IOException {
+    out.writeLong(state);
+    out.writeBoolean(haveNextNextGaussian);
+    out.writeDouble(nextNextGaussian);
+  }
+
+  synchronized public void restoreCheckpoint(DataInputStream in) throws IOException {
+    state = in.readLong();
+    haveNextNextGaussian = in.readBoolean();
+    nextNextGaussian = in.readDouble();
   }
   
 }
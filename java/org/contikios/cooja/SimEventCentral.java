@@ -29,7 +29,6 @@
 package org.contikios.cooja;
 
 import java.io.File;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Observable;
@@ -64,14 +63,14 @@ public class SimEventCentral {
     logOutputBufferSize = Integer.parseInt(Cooja.getExternalToolsSetting("BUFFERSIZE_LOGOUTPUT", "" + 40000));
 
     
-    moteObservations = new ArrayList<MoteObservation>();
+    moteObservations = new ArrayList<LogObservation>();
 
     /* Mote count: notifications */
     moteCountListeners = new MoteCountListener[0];
 
     /* Log output: notifications and history */
     logOutputListeners = new LogOutputListener[0];
-    logOutputEvents = new ArrayDeque<LogOutputEvent>();
+    logOutputHistory = new LogOutputHistory();
   }
   
 
@@ -100,29 +99,27 @@ public class SimEventCentral {
       return "" + ID;
     }
   }
-  /** Help class for maintaining mote-specific observations */
-  private static class MoteObservation {
+  /** Help class for maintaining mote-specific log observations */
+  private class LogObservation implements Log.LogMessageListener {
     private final Mote mote;
-    private final Observable observable;
-    private final Observer observer;
-    public MoteObservation(Mote mote, Observable observable, Observer observer) {
+    private final Log log;
+    public LogObservation(Mote mote, Log log) {
       this.mote = mote;
-      this.observable = observable;
-      this.observer = observer;
+      this.log = log;
 
-      observable.addObserver(observer);
+      log.addLogMessageListener(this);
     }
     public Mote getMote() {
       return mote;
     }
-    public Observer getObserver() {
-      return observer;
-    }
     public void disconnect() {
-      observable.deleteObserver(observer);
+      log.removeLogMessageListener(this);
+    }
+    public void newLogMessage(Log log, String msg) {
+      newLogOutput(mote, msg);
     }
   }
-  private ArrayList<MoteObservation> moteObservations;
+  private ArrayList<LogObservation> moteObservations;
 
   
   /* ADDED/REMOVED MOTES */
@@ -197,47 +194,39 @@ public class SimEventCentral {
     }
   }
   private int logOutputBufferSize;
-  private ArrayDeque<LogOutputEvent> logOutputEvents;
+  private LogOutputHistory logOutputHistory;
   public interface LogOutputListener extends MoteCountListener {
     public void removedLogOutput(LogOutputEvent ev);
     public void newLogOutput(LogOutputEvent ev);
   }
   private LogOutputListener[] logOutputListeners;
-  private Observer logOutputObserver = new Observer() {
-    public void update(Observable obs, Object obj) {
-      Mote mote = (Mote) obj;
-      String msg = ((Log) obs).getLastLogMessage();
-      if (msg == null) {
-        return;
-      }
-      if (msg.length() > 0 && msg.charAt(msg.length() - 1) == '\n') {
-        msg = msg.substring(0, msg.length() - 1);
-      }
-
-      /* We may have to remove some events now */
-      while (logOutputEvents.size() > logOutputBufferSize-1) {
-        LogOutputEvent removed;
-        synchronized (logOutputEvents) {
-          removed = logOutputEvents.pollFirst();
-        }
-        if (removed == null) {
-          break;
-        }
-        for (LogOutputListener l: logOutputListeners) {
-          l.removedLogOutput(removed);
-        }
-      }
+  private void newLogOutput(Mote mote, String msg) {
+    if (msg == null) {
+      return;
+    }
+    if (msg.length() > 0 && msg.charAt(msg.length() - 1) == '\n') {
+      msg = msg.substring(0, msg.length() - 1);
+    }
 
-      /* Store log output, and notify listeners */
-      LogOutputEvent ev = new LogOutputEvent(mote, simulation.getSimulationTime(), msg);
-      synchronized (logOutputEvents) {
-        logOutputEvents.add(ev);
+    /* We may have to remove some events now */
+    while (logOutputHistory.size() > logOutputBufferSize-1) {
+      LogOutputEvent removed = logOutputHistory.removeFirst();
+      if (removed == null) {
+        break;
       }
       for (LogOutputListener l: logOutputListeners) {
-        l.newLogOutput(ev);
+        l.removedLogOutput(removed);
       }
     }
-  };
+
+    /* Store log output, and notify listeners */
+    long time = simulation.getSimulationTime();
+    logOutputHistory.add(mote, time, msg);
+    LogOutputEvent ev = new LogOutputEvent(mote, time, msg);
+    for (LogOutputListener l: logOutputListeners) {
+      l.newLogOutput(ev);
+    }
+  }
   public void addLogOutputListener(LogOutputListener listener) {
     if (logOutputListeners.length == 0) {
       /* Start observing all log interfaces */
@@ -245,7 +234,7 @@ public class SimEventCentral {
       for (Mote m: motes) {
         for (MoteInterface mi: m.getInterfaces().getInterfaces()) {
           if (mi instanceof Log) {
-            moteObservations.add(new MoteObservation(m, mi, logOutputObserver));
+            moteObservations.add(new LogObservation(m, (Log) mi));
           }
         }
       }
@@ -260,23 +249,36 @@ public class SimEventCentral {
 
     if (logOutputListeners.length == 0) {
       /* Stop observing all log interfaces */
-      MoteObservation[] observations = moteObservations.toArray(new MoteObservation[0]);
-      for (MoteObservation o: observations) {
-        if (o.getObserver() == logOutputObserver) {
-          o.disconnect();
-          moteObservations.remove(o);
-        }
+      for (LogObservation o: moteObservations) {
+        o.disconnect();
       }
+      moteObservations.clear();
 
       /* Clear logs (TODO config) */
-      logOutputEvents.clear();
+      logOutputHistory.clear();
     }
   }
 
+  /**
+   * Creates a new log output event for every stored log output.
+   * Prefer {@link #getLogOutputCursor()} for large histories.
+   *
+   * @return Log output history
+   */
   public LogOutputEvent[] getLogOutputHistory() {
-    synchronized (logOutputEvents) {
-      return logOutputEvents.toArray(new LogOutputEvent[0]);
+    ArrayList<LogOutputEvent> history = new ArrayList<LogOutputEvent>();
+    LogOutputHistory.Cursor cursor = logOutputHistory.cursor();
+    while (cursor.next()) {
+      history.add(cursor.getEvent());
     }
+    return history.toArray(new LogOutputEvent[history.size()]);
+  }
+
+  /**
+   * @return Cursor positioned before the oldest stored log output
+   */
+  public LogOutputHistory.Cursor getLogOutputCursor() {
+    return logOutputHistory.cursor();
   }
   public int getLogOutputBufferSize() {
     return logOutputBufferSize;
@@ -285,8 +287,8 @@ public class SimEventCentral {
     logOutputBufferSize = size;
     
     /* We may have to remove some events now */
-    while (logOutputEvents.size() > logOutputBufferSize) {
-      LogOutputEvent removed = logOutputEvents.pollFirst();
+    while (logOutputHistory.size() > logOutputBufferSize) {
+      LogOutputEvent removed = logOutputHistory.removeFirst();
       if (removed == null) {
         break;
       }
@@ -296,14 +298,7 @@ public class SimEventCentral {
     }
   }
   public int getLogOutputObservationsCount() {
-    int count=0;
-    MoteObservation[] observations = moteObservations.toArray(new MoteObservation[0]);
-    for (MoteObservation o: observations) {
-      if (o.getObserver() == logOutputObserver) {
-        count++;
-      }
-    }
-    return count;
+    return moteObservations.size();
   }
 
   
@@ -314,7 +309,7 @@ public class SimEventCentral {
        * (Supports multiple log interfaces per mote) */
       for (MoteInterface mi: mote.getInterfaces().getInterfaces()) {
         if (mi instanceof Log) {
-          moteObservations.add(new MoteObservation(mote, mi, logOutputObserver));
+          moteObservations.add(new LogObservation(mote, (Log) mi));
         }
       }
     }
@@ -323,8 +318,8 @@ public class SimEventCentral {
   }
   private void moteWasRemoved(Mote mote) {
     /* Disconnect and remove mote observations */
-    MoteObservation[] observations = moteObservations.toArray(new MoteObservation[0]);
-    for (MoteObservation o: observations) {
+    LogObservation[] observations = moteObservations.toArray(new LogObservation[0]);
+    for (LogObservation o: observations) {
       if (o.getMote() == mote) {
         o.disconnect();
         moteObservations.remove(o);
@@ -339,7 +334,7 @@ public class SimEventCentral {
     "\nMote count listeners: " + moteCountListeners.length +
     "\n" +
     "\nLog output listeners: " + logOutputListeners.length +
-    "\nLog output history: " + logOutputEvents.size()
+    "\nLog output history: " + logOutputHistory.size()
     ;
   }
   
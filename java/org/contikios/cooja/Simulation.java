@@ -28,19 +28,31 @@
 
 package org.contikios.cooja;
 
+import java.io.File;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Random;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JOptionPane;
 
 import org.apache.log4j.Logger;
 import org.jdom.Element;
 
+import org.contikios.cooja.contikimote.ContikiMoteType;
 import org.contikios.cooja.dialogs.CreateSimDialog;
 
 /**
@@ -108,6 +120,9 @@ public class Simulation extends Observable implements Runnable {
   /* Event queue */
   private EventQueue eventQueue = new EventQueue();
 
+  /* Execution profiler, or null */
+  private volatile SimulationProfiler profiler = null;
+
   /* Poll requests */
   private boolean hasPollRequests = false;
   private ArrayDeque<Runnable> pollRequests = new ArrayDeque<Runnable>();
@@ -136,6 +151,25 @@ public class Simulation extends Observable implements Runnable {
     return r;
   }
 
+  /**
+   * Installs an execution profiler in the simulation loop.
+   * May be called from any thread. A running simulation starts using the
+   * profiler with its next event.
+   *
+   * @see SimulationProfiler
+   * @param profiler Profiler, or null to disable profiling
+   */
+  public void setProfiler(SimulationProfiler profiler) {
+    this.profiler = profiler;
+  }
+
+  /**
+   * @return Execution profiler, or null
+   */
+  public SimulationProfiler getProfiler() {
+    return profiler;
+  }
+
   /**
    * Add millisecond observer.
    * This observer is notified once every simulated millisecond.
@@ -195,6 +229,22 @@ public class Simulation extends Observable implements Runnable {
     eventQueue.addEvent(e, time);
   }
 
+  /**
+   * Returns the time of the first scheduled event. No other simulation
+   * event executes before this time, so a mote may run ahead until then
+   * without missing input.
+   * Should only be called from the simulation thread.
+   *
+   * @return Time of next event, or -1 if no events are scheduled
+   */
+  public long getNextEventTime() {
+    TimeEvent first = eventQueue.peekFirst();
+    if (first == null) {
+      return -1;
+    }
+    return first.getTime();
+  }
+
   private TimeEvent delayEvent = new TimeEvent(0) {
     public void execute(long t) {
       if (speedLimitNone) {
@@ -263,9 +313,15 @@ public class Simulation extends Observable implements Runnable {
     try {
       while (isRunning) {
 
+        SimulationProfiler prof = profiler;
+
         /* Handle all poll requests */
         while (hasPollRequests) {
-          popSimulationInvokes().run();
+          if (prof == null) {
+            popSimulationInvokes().run();
+          } else {
+            prof.runInvoke(popSimulationInvokes());
+          }
         }
 
         /* Handle one simulation event, and update simulation time */
@@ -278,7 +334,11 @@ public class Simulation extends Observable implements Runnable {
         }
         currentSimulationTime = nextEvent.time;
         /*logger.info("Executing event #" + EVENT_COUNTER++ + " @ " + currentSimulationTime + ": " + nextEvent);*/
-        nextEvent.execute(currentSimulationTime);
+        if (prof == null) {
+          nextEvent.execute(currentSimulationTime);
+        } else {
+          prof.executeEvent(nextEvent, currentSimulationTime);
+        }
 
         if (stopSimulation) {
           isRunning = false;
@@ -555,6 +615,217 @@ public class Simulation extends Observable implements Runnable {
       quick = q;
   }
   
+  /**
+   * Creates mote type from its simulation config.
+   *
+   * @param element Mote type config
+   * @param visAvailable True if simulation is allowed to show visualizers
+   * @param quick True if quick setup
+   * @param coreCommClassName Reserved core communicator class name for Cooja
+   *        mote types, or null
+   * @return Created mote type
+   * @throws Exception If mote type could not be created
+   */
+  private MoteType createMoteType(Element element, boolean visAvailable, boolean quick,
+      String coreCommClassName)
+  throws Exception {
+    String moteTypeClassName = element.getText().trim();
+
+    /* Backwards compatibility: se.sics -> org.contikios */
+    if (moteTypeClassName.startsWith("se.sics")) {
+    	moteTypeClassName = moteTypeClassName.replaceFirst("se\\.sics", "org.contikios");
+    }
+
+    /* Try to recreate simulation using a different mote type */
+    if (visAvailable && !quick) {
+      String[] availableMoteTypes = getCooja().getProjectConfig().getStringArrayValue("org.contikios.cooja.Cooja.MOTETYPES");
+      String newClass = (String) JOptionPane.showInputDialog(
+          Cooja.getTopParentContainer(),
+          "The simulation is about to load '" + moteTypeClassName + "'\n" +
+          "You may try to load the simulation using a different mote type.\n",
+          "Loading mote type",
+          JOptionPane.QUESTION_MESSAGE,
+          null,
+          availableMoteTypes,
+          moteTypeClassName
+      );
+      if (newClass == null) {
+        throw new MoteType.MoteTypeCreationException("No mote type class selected");
+      }
+      if (!newClass.equals(moteTypeClassName)) {
+        logger.warn("Changing mote type class: " + moteTypeClassName + " -> " + newClass);
+        moteTypeClassName = newClass;
+      }
+    }
+
+    Class<? extends MoteType> moteTypeClass = cooja.tryLoadClass(this,
+        MoteType.class, moteTypeClassName);
+
+    if (moteTypeClass == null) {
+      logger.fatal("Could not load mote type class: " + moteTypeClassName);
+      throw new MoteType.MoteTypeCreationException("Could not load mote type class: " + moteTypeClassName);
+    }
+
+    MoteType moteType = moteTypeClass.getConstructor((Class[]) null).newInstance();
+    if (coreCommClassName != null && moteType instanceof ContikiMoteType) {
+      ((ContikiMoteType) moteType).javaClassName = coreCommClassName;
+    }
+
+    boolean createdOK = moteType.setConfigXML(this, element.getChildren(),
+        visAvailable);
+    if (!createdOK) {
+      logger
+          .fatal("Mote type was not created: " + element.getText().trim());
+      throw new Exception("All mote types were not recreated");
+    }
+    return moteType;
+  }
+
+  /**
+   * Mote types being created in the background while a config is loaded.
+   */
+  private class BackgroundMoteTypes {
+    final IdentityHashMap<Element, Future<MoteType>> futures =
+        new IdentityHashMap<Element, Future<MoteType>>();
+    ExecutorService executor = null;
+
+    /* Guarded by this */
+    private final ArrayList<MoteType> created = new ArrayList<MoteType>();
+    private boolean aborted = false;
+
+    /**
+     * @param moteType Created mote type
+     * @return False if loading was aborted: the mote type must be released
+     */
+    synchronized boolean add(MoteType moteType) {
+      if (aborted) {
+        return false;
+      }
+      created.add(moteType);
+      return true;
+    }
+
+    /**
+     * Cancels pending creations, and releases created mote types that were
+     * not added to the simulation. Mote types completing later are released
+     * by their creator.
+     */
+    void abort() {
+      ArrayList<MoteType> release;
+      synchronized (this) {
+        aborted = true;
+        release = new ArrayList<MoteType>(created);
+      }
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+      for (Future<MoteType> future : futures.values()) {
+        future.cancel(true);
+      }
+      for (MoteType moteType : release) {
+        if (!moteTypes.contains(moteType)) {
+          moteType.removed();
+        }
+      }
+    }
+  }
+
+  /**
+   * Starts creating all mote types of the given simulation config on a bounded
+   * thread pool. Mote types built from the same directory are created one after
+   * another, since their builds share output directories.
+   *
+   * @param configXML Simulation configuration
+   * @param quick True if quick setup
+   * @param background Stores the pending mote types, by config element
+   */
+  private void createMoteTypesInBackground(Collection<Element> configXML,
+      final boolean quick, final BackgroundMoteTypes background) {
+    LinkedHashMap<String, ArrayList<Element>> groups = new LinkedHashMap<String, ArrayList<Element>>();
+    final IdentityHashMap<Element, String> coreCommClassNames = new IdentityHashMap<Element, String>();
+    int count = 0;
+    for (Element element : configXML) {
+      if (!element.getName().equals("motetype")) {
+        continue;
+      }
+
+      /* Core communicator class names are part of the firmware, and of its
+       * cache key: reserve them in document order, not in creation order */
+      String moteTypeClassName = element.getText().trim().replaceFirst("^se\\.sics", "org.contikios");
+      if (moteTypeClassName.equals(ContikiMoteType.class.getName())) {
+        coreCommClassNames.put(element, CoreComm.reserveClassName());
+      }
+
+      String group = "#" + count;
+      Element source = element.getChild("source");
+      if (source == null) {
+        source = element.getChild("firmware");
+      }
+      if (source != null) {
+        File file = cooja.restorePortablePath(new File(source.getText()));
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null) {
+          group = dir.getPath();
+        }
+      }
+      ArrayList<Element> list = groups.get(group);
+      if (list == null) {
+        list = new ArrayList<Element>();
+        groups.put(group, list);
+      }
+      list.add(element);
+      count++;
+    }
+    if (count == 0) {
+      return;
+    }
+
+    final int total = count;
+    final AtomicInteger done = new AtomicInteger();
+    int threads = Math.min(groups.size(), Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = background.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      private final AtomicInteger counter = new AtomicInteger();
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "[mote type creator " + counter.incrementAndGet() + "]");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    logger.info("Creating " + total + " mote types using " + threads + " threads");
+
+    for (final ArrayList<Element> group : groups.values()) {
+      /* Mote types in the same group wait for their predecessor */
+      Future<MoteType> previous = null;
+      for (final Element element : group) {
+        final Future<MoteType> predecessor = previous;
+        Future<MoteType> future = executor.submit(new Callable<MoteType>() {
+          public MoteType call() throws Exception {
+            if (predecessor != null) {
+              try {
+                predecessor.get();
+              } catch (ExecutionException e) {
+                /* Failure is reported by predecessor */
+              }
+            }
+            MoteType moteType = createMoteType(element, false, quick, coreCommClassNames.get(element));
+            if (!background.add(moteType)) {
+              moteType.removed();
+              throw new CancellationException("Simulation loading aborted");
+            }
+            String msg = "Created mote type " + moteType.getIdentifier()
+                + " (" + done.incrementAndGet() + "/" + total + ")";
+            logger.info(msg);
+            Cooja.setProgressMessage(msg);
+            return moteType;
+          }
+        });
+        background.futures.put(element, future);
+        previous = future;
+      }
+    }
+    executor.shutdown();
+  }
+
   /**
    * Sets the current simulation config depending on the given configuration.
    *
@@ -568,6 +839,28 @@ public class Simulation extends Observable implements Runnable {
       boolean visAvailable, boolean quick, Long manualRandomSeed) throws Exception {
 
       setQuickSetup(quick);
+
+    /* Compile and load mote types in the background while parsing */
+    BackgroundMoteTypes background = new BackgroundMoteTypes();
+    if (!visAvailable) {
+      createMoteTypesInBackground(configXML, quick, background);
+    }
+
+    boolean loaded = false;
+    try {
+      loaded = setConfigXML(configXML, visAvailable, quick, manualRandomSeed, background.futures);
+      return loaded;
+    } finally {
+      if (!loaded) {
+        background.abort();
+      }
+    }
+  }
+
+  private boolean setConfigXML(Collection<Element> configXML,
+      boolean visAvailable, boolean quick, Long manualRandomSeed,
+      IdentityHashMap<Element, Future<MoteType>> moteTypeFutures) throws Exception {
+
     // Parse elements
     for (Element element : configXML) {
 
@@ -661,54 +954,21 @@ public class Simulation extends Observable implements Runnable {
 
       // Mote type
       if (element.getName().equals("motetype")) {
-        String moteTypeClassName = element.getText().trim();
-
-        /* Backwards compatibility: se.sics -> org.contikios */
-        if (moteTypeClassName.startsWith("se.sics")) {
-        	moteTypeClassName = moteTypeClassName.replaceFirst("se\\.sics", "org.contikios");
-        }
-
-        /* Try to recreate simulation using a different mote type */
-        if (visAvailable && !quick) {
-          String[] availableMoteTypes = getCooja().getProjectConfig().getStringArrayValue("org.contikios.cooja.Cooja.MOTETYPES");
-          String newClass = (String) JOptionPane.showInputDialog(
-              Cooja.getTopParentContainer(),
-              "The simulation is about to load '" + moteTypeClassName + "'\n" +
-              "You may try to load the simulation using a different mote type.\n",
-              "Loading mote type",
-              JOptionPane.QUESTION_MESSAGE,
-              null,
-              availableMoteTypes,
-              moteTypeClassName
-          );
-          if (newClass == null) {
-            throw new MoteType.MoteTypeCreationException("No mote type class selected");
-          }
-          if (!newClass.equals(moteTypeClassName)) {
-            logger.warn("Changing mote type class: " + moteTypeClassName + " -> " + newClass);
-            moteTypeClassName = newClass;
+        MoteType moteType;
+        Future<MoteType> created = moteTypeFutures.get(element);
+        if (created != null) {
+          try {
+            moteType = created.get();
+          } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+              throw (Exception) e.getCause();
+            }
+            throw e;
           }
-        }
-
-        Class<? extends MoteType> moteTypeClass = cooja.tryLoadClass(this,
-            MoteType.class, moteTypeClassName);
-
-        if (moteTypeClass == null) {
-          logger.fatal("Could not load mote type class: " + moteTypeClassName);
-          throw new MoteType.MoteTypeCreationException("Could not load mote type class: " + moteTypeClassName);
-        }
-
-        MoteType moteType = moteTypeClass.getConstructor((Class[]) null).newInstance();
-
-        boolean createdOK = moteType.setConfigXML(this, element.getChildren(),
-            visAvailable);
-        if (createdOK) {
-          addMoteType(moteType);
         } else {
-          logger
-              .fatal("Mote type was not created: " + element.getText().trim());
-          throw new Exception("All mote types were not recreated");
+          moteType = createMoteType(element, visAvailable, quick, null);
         }
+        addMoteType(moteType);
       }
 
       /* Mote */
@@ -823,6 +1083,25 @@ public class Simulation extends Observable implements Runnable {
     for (Mote m: motes) {
       removeMote(m);
     }
+
+    /* Release mote type resources */
+    for (MoteType type: getMoteTypes()) {
+      removedMoteType(type);
+    }
+  }
+
+  /* Notifies mote type of removal, after its motes have been removed */
+  private void removedMoteType(final MoteType type) {
+    Runnable removed = new Runnable() {
+      public void run() {
+        type.removed();
+      }
+    };
+    if (!isRunning()) {
+      removed.run();
+    } else {
+      invokeSimulationThread(removed);
+    }
   }
 
   /**
@@ -1007,6 +1286,7 @@ public class Simulation extends Observable implements Runnable {
     }
 
     moteTypes.remove(type);
+    removedMoteType(type);
     this.setChanged();
     this.notifyObservers(this);
   }
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.log4j.Logger;
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.JDOMException;
+import org.jdom.input.SAXBuilder;
+import org.jdom.output.XMLOutputter;
+
+import org.contikios.cooja.Cooja.SimulationCreationException;
+import org.contikios.cooja.radiomediums.AbstractRadioMedium;
+
+/**
+ * Saves and restores the full run-time state of a simulation.
+ *
+ * A checkpoint consists of the simulation config, the simulation time, the
+ * random generator state, and the state of the radio medium, every mote and
+ * every mote interface implementing {@link Checkpointable}.
+ * All motes must implement Checkpointable.
+ *
+ * Restoring first recreates the simulation from the saved config, and then
+ * overwrites its state. Events in the event queue are not saved as such:
+ * mote wakeups are part of the mote state and replace the wakeups scheduled
+ * while loading, and simulation events owned by other components (speed
+ * limit, plugins) are rescheduled by their owners. No other events are
+ * removed.
+ * Checkpoints can therefore only be saved when no radio transmissions are
+ * in progress.
+ *
+ * Checkpoint files ending with ".gz" are compressed.
+ *
+ * @see Checkpointable
+ */
+public class SimulationCheckpoint {
+  private static Logger logger = Logger.getLogger(SimulationCheckpoint.class);
+
+  public static final String FILE_SUFFIX = ".ckpt";
+
+  private static final int MAGIC = 0x434a4350; /* "CJCP" */
+  private static final int VERSION = 1;
+
+  /**
+   * Saves a checkpoint of the given simulation.
+   * The simulation must be the current simulation of its Cooja, and must
+   * be stopped unless called from the simulation thread, for example by
+   * a test script.
+   *
+   * @param sim Simulation
+   * @param file Checkpoint file
+   * @throws IOException If simulation state could not be saved
+   */
+  public static void save(Simulation sim, File file) throws IOException {
+    OutputStream os = new FileOutputStream(file);
+    if (file.getName().endsWith(".gz")) {
+      os = new GZIPOutputStream(os);
+    }
+    save(sim, os);
+    logger.info("Saved checkpoint at " + sim.getSimulationTimeMillis() + " ms to: " + file.getAbsolutePath());
+  }
+
+  /* Closes the stream when done */
+  private static void save(Simulation sim, OutputStream os) throws IOException {
+    if (sim.isRunning() && !sim.isSimulationThread()) {
+      throw new IOException("Simulation must be stopped when saving checkpoint");
+    }
+    RadioMedium radioMedium = sim.getRadioMedium();
+    if (radioMedium instanceof AbstractRadioMedium &&
+        ((AbstractRadioMedium) radioMedium).getActiveConnections().length > 0) {
+      throw new IOException("Radio transmissions in progress, checkpoint not saved");
+    }
+    for (Mote mote: sim.getMotes()) {
+      if (!(mote instanceof Checkpointable)) {
+        throw new IOException("Mote does not support checkpoints: " + mote);
+      }
+    }
+
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 65536));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+
+      /* Simulation config, including plugins */
+      String config = new XMLOutputter().outputString(
+          new Document(sim.getCooja().extractSimulationConfig()));
+      byte[] configData = config.getBytes("UTF-8");
+      out.writeInt(configData.length);
+      out.write(configData);
+
+      out.writeLong(sim.getSimulationTime());
+      writeState(out, (SafeRandom) sim.getRandomGenerator());
+      writeState(out, radioMedium instanceof Checkpointable ? (Checkpointable) radioMedium : null);
+
+      /* Motes and mote interfaces */
+      Mote[] motes = sim.getMotes();
+      out.writeInt(motes.length);
+      for (Mote mote: motes) {
+        out.writeInt(mote.getID());
+        writeState(out, (Checkpointable) mote);
+
+        ArrayList<MoteInterface> interfaces = new ArrayList<MoteInterface>();
+        for (MoteInterface moteInterface: mote.getInterfaces().getInterfaces()) {
+          if (moteInterface instanceof Checkpointable) {
+            interfaces.add(moteInterface);
+          }
+        }
+        out.writeInt(interfaces.size());
+        for (MoteInterface moteInterface: interfaces) {
+          out.writeUTF(moteInterface.getClass().getName());
+          writeState(out, (Checkpointable) moteInterface);
+        }
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Creates a new simulation from the given checkpoint.
+   * Plugins are started after the simulation state has been restored.
+   *
+   * @param cooja Cooja
+   * @param file Checkpoint file
+   * @param quick Quick setup, see {@link Simulation#isQuickSetup()}
+   * @return Restored simulation, or null if simulation was not loaded
+   * @throws SimulationCreationException If checkpoint could not be restored
+   */
+  public static Simulation restore(Cooja cooja, File file, boolean quick)
+  throws SimulationCreationException {
+    InputStream is;
+    try {
+      is = new FileInputStream(file);
+      if (file.getName().endsWith(".gz")) {
+        is = new GZIPInputStream(is);
+      }
+    } catch (IOException e) {
+      throw (SimulationCreationException) cooja.new SimulationCreationException(
+          "Checkpoint restore error: " + e.getMessage()).initCause(e);
+    }
+    Simulation sim = restore(cooja, is, quick);
+    if (sim != null) {
+      logger.info("Restored checkpoint at " + sim.getSimulationTimeMillis() + " ms from: " + file.getAbsolutePath());
+    }
+    return sim;
+  }
+
+  /* Closes the stream when done */
+  private static Simulation restore(Cooja cooja, InputStream is, boolean quick)
+  throws SimulationCreationException {
+    DataInputStream in = null;
+    try {
+      in = new DataInputStream(new BufferedInputStream(is, 65536));
+
+      if (in.readInt() != MAGIC) {
+        throw cooja.new SimulationCreationException("Not a Cooja simulation checkpoint");
+      }
+      int version = in.readInt();
+      if (version != VERSION) {
+        throw cooja.new SimulationCreationException("Unsupported checkpoint version: " + version);
+      }
+
+      byte[] configData = new byte[in.readInt()];
+      in.readFully(configData);
+      Element root = new SAXBuilder().build(
+          new StringReader(new String(configData, "UTF-8"))).getRootElement();
+
+      /* Plugins are started last, so that they see the restored simulation time */
+      ArrayList<Element> pluginsConfig = new ArrayList<Element>();
+      List<?> plugins = root.getChildren("plugin");
+      for (Object element: plugins) {
+        pluginsConfig.add((Element) element);
+      }
+      for (Element element: pluginsConfig) {
+        element.detach();
+      }
+
+      Simulation sim = cooja.loadSimulationConfig(root, quick, null);
+      if (sim == null) {
+        return null;
+      }
+
+      /* Motes replace the initial wakeups scheduled when they were added,
+       * see AbstractWakeupMote#restoreNextWakeup(long) */
+      sim.setSimulationTime(in.readLong());
+      readState(in, (SafeRandom) sim.getRandomGenerator());
+      RadioMedium radioMedium = sim.getRadioMedium();
+      readState(in, radioMedium instanceof Checkpointable ? (Checkpointable) radioMedium : null);
+
+      int nrMotes = in.readInt();
+      for (int i = 0; i < nrMotes; i++) {
+        int id = in.readInt();
+        Mote mote = sim.getMoteWithID(id);
+        if (!(mote instanceof Checkpointable)) {
+          throw new IOException("No restorable mote with ID " + id);
+        }
+        readState(in, (Checkpointable) mote);
+
+        int nrInterfaces = in.readInt();
+        for (int j = 0; j < nrInterfaces; j++) {
+          String interfaceClass = in.readUTF();
+          Checkpointable moteInterface = null;
+          for (MoteInterface mi: mote.getInterfaces().getInterfaces()) {
+            if (mi.getClass().getName().equals(interfaceClass) && mi instanceof Checkpointable) {
+              moteInterface = (Checkpointable) mi;
+              break;
+            }
+          }
+          if (moteInterface == null) {
+            logger.warn("Ignoring checkpoint state of missing interface " + interfaceClass + ": " + mote);
+          }
+          readState(in, moteInterface);
+        }
+      }
+
+      /* Reschedule speed limit event */
+      sim.setSpeedLimit(sim.getSpeedLimit());
+
+      cooja.setPluginsConfigXML(pluginsConfig, sim, Cooja.isVisualized(), quick);
+      return sim;
+    } catch (JDOMException e) {
+      throw (SimulationCreationException) cooja.new SimulationCreationException(
+          "Checkpoint config not wellformed: " + e.getMessage()).initCause(e);
+    } catch (IOException e) {
+      throw (SimulationCreationException) cooja.new SimulationCreationException(
+          "Checkpoint restore error: " + e.getMessage()).initCause(e);
+    } finally {
+      if (in != null) {
+        try {
+          in.close();
+        } catch (IOException e) {
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes component state as a length-prefixed block, so that readers can
+   * skip state of components that no longer exist.
+   */
+  private static void writeState(DataOutputStream out, Checkpointable component)
+  throws IOException {
+    if (component == null) {
+      out.writeInt(0);
+      return;
+    }
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    DataOutputStream blockOut = new DataOutputStream(buffer);
+    component.saveCheckpoint(blockOut);
+    blockOut.flush();
+    out.writeInt(buffer.size());
+    buffer.writeTo(out);
+  }
+
+  private static void readState(DataInputStream in, Checkpointable component)
+  throws IOException {
+    byte[] block = new byte[in.readInt()];
+    in.readFully(block);
+    if (component == null || block.length == 0) {
+      return;
+    }
+    component.restoreCheckpoint(new DataInputStream(new ByteArrayInputStream(block)));
+  }
+
+}
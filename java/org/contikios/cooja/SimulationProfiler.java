@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+
+import org.contikios.cooja.interfaces.Radio;
+
+/**
+ * Execution profiler for the simulation loop.
+ * <p>
+ * When installed via {@link Simulation#setProfiler(SimulationProfiler)}, the
+ * simulation loop attributes wall-clock time and execution counts to time
+ * event classes, motes, mote types, radio medium callbacks and simulation
+ * thread invokes. Times are exclusive: time spent in the radio medium while
+ * a mote executes is accounted to the radio medium, not the mote.
+ * <p>
+ * All accounting methods must be called from the simulation thread, and take
+ * no locks. Counters have a single writer and are volatile: statistics read
+ * from other threads while the simulation runs may lag slightly behind, and
+ * an entry's fields may be from consecutive updates. With no profiler installed the simulation loop only
+ * pays for a null check.
+ *
+ * @see Simulation#setProfiler(SimulationProfiler)
+ */
+public class SimulationProfiler {
+  private static Logger logger = Logger.getLogger(SimulationProfiler.class);
+
+  public enum Category {
+    EVENT("Event types"),
+    MOTE("Motes"),
+    MOTE_TYPE("Mote types"),
+    RADIO_MEDIUM("Radio medium"),
+    INVOKE("Simulation thread invokes");
+
+    private final String description;
+    Category(String description) {
+      this.description = description;
+    }
+    public String toString() {
+      return description;
+    }
+  }
+
+  /**
+   * Accumulated statistics for one profiled entity.
+   */
+  public static class Entry {
+    public final Category category;
+    public final String name;
+    private volatile long count;
+    private volatile long nanos;
+    private volatile long maxNanos;
+
+    private Entry(Category category, String name) {
+      this.category = category;
+      this.name = name;
+    }
+    private Entry(Entry e) {
+      this.category = e.category;
+      this.name = e.name;
+      this.count = e.count;
+      this.nanos = e.nanos;
+      this.maxNanos = e.maxNanos;
+    }
+
+    public long getCount() {
+      return count;
+    }
+    public long getNanos() {
+      return nanos;
+    }
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+    private void add(long exclusiveNanos) {
+      count++;
+      nanos += exclusiveNanos;
+      if (exclusiveNanos > maxNanos) {
+        maxNanos = exclusiveNanos;
+      }
+    }
+  }
+
+  /* Written by simulation thread only, read by any thread */
+  private final ArrayList<ConcurrentHashMap<Object, Entry>> entries =
+    new ArrayList<ConcurrentHashMap<Object, Entry>>();
+
+  /* Nested sections: time spent in child sections, per depth */
+  private long[] childNanos = new long[8];
+  private int depth = 0;
+
+  /* Started JFR events per depth, and the one of the last exited section */
+  private Object[] jfrEvents = new Object[8];
+  private Object pendingJFREvent = null;
+
+  private volatile long startTime;
+  private volatile long profiledNanos = 0;
+  private volatile boolean resetRequested = false;
+
+  private volatile boolean jfr = false;
+
+  public SimulationProfiler() {
+    for (int i = 0; i < Category.values().length; i++) {
+      entries.add(new ConcurrentHashMap<Object, Entry>());
+    }
+    startTime = System.nanoTime();
+  }
+
+  /**
+   * Enables emitting a JFR event for every profiled section.
+   * Requires a JVM with Java Flight Recorder support.
+   *
+   * @param enabled Emit JFR events
+   * @return True if JFR events will be emitted
+   */
+  public boolean setJFREnabled(boolean enabled) {
+    if (enabled) {
+      try {
+        jfr = jdk.jfr.FlightRecorder.isAvailable();
+      } catch (Throwable t) {
+        jfr = false;
+      }
+      if (!jfr) {
+        logger.warn("Java Flight Recorder not available, no profiler JFR events");
+      }
+    } else {
+      jfr = false;
+    }
+    return jfr;
+  }
+
+  public boolean isJFREnabled() {
+    return jfr;
+  }
+
+  /**
+   * Executes and profiles the given simulation event.
+   *
+   * @param e Event
+   * @param time Simulation time
+   */
+  public void executeEvent(TimeEvent e, long time) {
+    long start = enter();
+    try {
+      e.execute(time);
+    } finally {
+      long exclusive = exit(start);
+      record(Category.EVENT, e.getClass(), exclusive);
+      if (e instanceof MoteTimeEvent) {
+        Mote mote = ((MoteTimeEvent)e).getMote();
+        record(Category.MOTE, mote, exclusive);
+        record(Category.MOTE_TYPE, mote.getType(), exclusive);
+        if (pendingJFREvent != null) {
+          ProfilerJFREvent.finish(pendingJFREvent, Category.EVENT, e.getClass().getName(), mote.getID(), exclusive);
+        }
+      } else if (pendingJFREvent != null) {
+        ProfilerJFREvent.finish(pendingJFREvent, Category.EVENT, e.getClass().getName(), -1, exclusive);
+      }
+    }
+  }
+
+  /**
+   * Runs and profiles the given simulation thread invoke.
+   *
+   * @see Simulation#invokeSimulationThread(Runnable)
+   * @param r Runnable
+   */
+  public void runInvoke(Runnable r) {
+    long start = enter();
+    try {
+      r.run();
+    } finally {
+      long exclusive = exit(start);
+      record(Category.INVOKE, r.getClass(), exclusive);
+      if (pendingJFREvent != null) {
+        ProfilerJFREvent.finish(pendingJFREvent, Category.INVOKE, r.getClass().getName(), -1, exclusive);
+      }
+    }
+  }
+
+  /**
+   * Starts a nested radio medium section.
+   * Must be followed by {@link #exitRadioMedium(Radio, Radio.RadioEvent, long)}.
+   *
+   * @return Section start time
+   */
+  public long enterRadioMedium() {
+    return enter();
+  }
+
+  /**
+   * Ends a nested radio medium section.
+   *
+   * @param radio Radio that triggered the callback
+   * @param event Radio event
+   * @param start Section start time
+   */
+  public void exitRadioMedium(Radio radio, Radio.RadioEvent event, long start) {
+    long exclusive = exit(start);
+    record(Category.RADIO_MEDIUM, event, exclusive);
+    if (pendingJFREvent != null) {
+      Mote mote = radio.getMote();
+      ProfilerJFREvent.finish(pendingJFREvent, Category.RADIO_MEDIUM, event.toString(), mote == null ? -1 : mote.getID(), exclusive);
+    }
+  }
+
+  private long enter() {
+    if (depth == 0 && resetRequested) {
+      reset();
+    }
+    depth++;
+    if (depth >= childNanos.length) {
+      long[] tmp = new long[childNanos.length*2];
+      System.arraycopy(childNanos, 0, tmp, 0, childNanos.length);
+      childNanos = tmp;
+      Object[] tmpEvents = new Object[tmp.length];
+      System.arraycopy(jfrEvents, 0, tmpEvents, 0, jfrEvents.length);
+      jfrEvents = tmpEvents;
+    }
+    childNanos[depth] = 0;
+    if (jfr) {
+      jfrEvents[depth] = ProfilerJFREvent.start();
+    }
+    return System.nanoTime();
+  }
+
+  private long exit(long start) {
+    long elapsed = System.nanoTime() - start;
+    long exclusive = elapsed - childNanos[depth];
+    pendingJFREvent = jfrEvents[depth];
+    jfrEvents[depth] = null;
+    depth--;
+    if (depth > 0) {
+      childNanos[depth] += elapsed;
+    } else {
+      profiledNanos += elapsed;
+    }
+    return exclusive;
+  }
+
+  private void record(Category category, Object key, long nanos) {
+    ConcurrentHashMap<Object, Entry> map = entries.get(category.ordinal());
+    Entry entry = map.get(key);
+    if (entry == null) {
+      entry = new Entry(category, nameOf(category, key));
+      map.put(key, entry);
+    }
+    entry.add(nanos);
+  }
+
+  private static String nameOf(Category category, Object key) {
+    switch (category) {
+      case EVENT:
+      case INVOKE:
+        return ((Class<?>)key).getName();
+      case MOTE_TYPE:
+        MoteType type = (MoteType)key;
+        return type.getIdentifier() + " (" + Cooja.getDescriptionOf(type) + ")";
+      default:
+        return key.toString();
+    }
+  }
+
+  /**
+   * @param category Category
+   * @return Snapshot of all entries in category, most time consuming first
+   */
+  public List<Entry> getEntries(Category category) {
+    ArrayList<Entry> list = new ArrayList<Entry>();
+    for (Entry e: entries.get(category.ordinal()).values()) {
+      list.add(new Entry(e));
+    }
+    Collections.sort(list, new Comparator<Entry>() {
+      public int compare(Entry a, Entry b) {
+        return Long.compare(b.nanos, a.nanos);
+      }
+    });
+    return list;
+  }
+
+  /**
+   * @return Wall-clock time spent in profiled sections (ns)
+   */
+  public long getProfiledNanos() {
+    return profiledNanos;
+  }
+
+  /**
+   * @return Wall-clock time since profiler was created or reset (ns)
+   */
+  public long getElapsedNanos() {
+    return System.nanoTime() - startTime;
+  }
+
+  /**
+   * Clears all collected statistics.
+   * Must be called from the simulation thread, or while the simulation is
+   * stopped, but not during a profiled section.
+   *
+   * @see #requestReset()
+   */
+  public void reset() {
+    resetRequested = false;
+    for (ConcurrentHashMap<Object, Entry> map: entries) {
+      map.clear();
+    }
+    profiledNanos = 0;
+    startTime = System.nanoTime();
+  }
+
+  /**
+   * Clears all collected statistics before the next profiled section.
+   * May be called from any thread, for example while the simulation runs.
+   */
+  public void requestReset() {
+    resetRequested = true;
+  }
+
+  /**
+   * @return Human readable profiling report
+   */
+  public String getReport() {
+    StringWriter sw = new StringWriter();
+    PrintWriter pw = new PrintWriter(sw);
+
+    long profiled = getProfiledNanos();
+    long elapsed = getElapsedNanos();
+    pw.printf("Simulation profile: %.1f ms profiled of %.1f ms wall-clock time%n",
+        profiled/1e6, elapsed/1e6);
+    for (Category category: Category.values()) {
+      List<Entry> list = getEntries(category);
+      if (list.isEmpty()) {
+        continue;
+      }
+      pw.println();
+      pw.println(category + ":");
+      pw.printf("  %12s %10s %7s %10s %10s  %s%n", "count", "time ms", "%", "avg us", "max us", "name");
+      for (Entry e: list) {
+        pw.printf("  %12d %10.1f %7.2f %10.2f %10.1f  %s%n",
+            e.count,
+            e.nanos/1e6,
+            profiled == 0 ? 0.0 : 100.0*e.nanos/profiled,
+            e.nanos/1e3/e.count,
+            e.maxNanos/1e3,
+            e.name);
+      }
+    }
+    pw.flush();
+    return sw.toString();
+  }
+}
@@ -30,17 +30,26 @@
 
 package org.contikios.cooja.contikimote;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 import org.jdom.Element;
+import org.contikios.cooja.Checkpointable;
+import org.contikios.cooja.CoreComm;
 import org.contikios.cooja.Mote;
 import org.contikios.cooja.MoteInterface;
 import org.contikios.cooja.MoteInterfaceHandler;
+import org.contikios.cooja.MoteTimeEvent;
 import org.contikios.cooja.MoteType;
+import org.contikios.cooja.MoteType.MoteTypeCreationException;
 import org.contikios.cooja.mote.memory.SectionMoteMemory;
 import org.contikios.cooja.Simulation;
+import org.contikios.cooja.TimeEvent;
 import org.contikios.cooja.mote.memory.MemoryInterface;
 import org.contikios.cooja.motes.AbstractWakeupMote;
 
@@ -59,13 +68,30 @@ import org.contikios.cooja.motes.AbstractWakeupMote;
  *
  * @author      Fredrik Osterlind
  */
-public class ContikiMote extends AbstractWakeupMote implements Mote {
+public class ContikiMote extends AbstractWakeupMote implements Mote, Checkpointable {
   private static Logger logger = Logger.getLogger(ContikiMote.class);
 
   private ContikiMoteType myType = null;
   private SectionMoteMemory myMemory = null;
   private MoteInterfaceHandler myInterfaceHandler = null;
 
+  /* Library instance of this mote only, or null if sharing the mote type's library */
+  private CoreComm myCoreComm = null;
+
+  /* Tick running in a worker process, or null */
+  private NativeWorkerPool.Tick pendingTick = null;
+
+  private final TimeEvent completeTickEvent = new MoteTimeEvent(this, 0) {
+    @Override
+    public void execute(long t) {
+      completeTick();
+    }
+    @Override
+    public String toString() {
+      return "COMPLETE TICK " + ContikiMote.this;
+    }
+  };
+
   /**
    * Creates a new mote of given type.
    * Both the initial mote memory and the interface handler
@@ -77,7 +103,16 @@ public class ContikiMote extends AbstractWakeupMote implements Mote {
   public ContikiMote(ContikiMoteType moteType, Simulation sim) {
     setSimulation(sim);
     this.myType = moteType;
-    this.myMemory = moteType.createInitialMemory();
+    if (moteType.isIsolated()) {
+      try {
+        myCoreComm = moteType.createIsolatedCoreComm();
+      } catch (MoteTypeCreationException e) {
+        throw (RuntimeException) new RuntimeException("Error: " + e.getMessage()).initCause(e);
+      }
+      this.myMemory = moteType.createNativeMemory(myCoreComm);
+    } else {
+      this.myMemory = moteType.createInitialMemory();
+    }
     this.myInterfaceHandler = new MoteInterfaceHandler(this, moteType.getMoteInterfaceClasses());
 
     requestImmediateWakeup();
@@ -128,6 +163,12 @@ public class ContikiMote extends AbstractWakeupMote implements Mote {
   @Override
   public void execute(long simTime) {
 
+    if (pendingTick != null) {
+      /* Woken up again before tick completed: finish it first */
+      completeTickEvent.remove();
+      completeTick();
+    }
+
     /* Poll mote interfaces */
     myInterfaceHandler.doActiveActionsBeforeTick();
     myInterfaceHandler.doPassiveActionsBeforeTick();
@@ -138,21 +179,73 @@ public class ContikiMote extends AbstractWakeupMote implements Mote {
       return;
     }
 
-    /* Copy mote memory to Contiki */
-    myType.setCoreMemory(myMemory);
+    NativeWorkerPool workerPool = myType.getWorkerPool();
+    if (workerPool != null) {
+      pendingTick = workerPool.dispatch(myMemory);
+      if (pendingTick != null) {
+        /* Complete tick after the other events at this time,
+         * allowing motes woken up at the same time to tick concurrently */
+        simulation.scheduleEvent(completeTickEvent, simTime);
+        return;
+      }
+      /* All worker slots are in use: tick in simulator process */
+    }
+
+    if (myCoreComm != null) {
+      /* Handle a single Contiki event, memory stays in the mote's library */
+      myCoreComm.tick();
+    } else {
+      /* Copy mote memory to Contiki */
+      myType.setCoreMemory(myMemory);
 
-    /* Handle a single Contiki events */
-    myType.tick();
+      /* Handle a single Contiki events */
+      myType.tick();
 
-    /* Copy mote memory from Contiki */
-    myType.getCoreMemory(myMemory);
+      /* Copy mote memory from Contiki */
+      myType.getCoreMemory(myMemory);
+    }
+
+    afterTick();
+  }
 
+  /**
+   * Applies the result of the tick running in a worker process.
+   * If other events have changed the mote memory since the tick was
+   * dispatched, the mote is instead ticked again on the current memory.
+   */
+  private void completeTick() {
+    NativeWorkerPool.Tick tick = pendingTick;
+    pendingTick = null;
+    if (!tick.complete(myMemory)) {
+      if (!myType.getWorkerPool().tick(myMemory)) {
+        myType.setCoreMemory(myMemory);
+        myType.tick();
+        myType.getCoreMemory(myMemory);
+      }
+    }
+    afterTick();
+  }
+
+  private void afterTick() {
     /* Poll mote interfaces */
     myMemory.pollForMemoryChanges();
     myInterfaceHandler.doActiveActionsAfterTick();
     myInterfaceHandler.doPassiveActionsAfterTick();
   }
 
+  @Override
+  public void removed() {
+    if (pendingTick != null) {
+      pendingTick.cancel();
+      pendingTick = null;
+    }
+    if (myCoreComm != null) {
+      /* Release library instance, keep a copy of its memory */
+      myMemory = myMemory.clone();
+      myCoreComm = null;
+    }
+  }
+
   /**
    * Returns the current Contiki mote config represented by XML elements.
    * This config also includes all mote interface configs.
@@ -182,7 +275,9 @@ public class ContikiMote extends AbstractWakeupMote implements Mote {
   @Override
   public boolean setConfigXML(Simulation simulation, Collection<Element> configXML, boolean visAvailable) {
     setSimulation(simulation);
-    myMemory = myType.createInitialMemory();
+    if (myCoreComm == null) {
+      myMemory = myType.createInitialMemory();
+    }
     myInterfaceHandler = new MoteInterfaceHandler(this, myType.getMoteInterfaceClasses());
 
     for (Element element: configXML) {
@@ -219,6 +314,44 @@ public class ContikiMote extends AbstractWakeupMote implements Mote {
     return true;
   }
 
+  /**
+   * Saves all memory sections and the next wakeup time.
+   * Interface states are saved separately by the simulation checkpoint.
+   */
+  @Override
+  public void saveCheckpoint(DataOutputStream out) throws IOException {
+    if (pendingTick != null) {
+      throw new IOException("Tick in progress in native worker: " + this);
+    }
+    out.writeLong(getNextWakeupTime());
+    Map<String, MemoryInterface> sections = myMemory.getSections();
+    out.writeInt(sections.size());
+    for (Map.Entry<String, MemoryInterface> section : sections.entrySet()) {
+      byte[] data = section.getValue().getMemory();
+      out.writeUTF(section.getKey());
+      out.writeInt(data.length);
+      out.write(data);
+    }
+  }
+
+  @Override
+  public void restoreCheckpoint(DataInputStream in) throws IOException {
+    long nextWakeup = in.readLong();
+    int nrSections = in.readInt();
+    for (int i = 0; i < nrSections; i++) {
+      String name = in.readUTF();
+      int size = in.readInt();
+      MemoryInterface section = myMemory.getSections().get(name);
+      if (section == null || section.getTotalSize() != size) {
+        throw new IOException("Memory section '" + name + "' does not match mote type: " + this);
+      }
+      byte[] data = new byte[size];
+      in.readFully(data);
+      section.setMemorySegment(section.getStartAddr(), data);
+    }
+    restoreNextWakeup(nextWakeup);
+  }
+
   @Override
   public String toString() {
     return "Contiki " + getID();
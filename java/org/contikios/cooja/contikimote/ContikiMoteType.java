@@ -37,6 +37,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -66,6 +68,7 @@ import org.contikios.cooja.mote.memory.SectionMoteMemory;
 import org.contikios.cooja.Simulation;
 import org.contikios.cooja.dialogs.CompileContiki;
 import org.contikios.cooja.dialogs.ContikiMoteCompileDialog;
+import org.contikios.cooja.dialogs.FirmwareCache;
 import org.contikios.cooja.dialogs.MessageList;
 import org.contikios.cooja.dialogs.MessageContainer;
 import org.contikios.cooja.mote.memory.ArrayMemory;
@@ -74,6 +77,7 @@ import org.contikios.cooja.mote.memory.MemoryInterface.Symbol;
 import org.contikios.cooja.mote.memory.MemoryLayout;
 import org.contikios.cooja.mote.memory.UnknownVariableException;
 import org.contikios.cooja.mote.memory.VarMemory;
+import org.contikios.cooja.util.FirmwareSymbols;
 import org.contikios.cooja.util.StringUtils;
 
 /**
@@ -215,6 +219,18 @@ public class ContikiMoteType implements MoteType {
   /** Offset between native (cooja) and contiki address space */
   long offset;
 
+  /* Relative address of Contiki's referenceVar */
+  private int referenceVarAddr;
+
+  /* Parsed sections, with addresses relative to the library */
+  private FirmwareSymbols sectionSymbols = null;
+
+  /* If true, every mote loads its own copy of the library */
+  private boolean isolated = false;
+
+  /* Worker processes ticking the motes, or null */
+  private NativeWorkerPool workerPool = null;
+
   /**
    * Creates a new uninitialized Cooja mote type. This mote type needs to load
    * a library file and parse a map file before it can be used.
@@ -268,7 +284,10 @@ public class ContikiMoteType implements MoteType {
       mapFile = new File(
               contikiApp.getParentFile(),
               output_dir + "/" + getIdentifier() + mapSuffix);
-      javaClassName = CoreComm.getAvailableClassName();
+      if (javaClassName == null) {
+        /* Not reserved when loading simulation */
+        javaClassName = CoreComm.getAvailableClassName();
+      }
 
       if (javaClassName == null) {
         throw new MoteTypeCreationException("Could not allocate a core communicator.");
@@ -319,6 +338,33 @@ public class ContikiMoteType implements MoteType {
       if (getCompileCommands() == null) {
         throw new MoteTypeCreationException("No compile commands specified");
       }
+      /* Reuse previously compiled firmware if all inputs are unchanged */
+      FirmwareCache cache = FirmwareCache.getDefault();
+      String cacheKey = null;
+      File[] cacheOutputs = new File[] { getContikiFirmwareFile(), mapFile };
+      if (cache != null && getContikiFirmwareFile() != null) {
+        try {
+          String contikiPath = Cooja.getExternalToolsSetting("PATH_CONTIKI", null);
+          cacheKey = FirmwareCache.createKey(
+                  contikiApp.getParentFile(),
+                  contikiPath == null ? null : new File(contikiPath),
+                  getCompileCommands(),
+                  envOneDimension,
+                  new String[] {
+                    Cooja.getExternalToolsSetting("PATH_C_COMPILER", "gcc"),
+                    Cooja.getExternalToolsSetting("PATH_MAKE", "make")
+                  },
+                  cacheOutputs);
+        } catch (IOException e) {
+          logger.warn("Could not create firmware cache key: " + e.getMessage());
+        }
+      }
+      if (cacheKey != null && cache.restore(cacheKey, cacheOutputs)) {
+        logger.info("Using cached firmware: " + getContikiFirmwareFile());
+        doInit();
+        return true;
+      }
+
       final MessageList compilationOutput = MessageContainer.createMessageList(visAvailable);
       String[] arr = getCompileCommands().split("\n");
       for (String cmd : arr) {
@@ -362,6 +408,9 @@ public class ContikiMoteType implements MoteType {
               || !getContikiFirmwareFile().exists()) {
         throw new MoteTypeCreationException("Contiki firmware file does not exist: " + getContikiFirmwareFile());
       }
+      if (cacheKey != null && mapFile.exists()) {
+        cache.store(cacheKey, cacheOutputs);
+      }
     }
 
     /* Load compiled library */
@@ -411,13 +460,34 @@ public class ContikiMoteType implements MoteType {
      */
     boolean useCommand = Boolean.parseBoolean(Cooja.getExternalToolsSetting("PARSE_WITH_COMMAND", "false"));
 
+    /* Reuse sections and symbols parsed from the same firmware earlier */
+    String symbolsKey = null;
+    FirmwareSymbols cachedSymbols = null;
+    if (useCommand || (mapFile != null && mapFile.exists())) {
+      try {
+        symbolsKey = FirmwareSymbols.createKey(
+                useCommand
+                ? new File[] { getContikiFirmwareFile() }
+                : new File[] { getContikiFirmwareFile(), mapFile },
+                getSymbolParserDescription(useCommand));
+        cachedSymbols = FirmwareSymbols.load(symbolsKey);
+      } catch (IOException e) {
+        logger.warn("Could not create symbol cache key: " + e.getMessage());
+      }
+    }
+
     SectionParser dataSecParser;
     SectionParser bssSecParser;
     SectionParser commonSecParser;
     SectionParser readonlySecParser = null;
 
     HashMap<String, Symbol> variables = new HashMap<>();
-    if (useCommand) {
+    if (cachedSymbols != null) {
+      logger.info("Using cached symbols for " + getContikiFirmwareFile().getName());
+      dataSecParser = new CachedSectionParser(cachedSymbols, 0);
+      bssSecParser = new CachedSectionParser(cachedSymbols, 1);
+      commonSecParser = new CachedSectionParser(cachedSymbols, 2);
+    } else if (useCommand) {
       /* Parse command output */
       String[] output = loadCommandData(getContikiFirmwareFile());
       if (output == null) {
@@ -490,6 +560,7 @@ public class ContikiMoteType implements MoteType {
       try {
         int referenceVar = (int) varMem.getVariable("referenceVar").addr;
         myCoreComm.setReferenceAddress(referenceVar);
+        referenceVarAddr = referenceVar;
       } catch (UnknownVariableException e) {
         throw new MoteTypeCreationException("Error setting reference variable: " + e.getMessage(), e);
       } catch (RuntimeException e) {
@@ -517,6 +588,213 @@ public class ContikiMoteType implements MoteType {
     }
 
     getCoreMemory(initialMemory);
+
+    if (cachedSymbols != null) {
+      sectionSymbols = cachedSymbols;
+    } else {
+      sectionSymbols = createFirmwareSymbols(
+              new SectionParser[] { dataSecParser, bssSecParser, commonSecParser },
+              offset);
+      if (symbolsKey != null) {
+        sectionSymbols.store(symbolsKey);
+      }
+    }
+
+    isolated = Boolean.parseBoolean(Cooja.getExternalToolsSetting("ISOLATED_CONTIKI_MOTES", "false"));
+
+    /* Optionally tick motes in worker processes, each with its own library instance */
+    int nrWorkers = 0;
+    int nrWorkerSlots = 128;
+    try {
+      nrWorkers = Integer.parseInt(Cooja.getExternalToolsSetting("NATIVE_WORKER_PROCESSES", "0"));
+      nrWorkerSlots = Integer.parseInt(Cooja.getExternalToolsSetting("NATIVE_WORKER_SLOTS", "128"));
+    } catch (NumberFormatException e) {
+      logger.warn("Bad native worker setting: " + e.getMessage());
+    }
+    if (nrWorkers > 0 && nrWorkerSlots > 0) {
+      if (isolated) {
+        logger.warn("Native worker processes are used, ignoring ISOLATED_CONTIKI_MOTES");
+        isolated = false;
+      }
+      workerPool = new NativeWorkerPool(javaClassName, getContikiFirmwareFile(),
+              referenceVarAddr, initialMemory, offset, nrWorkers, nrWorkerSlots);
+    }
+
+    if (isolated) {
+      logger.info(getContikiFirmwareFile().getName() + ": loading one library instance per mote");
+    }
+  }
+
+  /**
+   * @return Worker processes ticking motes of this type, or null if motes
+   *         are ticked in the simulator process
+   */
+  NativeWorkerPool getWorkerPool() {
+    return workerPool;
+  }
+
+  /**
+   * @return True if every mote of this type executes in its own library instance
+   */
+  public boolean isIsolated() {
+    return isolated;
+  }
+
+  /**
+   * Loads a new instance of the library, with its own global variables.
+   * The instance has been initialized, just like the initial memory.
+   *
+   * @return Library instance
+   * @throws MoteTypeCreationException If library could not be loaded
+   */
+  public CoreComm createIsolatedCoreComm() throws MoteTypeCreationException {
+    CoreComm coreComm = CoreComm.createIsolatedCoreComm(javaClassName, getContikiFirmwareFile());
+    coreComm.setReferenceAddress(referenceVarAddr);
+    return coreComm;
+  }
+
+  /**
+   * Creates mote memory residing in the given library instance.
+   *
+   * @param coreComm Library instance
+   * @return Mote memory
+   */
+  public SectionMoteMemory createNativeMemory(CoreComm coreComm) {
+    /* Each library copy is loaded at its own address */
+    byte[] data = new byte[4];
+    coreComm.getMemory(referenceVarAddr, data.length, data);
+    long instanceOffset = ByteBuffer.wrap(data).order(ByteOrder.nativeOrder()).getInt() & 0xFFFFFFFFL;
+
+    SectionMoteMemory memory = new SectionMoteMemory(new HashMap<String, Symbol>());
+    String[] sectionNames = sectionSymbols.getSectionNames();
+    String[] names = sectionSymbols.getSymbolNames();
+    int[] sections = sectionSymbols.getSymbolSections();
+    long[] addresses = sectionSymbols.getSymbolAddresses();
+    int[] sizes = sectionSymbols.getSymbolSizes();
+    for (int i = 0; i < sectionNames.length; i++) {
+      long start = sectionSymbols.getSectionStarts()[i];
+      int size = sectionSymbols.getSectionSizes()[i];
+      if (start < 0 || size <= 0) {
+        continue;
+      }
+      Map<String, Symbol> symbols = new HashMap<>();
+      for (int s = 0; s < names.length; s++) {
+        if (sections[s] == i) {
+          symbols.put(names[s], new Symbol(
+                  Symbol.Type.VARIABLE,
+                  names[s],
+                  addresses[s] + instanceOffset,
+                  sizes[s]));
+        }
+      }
+      memory.addMemorySection(sectionNames[i], new NativeSectionMemory(
+              coreComm, start + instanceOffset, size, instanceOffset,
+              MemoryLayout.getNative(), symbols));
+    }
+    return memory;
+  }
+
+  private static final String[] COMMAND_PARSER_SETTINGS = {
+    "PARSE_COMMAND", "COMMAND_VAR_NAME_ADDRESS_SIZE",
+    "COMMAND_DATA_START", "COMMAND_DATA_END", "COMMAND_VAR_SEC_DATA",
+    "COMMAND_BSS_START", "COMMAND_BSS_END", "COMMAND_VAR_SEC_BSS",
+    "COMMAND_COMMON_START", "COMMAND_COMMON_END", "COMMAND_VAR_SEC_COMMON"
+  };
+  private static final String[] MAPFILE_PARSER_SETTINGS = {
+    "MAPFILE_DATA_START", "MAPFILE_DATA_SIZE",
+    "MAPFILE_BSS_START", "MAPFILE_BSS_SIZE",
+    "MAPFILE_COMMON_START", "MAPFILE_COMMON_SIZE",
+    "MAPFILE_VAR_NAME", "MAPFILE_VAR_ADDRESS_1", "MAPFILE_VAR_ADDRESS_2",
+    "MAPFILE_VAR_SIZE_1", "MAPFILE_VAR_SIZE_2"
+  };
+
+  /* Describes all settings affecting parsed symbols */
+  private static String getSymbolParserDescription(boolean useCommand) {
+    StringBuilder sb = new StringBuilder(useCommand ? "command" : "mapfile");
+    for (String name : useCommand ? COMMAND_PARSER_SETTINGS : MAPFILE_PARSER_SETTINGS) {
+      sb.append('\n').append(name).append('=').append(Cooja.getExternalToolsSetting(name, ""));
+    }
+    return sb.toString();
+  }
+
+  /* Collects parsed sections, with symbol addresses relative to the firmware */
+  private static FirmwareSymbols createFirmwareSymbols(SectionParser[] parsers, long offset) {
+    String[] sectionNames = { "data", "bss", "common" };
+    long[] sectionStarts = new long[parsers.length];
+    int[] sectionSizes = new int[parsers.length];
+    ArrayList<Symbol> symbols = new ArrayList<>();
+    ArrayList<Integer> symbolSections = new ArrayList<>();
+    for (int i = 0; i < parsers.length; i++) {
+      sectionStarts[i] = parsers[i].getStartAddr();
+      sectionSizes[i] = parsers[i].getSize();
+      if (parsers[i].getVariables() == null) {
+        continue;
+      }
+      for (Symbol symbol : parsers[i].getVariables().values()) {
+        symbols.add(symbol);
+        symbolSections.add(i);
+      }
+    }
+
+    String[] names = new String[symbols.size()];
+    int[] sections = new int[symbols.size()];
+    long[] addresses = new long[symbols.size()];
+    int[] sizes = new int[symbols.size()];
+    for (int i = 0; i < names.length; i++) {
+      Symbol symbol = symbols.get(i);
+      names[i] = symbol.name;
+      sections[i] = symbolSections.get(i);
+      addresses[i] = symbol.addr - offset;
+      sizes[i] = symbol.size;
+    }
+    return new FirmwareSymbols(sectionNames, sectionStarts, sectionSizes,
+            names, sections, addresses, sizes,
+            new String[0], new String[0], new int[0][], new int[0][]);
+  }
+
+  /**
+   * Section parser using previously parsed symbols.
+   */
+  public static class CachedSectionParser extends SectionParser {
+
+    private final FirmwareSymbols symbols;
+    private final int section;
+
+    public CachedSectionParser(FirmwareSymbols symbols, int section) {
+      super(null);
+      this.symbols = symbols;
+      this.section = section;
+    }
+
+    @Override
+    protected void parseStartAddr() {
+      startAddr = (int) symbols.getSectionStarts()[section];
+    }
+
+    @Override
+    protected void parseSize() {
+      size = symbols.getSectionSizes()[section];
+    }
+
+    @Override
+    Map<String, Symbol> parseSymbols(long offset) {
+      Map<String, Symbol> varNames = new HashMap<>();
+      String[] names = symbols.getSymbolNames();
+      int[] sections = symbols.getSymbolSections();
+      long[] addresses = symbols.getSymbolAddresses();
+      int[] sizes = symbols.getSymbolSizes();
+      for (int i = 0; i < names.length; i++) {
+        if (sections[i] != section) {
+          continue;
+        }
+        varNames.put(names[i], new Symbol(
+                Symbol.Type.VARIABLE,
+                names[i],
+                addresses[i] + offset,
+                sizes[i]));
+      }
+      return varNames;
+    }
   }
 
   /**
@@ -1190,6 +1468,14 @@ public class ContikiMoteType implements MoteType {
     return label;
   }
 
+  @Override
+  public void removed() {
+    if (workerPool != null) {
+      workerPool.close();
+      workerPool = null;
+    }
+  }
+
   @Override
   public Collection<Element> getConfigXML(Simulation simulation) {
     ArrayList<Element> config = new ArrayList<>();
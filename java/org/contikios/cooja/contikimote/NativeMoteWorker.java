@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.contikimote;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.LockSupport;
+
+import org.contikios.cooja.CoreComm;
+import org.contikios.cooja.MoteType.MoteTypeCreationException;
+
+/**
+ * Worker process ticking Cooja motes on behalf of a {@link NativeWorkerPool}.
+ *
+ * Usage: NativeMoteWorker [shared file] [class name] [library] [referenceVar address]
+ *
+ * The worker loads the already compiled core communicator class and its
+ * library, and then ticks requested slots in ring order until its standard
+ * input is closed by the simulator, or the simulator exits.
+ */
+public class NativeMoteWorker {
+
+  private static final int SPIN_ITERATIONS = 10 * NativeWorkerPool.SPIN_ITERATIONS;
+  private static final int YIELD_ITERATIONS = SPIN_ITERATIONS + NativeWorkerPool.YIELD_ITERATIONS;
+  private static final long MAX_PARK_NANOS = 1000000;
+
+  public static void main(String[] args) {
+    if (args.length != 4) {
+      System.err.println("Usage: NativeMoteWorker <shared file> <class name> <library> <referenceVar address>");
+      System.exit(1);
+    }
+    try {
+      run(new File(args[0]), args[1], new File(args[2]), Integer.parseInt(args[3]));
+    } catch (IOException e) {
+      System.err.println("Native worker error: " + e.getMessage());
+      System.exit(1);
+    } catch (MoteTypeCreationException e) {
+      System.err.println("Native worker could not load library: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+
+  private static void run(File file, String className, File libFile, int referenceVarAddr)
+      throws IOException, MoteTypeCreationException {
+    MappedByteBuffer buffer;
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+    }
+    buffer.order(ByteOrder.nativeOrder());
+    if (NativeWorkerPool.getAcquire(buffer, NativeWorkerPool.HEADER_MAGIC) != NativeWorkerPool.MAGIC) {
+      throw new IOException("Bad shared file: " + file);
+    }
+    int imageSize = buffer.getInt(NativeWorkerPool.HEADER_IMAGE_SIZE);
+    int nrSlots = buffer.getInt(NativeWorkerPool.HEADER_SLOTS);
+    int nrSections = buffer.getInt(NativeWorkerPool.HEADER_SECTIONS);
+    int[] relAddrs = new int[nrSections];
+    byte[][] sections = new byte[nrSections][];
+    for (int i = 0; i < nrSections; i++) {
+      relAddrs[i] = buffer.getInt(NativeWorkerPool.HEADER_SECTION_TABLE + 8 * i);
+      sections[i] = new byte[buffer.getInt(NativeWorkerPool.HEADER_SECTION_TABLE + 8 * i + 4)];
+    }
+    int headerSize = (NativeWorkerPool.HEADER_SECTION_TABLE + 8 * nrSections + 7) & ~7;
+    int slotSize = (NativeWorkerPool.SLOT_IMAGE + 2 * imageSize + 7) & ~7;
+
+    CoreComm coreComm = CoreComm.loadCoreComm(className, libFile);
+    coreComm.setReferenceAddress(referenceVarAddr);
+
+    exitOnEndOfInput();
+    int slot = 0;
+    int idle = 0;
+    while (true) {
+      int base = headerSize + slot * slotSize;
+      if (NativeWorkerPool.getAcquire(buffer, base + NativeWorkerPool.SLOT_STATE)
+          != NativeWorkerPool.STATE_REQUESTED) {
+        /* Requests are placed in ring order, but may skip slots that are still in use */
+        slot = (slot + 1) % nrSlots;
+        if (slot != 0) {
+          continue;
+        }
+        if (idle < SPIN_ITERATIONS) {
+          idle++;
+        } else if (idle < YIELD_ITERATIONS) {
+          idle++;
+          Thread.yield();
+        } else {
+          /* Back off while simulator is idle */
+          LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1000L * (idle - YIELD_ITERATIONS + 1)));
+          if (idle < YIELD_ITERATIONS + MAX_PARK_NANOS / 1000) {
+            idle++;
+          }
+        }
+        continue;
+      }
+      idle = 0;
+
+      ByteBuffer image = NativeWorkerPool.at(buffer, base + NativeWorkerPool.SLOT_IMAGE);
+      for (int i = 0; i < nrSections; i++) {
+        image.get(sections[i]);
+        coreComm.setMemory(relAddrs[i], sections[i].length, sections[i]);
+      }
+      coreComm.tick();
+      for (int i = 0; i < nrSections; i++) {
+        coreComm.getMemory(relAddrs[i], sections[i].length, sections[i]);
+        image.put(sections[i]);
+      }
+      NativeWorkerPool.putRelease(buffer, base + NativeWorkerPool.SLOT_STATE, NativeWorkerPool.STATE_DONE);
+      slot = (slot + 1) % nrSlots;
+    }
+  }
+
+  /* The simulator holds our standard input open for as long as it uses us */
+  private static void exitOnEndOfInput() {
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        InputStream in = System.in;
+        try {
+          while (in.read() >= 0) {
+            /* Ignore */
+          }
+        } catch (IOException e) {
+          /* Simulator gone */
+        }
+        System.exit(0);
+      }
+    }, "stdin");
+    thread.setDaemon(true);
+    thread.start();
+  }
+}
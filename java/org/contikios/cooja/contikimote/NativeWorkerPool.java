@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.contikimote;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+import org.contikios.cooja.MoteType.MoteTypeCreationException;
+import org.contikios.cooja.mote.memory.MemoryInterface;
+import org.contikios.cooja.mote.memory.SectionMoteMemory;
+
+/**
+ * Ticks Cooja motes of one mote type in local worker processes.
+ *
+ * Each worker process loads its own copy of the mote type library, see
+ * {@link NativeMoteWorker}. A worker shares a memory mapped file with the
+ * simulator, holding a ring of tick slots. The simulator copies a mote's
+ * memory into a free slot and marks it requested. The worker ticks the
+ * library on that memory and writes the resulting memory next to it.
+ *
+ * Ticks are pure functions of the mote memory, just like when the memory is
+ * swapped in and out of a shared library. A completed tick is therefore only
+ * accepted if the mote memory has not changed since it was dispatched.
+ *
+ * A firmware crash terminates the worker process instead of the simulator.
+ */
+class NativeWorkerPool {
+  private static Logger logger = Logger.getLogger(NativeWorkerPool.class);
+
+  /* File header: magic, image size, slot count, section count, then
+   * relative address and size of each section */
+  static final int MAGIC = 0x436f6f6a;
+  static final int HEADER_MAGIC = 0;
+  static final int HEADER_IMAGE_SIZE = 4;
+  static final int HEADER_SLOTS = 8;
+  static final int HEADER_SECTIONS = 12;
+  static final int HEADER_SECTION_TABLE = 16;
+
+  /* Slot: state, then request memory image and result memory image */
+  static final int SLOT_STATE = 0;
+  static final int SLOT_IMAGE = 8;
+
+  static final int STATE_FREE = 0;
+  static final int STATE_REQUESTED = 1;
+  static final int STATE_DONE = 2;
+
+  /* Written to order shared memory accesses, see fence() */
+  private static volatile int fence = 0;
+
+  /* Busy-waiting only helps if the worker runs on another processor */
+  static final int SPIN_ITERATIONS =
+      Runtime.getRuntime().availableProcessors() > 1 ? 10000 : 0;
+  static final int YIELD_ITERATIONS = 100;
+  private static final long PARK_NANOS = 20000;
+
+  private final String[] sectionNames;
+  private final int imageSize;
+  private final int nrSlots;
+  private final Worker[] workers;
+  private final byte[][] compareBuffers;
+  private Thread shutdownHook = null;
+  private boolean closed = false;
+
+  /**
+   * Starts worker processes.
+   *
+   * @param className Core communicator class name, already compiled
+   * @param libFile Library file
+   * @param referenceVarAddr Relative address of referenceVar
+   * @param memory Mote memory layout, addresses offset by offset
+   * @param offset Offset between mote memory and relative library addresses
+   * @param nrWorkers Number of worker processes
+   * @param nrSlots Number of tick slots per worker
+   * @throws MoteTypeCreationException If a worker could not be started
+   */
+  NativeWorkerPool(String className, File libFile, int referenceVarAddr,
+      SectionMoteMemory memory, long offset, int nrWorkers, int nrSlots)
+      throws MoteTypeCreationException {
+    this.nrSlots = nrSlots;
+    sectionNames = memory.getSections().keySet().toArray(new String[0]);
+
+    int headerSize = HEADER_SECTION_TABLE + 8 * sectionNames.length;
+    int[] relAddrs = new int[sectionNames.length];
+    int[] sizes = new int[sectionNames.length];
+    int size = 0;
+    for (int i = 0; i < sectionNames.length; i++) {
+      MemoryInterface section = memory.getSection(sectionNames[i]);
+      relAddrs[i] = (int) (section.getStartAddr() - offset);
+      sizes[i] = section.getTotalSize();
+      size += sizes[i];
+    }
+    imageSize = size;
+    compareBuffers = new byte[sectionNames.length][];
+    for (int i = 0; i < sectionNames.length; i++) {
+      compareBuffers[i] = new byte[sizes[i]];
+    }
+
+    workers = new Worker[nrWorkers];
+    try {
+      for (int i = 0; i < nrWorkers; i++) {
+        workers[i] = new Worker(i, headerSize);
+        ByteBuffer header = workers[i].buffer;
+        header.putInt(HEADER_IMAGE_SIZE, imageSize);
+        header.putInt(HEADER_SLOTS, nrSlots);
+        header.putInt(HEADER_SECTIONS, sectionNames.length);
+        for (int s = 0; s < sectionNames.length; s++) {
+          header.putInt(HEADER_SECTION_TABLE + 8 * s, relAddrs[s]);
+          header.putInt(HEADER_SECTION_TABLE + 8 * s + 4, sizes[s]);
+        }
+        putRelease(header, HEADER_MAGIC, MAGIC);
+        workers[i].start(className, libFile, referenceVarAddr);
+      }
+    } catch (IOException e) {
+      close();
+      throw new MoteTypeCreationException("Error starting native worker: " + e.getMessage(), e);
+    }
+
+    /* Normally closed when the mote type is removed */
+    shutdownHook = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        close();
+      }
+    });
+    Runtime.getRuntime().addShutdownHook(shutdownHook);
+    logger.info(libFile.getName() + ": ticking motes in " + nrWorkers + " worker processes");
+  }
+
+  /**
+   * Starts ticking a mote in the least loaded worker.
+   *
+   * @param memory Mote memory
+   * @return Dispatched tick, or null if all slots are in use
+   */
+  Tick dispatch(SectionMoteMemory memory) {
+    Worker worker = null;
+    for (Worker w : workers) {
+      if (w.inFlight < nrSlots && (worker == null || w.inFlight < worker.inFlight)) {
+        worker = w;
+      }
+    }
+    if (worker == null) {
+      return null;
+    }
+    worker.checkAlive();
+
+    int slot = worker.nextSlot;
+    while (getAcquire(worker.buffer, worker.slotOffset(slot) + SLOT_STATE) != STATE_FREE) {
+      slot = (slot + 1) % nrSlots;
+    }
+    worker.nextSlot = (slot + 1) % nrSlots;
+    worker.inFlight++;
+
+    ByteBuffer image = at(worker.buffer, worker.slotOffset(slot) + SLOT_IMAGE);
+    for (String name : sectionNames) {
+      image.put(memory.getSection(name).getMemory());
+    }
+    putRelease(worker.buffer, worker.slotOffset(slot) + SLOT_STATE, STATE_REQUESTED);
+    return new Tick(worker, slot);
+  }
+
+  /**
+   * Ticks a mote and waits for the result.
+   * If all slots are in use, false is returned and memory is unchanged.
+   *
+   * @param memory Mote memory
+   * @return True if mote was ticked
+   */
+  boolean tick(SectionMoteMemory memory) {
+    Tick tick = dispatch(memory);
+    if (tick == null) {
+      return false;
+    }
+    if (!tick.complete(memory)) {
+      throw new IllegalStateException("Mote memory changed during tick");
+    }
+    return true;
+  }
+
+  /**
+   * Stops all workers and deletes their shared files.
+   */
+  synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    for (Worker worker : workers) {
+      if (worker != null) {
+        worker.close();
+      }
+    }
+    if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+      try {
+        Runtime.getRuntime().removeShutdownHook(shutdownHook);
+      } catch (IllegalStateException e) {
+        /* Already shutting down */
+      }
+    }
+  }
+
+  /**
+   * Orders memory accesses before and after this call, also accesses to
+   * memory shared with worker processes. A volatile write is a full fence.
+   */
+  static void fence() {
+    fence = 0;
+  }
+
+  /**
+   * Reads a slot state. Shared memory reads that follow see at least what
+   * the other process wrote before setting the state.
+   */
+  static int getAcquire(ByteBuffer buffer, int offset) {
+    int value = buffer.getInt(offset);
+    fence();
+    return value;
+  }
+
+  /**
+   * Sets a slot state, after all shared memory writes that precede it.
+   */
+  static void putRelease(ByteBuffer buffer, int offset, int value) {
+    fence();
+    buffer.putInt(offset, value);
+  }
+
+  /**
+   * @return Independent view of buffer, positioned at offset
+   */
+  static ByteBuffer at(ByteBuffer buffer, int offset) {
+    ByteBuffer view = buffer.duplicate();
+    view.position(offset);
+    return view;
+  }
+
+  /**
+   * Mote tick in progress.
+   */
+  class Tick {
+    private final Worker worker;
+    private final int slot;
+
+    private Tick(Worker worker, int slot) {
+      this.worker = worker;
+      this.slot = slot;
+    }
+
+    /**
+     * Waits for the worker to finish the tick. If the mote memory is the same
+     * as when the tick was dispatched, the resulting memory is copied to it.
+     * The slot is freed in any case.
+     *
+     * @param memory Mote memory
+     * @return True if the result was applied, false if the mote memory has
+     *         changed and the tick must be repeated
+     */
+    boolean complete(SectionMoteMemory memory) {
+      int base = worker.slotOffset(slot);
+      worker.await(base + SLOT_STATE);
+
+      ByteBuffer image = at(worker.buffer, base + SLOT_IMAGE);
+      for (int i = 0; i < sectionNames.length; i++) {
+        image.get(compareBuffers[i]);
+        if (!Arrays.equals(compareBuffers[i], memory.getSection(sectionNames[i]).getMemory())) {
+          release();
+          return false;
+        }
+      }
+      for (String name : sectionNames) {
+        image.get(memory.getSection(name).getMemory());
+      }
+      release();
+      return true;
+    }
+
+    /**
+     * Discards the tick result, for example when the mote is removed.
+     */
+    void cancel() {
+      worker.await(worker.slotOffset(slot) + SLOT_STATE);
+      release();
+    }
+
+    private void release() {
+      putRelease(worker.buffer, worker.slotOffset(slot) + SLOT_STATE, STATE_FREE);
+      worker.inFlight--;
+    }
+  }
+
+  private class Worker {
+    private final int index;
+    private final File file;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+    private final int headerSize;
+    private Process process = null;
+
+    /* Accessed from simulation thread only */
+    private int nextSlot = 0;
+    private int inFlight = 0;
+
+    Worker(int index, int headerSize) throws IOException {
+      this.index = index;
+      /* Slots are 8-byte aligned */
+      this.headerSize = (headerSize + 7) & ~7;
+      File dir = new File("/dev/shm");
+      if (!dir.isDirectory() || !dir.canWrite()) {
+        dir = ContikiMoteType.tempOutputDirectory;
+      }
+      file = File.createTempFile("cooja-worker-", ".shm", dir);
+      file.deleteOnExit();
+      raf = new RandomAccessFile(file, "rw");
+      long length = this.headerSize + (long) nrSlots * slotSize();
+      if (length > Integer.MAX_VALUE) {
+        raf.close();
+        throw new IOException("Too many worker slots: " + nrSlots);
+      }
+      buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+      buffer.order(ByteOrder.nativeOrder());
+    }
+
+    private int slotSize() {
+      return (SLOT_IMAGE + 2 * imageSize + 7) & ~7;
+    }
+
+    int slotOffset(int slot) {
+      return headerSize + slot * slotSize();
+    }
+
+    void start(String className, File libFile, int referenceVarAddr) throws IOException {
+      List<String> command = new ArrayList<String>();
+      command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+      command.add("-cp");
+      command.add(System.getProperty("java.class.path"));
+      command.add(NativeMoteWorker.class.getName());
+      command.add(file.getAbsolutePath());
+      command.add(className);
+      command.add(libFile.getAbsolutePath());
+      command.add(String.valueOf(referenceVarAddr));
+      /* Core communicator classes are loaded relative to the working directory.
+       * The worker exits when its standard input is closed, also if the
+       * simulator dies. */
+      process = new ProcessBuilder(command)
+          .directory(new File(System.getProperty("user.dir")))
+          .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+          .redirectError(ProcessBuilder.Redirect.INHERIT)
+          .start();
+    }
+
+    void checkAlive() {
+      if (!process.isAlive()) {
+        throw new RuntimeException("Native worker " + index + " exited with code " + process.exitValue());
+      }
+    }
+
+    /* Waits for slot to be ticked */
+    void await(int stateOffset) {
+      int spins = 0;
+      while (getAcquire(buffer, stateOffset) != STATE_DONE) {
+        if (spins < SPIN_ITERATIONS) {
+          spins++;
+        } else if (spins < SPIN_ITERATIONS + YIELD_ITERATIONS) {
+          spins++;
+          Thread.yield();
+        } else {
+          checkAlive();
+          LockSupport.parkNanos(PARK_NANOS);
+        }
+      }
+    }
+
+    void close() {
+      if (process != null) {
+        OutputStream stdin = process.getOutputStream();
+        try {
+          stdin.close();
+        } catch (IOException e) {
+          /* Worker already exited */
+        }
+        process.destroy();
+      }
+      try {
+        raf.close();
+      } catch (IOException e) {
+        logger.warn("Error closing worker file: " + e.getMessage());
+      }
+      file.delete();
+    }
+  }
+}
@@ -29,6 +29,9 @@
 
 package org.contikios.cooja.contikimote.interfaces;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Collection;
 
 import javax.swing.JPanel;
@@ -36,6 +39,7 @@ import javax.swing.JPanel;
 import org.apache.log4j.Logger;
 import org.jdom.Element;
 
+import org.contikios.cooja.Checkpointable;
 import org.contikios.cooja.Mote;
 import org.contikios.cooja.mote.memory.SectionMoteMemory;
 import org.contikios.cooja.Simulation;
@@ -70,7 +74,7 @@ import org.contikios.cooja.mote.memory.VarMemory;
  *
  * @author Fredrik Osterlind
  */
-public class ContikiClock extends Clock implements ContikiMoteInterface, PolledBeforeActiveTicks, PolledAfterAllTicks {
+public class ContikiClock extends Clock implements ContikiMoteInterface, PolledBeforeActiveTicks, PolledAfterAllTicks, Checkpointable {
   private static Logger logger = Logger.getLogger(ContikiClock.class);
 
   private Simulation simulation;
@@ -172,6 +176,17 @@ public class ContikiClock extends Clock implements ContikiMoteInterface, PolledB
   }
 
 
+  public void saveCheckpoint(DataOutputStream out) throws IOException {
+    out.writeLong(timeDrift);
+    out.writeLong(moteTime);
+  }
+
+  public void restoreCheckpoint(DataInputStream in) throws IOException {
+    /* Contiki time variables are part of the restored mote memory */
+    timeDrift = in.readLong();
+    moteTime = in.readLong();
+  }
+
   public JPanel getInterfaceVisualizer() {
     return null;
   }
@@ -30,6 +30,9 @@
 
 package org.contikios.cooja.contikimote.interfaces;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 
@@ -37,6 +40,7 @@ import org.apache.log4j.Logger;
 import org.jdom.Element;
 
 import org.contikios.cooja.COOJARadioPacket;
+import org.contikios.cooja.Checkpointable;
 import org.contikios.cooja.Mote;
 import org.contikios.cooja.RadioPacket;
 import org.contikios.cooja.mote.memory.SectionMoteMemory;
@@ -88,7 +92,7 @@ import org.contikios.cooja.util.CCITT_CRC;
  *
  * @author Fredrik Osterlind
  */
-public class ContikiRadio extends Radio implements ContikiMoteInterface, PolledAfterActiveTicks {
+public class ContikiRadio extends Radio implements ContikiMoteInterface, PolledAfterActiveTicks, Checkpointable {
   private ContikiMote mote;
 
   private VarMemory myMoteMemory;
@@ -399,6 +403,29 @@ public class ContikiRadio extends Radio implements ContikiMoteInterface, PolledA
          }
   }
 
+  public void saveCheckpoint(DataOutputStream out) throws IOException {
+    out.writeBoolean(radioOn);
+    out.writeBoolean(isTransmitting);
+    out.writeBoolean(isInterfered);
+    out.writeLong(transmissionEndTime);
+    out.writeInt(oldOutputPowerIndicator);
+    out.writeInt(oldRadioChannel);
+    out.writeInt(lastEvent.ordinal());
+    out.writeLong(lastEventTime);
+  }
+
+  public void restoreCheckpoint(DataInputStream in) throws IOException {
+    /* Packet buffers are part of the restored mote memory */
+    radioOn = in.readBoolean();
+    isTransmitting = in.readBoolean();
+    isInterfered = in.readBoolean();
+    transmissionEndTime = in.readLong();
+    oldOutputPowerIndicator = in.readInt();
+    oldRadioChannel = in.readInt();
+    lastEvent = RadioEvent.values()[in.readInt()];
+    lastEventTime = in.readLong();
+  }
+
   public Mote getMote() {
     return mote;
   }
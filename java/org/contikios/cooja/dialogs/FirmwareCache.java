@@ -0,0 +1,502 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.dialogs;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+
+import org.contikios.cooja.Cooja;
+
+/**
+ * Persistent cache of compiled firmware, shared between Cooja instances.
+ *
+ * Entries are keyed by a hash of everything that affects compilation:
+ * the build inputs (sources, headers, Makefiles and linker scripts) of the
+ * application directory by content and of the Contiki source tree by file
+ * paths, sizes and modification times, compile commands (holding target and
+ * flags), compilation environment, and toolchain versions.
+ * Other files, such as simulation configs, logs and copied firmware, change
+ * between runs and are not part of the key.
+ *
+ * Entries are written to a temporary directory and then atomically renamed,
+ * and concurrently running JVMs coordinate via a lock file.
+ * The least recently used entries are evicted when the cache exceeds its
+ * maximum size.
+ *
+ * External tools settings:
+ * FIRMWARE_CACHE - "false" disables the cache
+ * FIRMWARE_CACHE_DIR - Cache directory, default ~/.cooja/firmware-cache
+ * FIRMWARE_CACHE_MAX_SIZE - Maximum cache size in MB, default 1024
+ */
+public class FirmwareCache {
+  private static Logger logger = Logger.getLogger(FirmwareCache.class);
+
+  private static final String LOCK_FILE = ".lock";
+  private static final String TEMP_PREFIX = ".tmp-";
+
+  /* Directories never part of the source tree */
+  private static final String[] IGNORED_DIRS = { ".git", ".svn", "build" };
+  private static final String IGNORED_DIR_PREFIX = "obj_";
+
+  /* File types read by the build */
+  private static final String[] BUILD_INPUT_SUFFIXES = {
+    ".c", ".h", ".s", ".S", ".cc", ".cpp", ".hpp", ".mk", ".ld", ".a"
+  };
+  private static final String BUILD_INPUT_PREFIX = "Makefile";
+
+  /* Environment variables not affecting compilation */
+  private static final String[] IGNORED_ENV = {
+    "PWD", "OLDPWD", "SHLVL", "_", "TERM", "DISPLAY", "WINDOWID", "LS_COLORS",
+    "SSH_CLIENT", "SSH_CONNECTION", "SSH_TTY", "SSH_AUTH_SOCK", "XDG_SESSION_ID",
+    "XDG_RUNTIME_DIR", "DBUS_SESSION_BUS_ADDRESS"
+  };
+
+  private static final Map<String, String> toolchainVersions = new HashMap<String, String>();
+
+  private final File directory;
+  private final long maxSize;
+
+  /**
+   * @param directory Cache directory
+   * @param maxSize Maximum cache size (bytes)
+   */
+  public FirmwareCache(File directory, long maxSize) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @return Firmware cache configured by external tools settings, or null if disabled
+   */
+  public static FirmwareCache getDefault() {
+    if ("false".equalsIgnoreCase(Cooja.getExternalToolsSetting("FIRMWARE_CACHE", "true"))) {
+      return null;
+    }
+    String dir = Cooja.getExternalToolsSetting("FIRMWARE_CACHE_DIR",
+        System.getProperty("user.home") + File.separator + ".cooja" + File.separator + "firmware-cache");
+    long maxSize;
+    try {
+      maxSize = Long.parseLong(Cooja.getExternalToolsSetting("FIRMWARE_CACHE_MAX_SIZE", "1024"))*1024*1024;
+    } catch (NumberFormatException e) {
+      logger.warn("Bad FIRMWARE_CACHE_MAX_SIZE: " + e.getMessage());
+      maxSize = 1024L*1024*1024;
+    }
+    return new FirmwareCache(new File(dir), maxSize);
+  }
+
+  /**
+   * Hashes compilation inputs.
+   *
+   * @param appDir Application directory, build inputs hashed by content
+   * @param sourceTree Contiki source tree, build inputs hashed by file metadata. May be null.
+   * @param commands Compile commands, including target and flags
+   * @param env Compilation environment, or null for the process environment
+   * @param toolchain Toolchain commands, hashed by their version output
+   * @param outputs Output files, excluded from hash
+   * @return Cache key
+   * @throws IOException On file errors
+   */
+  public static String createKey(File appDir, File sourceTree, String commands,
+      String[] env, String[] toolchain, File[] outputs) throws IOException {
+    MessageDigest digest = createDigest();
+
+    HashSet<File> ignored = new HashSet<File>();
+    for (File f: outputs) {
+      if (f != null) {
+        ignored.add(f.getCanonicalFile());
+      }
+    }
+
+    update(digest, "app");
+    hashTree(digest, appDir.getCanonicalFile(), "", ignored, true);
+    if (sourceTree != null && sourceTree.isDirectory()) {
+      update(digest, "contiki");
+      /* Cooja itself does not affect firmware */
+      ignored.add(new File(sourceTree, "tools/cooja").getCanonicalFile());
+      hashTree(digest, sourceTree.getCanonicalFile(), "", ignored, false);
+    }
+
+    update(digest, "commands");
+    update(digest, commands);
+
+    update(digest, "env");
+    TreeMap<String, String> sortedEnv = new TreeMap<String, String>();
+    if (env != null) {
+      for (String e: env) {
+        int eq = e.indexOf('=');
+        sortedEnv.put(eq < 0 ? e : e.substring(0, eq), eq < 0 ? "" : e.substring(eq + 1));
+      }
+    } else {
+      sortedEnv.putAll(System.getenv());
+      for (String name: IGNORED_ENV) {
+        sortedEnv.remove(name);
+      }
+    }
+    for (Map.Entry<String, String> e: sortedEnv.entrySet()) {
+      update(digest, e.getKey() + "=" + e.getValue());
+    }
+
+    return finish(digest, toolchain);
+  }
+
+  /**
+   * Hashes inputs of a command processing individual files.
+   *
+   * @param sources Input files, hashed by content
+   * @param command Command
+   * @param toolchain Toolchain commands, hashed by their version output
+   * @return Cache key
+   * @throws IOException On file errors
+   */
+  public static String createKey(File[] sources, String command, String[] toolchain)
+  throws IOException {
+    MessageDigest digest = createDigest();
+    byte[] buf = new byte[64*1024];
+    for (File source: sources) {
+      update(digest, "source");
+      hashFile(digest, source, buf);
+    }
+    update(digest, "commands");
+    update(digest, command);
+    return finish(digest, toolchain);
+  }
+
+  private static MessageDigest createDigest() throws IOException {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static String finish(MessageDigest digest, String[] toolchain) {
+    update(digest, "toolchain");
+    for (String tool: toolchain) {
+      update(digest, tool + ":" + getToolchainVersion(tool));
+    }
+
+    StringBuilder sb = new StringBuilder();
+    for (byte b: digest.digest()) {
+      sb.append(String.format("%02x", b & 0xff));
+    }
+    return sb.toString();
+  }
+
+  private static void update(MessageDigest digest, String s) {
+    digest.update(s.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+  }
+
+  private static void hashTree(MessageDigest digest, File dir, String path,
+      HashSet<File> ignored, boolean content) throws IOException {
+    String[] names = dir.list();
+    if (names == null) {
+      return;
+    }
+    Arrays.sort(names);
+    byte[] buf = new byte[64*1024];
+    for (String name: names) {
+      File f = new File(dir, name);
+      if (ignored.contains(f)) {
+        continue;
+      }
+      if (f.isDirectory()) {
+        if (Arrays.asList(IGNORED_DIRS).contains(name) || name.startsWith(IGNORED_DIR_PREFIX)) {
+          continue;
+        }
+        hashTree(digest, f, path + name + "/", ignored, content);
+        continue;
+      }
+      if (!isBuildInput(name)) {
+        continue;
+      }
+      update(digest, path + name);
+      if (!content) {
+        update(digest, f.length() + ":" + f.lastModified());
+        continue;
+      }
+      hashFile(digest, f, buf);
+    }
+  }
+
+  private static boolean isBuildInput(String name) {
+    if (name.startsWith(BUILD_INPUT_PREFIX)) {
+      return true;
+    }
+    for (String suffix: BUILD_INPUT_SUFFIXES) {
+      if (name.endsWith(suffix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void hashFile(MessageDigest digest, File f, byte[] buf) throws IOException {
+    InputStream in = new FileInputStream(f);
+    try {
+      int n;
+      while ((n = in.read(buf)) > 0) {
+        digest.update(buf, 0, n);
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  private static synchronized String getToolchainVersion(String tool) {
+    String version = toolchainVersions.get(tool);
+    if (version != null) {
+      return version;
+    }
+    try {
+      Process p = new ProcessBuilder(tool, "--version").redirectErrorStream(true).start();
+      BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream()));
+      version = reader.readLine();
+      while (reader.readLine() != null) {
+        /* Drain */
+      }
+      p.waitFor();
+    } catch (IOException e) {
+      version = null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      version = null;
+    }
+    if (version == null) {
+      version = "unknown";
+    }
+    toolchainVersions.put(tool, version);
+    return version;
+  }
+
+  private interface LockedOperation<T> {
+    public T run() throws IOException;
+  }
+
+  /* Serializes cache operations in this JVM, and locks cache for other JVMs */
+  private <T> T locked(boolean shared, LockedOperation<T> op) throws IOException {
+    synchronized (FirmwareCache.class) {
+      if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+        throw new IOException("Could not create firmware cache: " + directory);
+      }
+      RandomAccessFile lockFile = new RandomAccessFile(new File(directory, LOCK_FILE), "rw");
+      try {
+        FileChannel channel = lockFile.getChannel();
+        FileLock lock = channel.lock(0, Long.MAX_VALUE, shared);
+        try {
+          return op.run();
+        } finally {
+          lock.release();
+        }
+      } finally {
+        lockFile.close();
+      }
+    }
+  }
+
+  /**
+   * Copies cached outputs to their locations.
+   *
+   * @param key Cache key
+   * @param outputs Output files
+   * @return True if outputs were restored from cache
+   */
+  public boolean restore(final String key, final File[] outputs) {
+    try {
+      return locked(true, new LockedOperation<Boolean>() {
+        public Boolean run() throws IOException {
+          File entry = new File(directory, key);
+          for (int i = 0; i < outputs.length; i++) {
+            if (!new File(entry, Integer.toString(i)).isFile()) {
+              return false;
+            }
+          }
+          for (int i = 0; i < outputs.length; i++) {
+            File target = outputs[i];
+            File parent = target.getAbsoluteFile().getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs()) {
+              throw new IOException("Could not create directory: " + parent);
+            }
+            File tmp = File.createTempFile(TEMP_PREFIX, null, parent);
+            Files.copy(new File(entry, Integer.toString(i)).toPath(), tmp.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+          }
+          /* Used recently */
+          entry.setLastModified(System.currentTimeMillis());
+          return true;
+        }
+      });
+    } catch (IOException e) {
+      logger.warn("Could not restore firmware from cache: " + e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Reads a cached output directly from the cache.
+   *
+   * @param key Cache key
+   * @param index Output index
+   * @return Output contents, or null if not cached
+   */
+  public byte[] read(final String key, final int index) {
+    try {
+      return locked(true, new LockedOperation<byte[]>() {
+        public byte[] run() throws IOException {
+          File entry = new File(directory, key);
+          File file = new File(entry, Integer.toString(index));
+          if (!file.isFile()) {
+            return null;
+          }
+          byte[] data = Files.readAllBytes(file.toPath());
+          /* Used recently */
+          entry.setLastModified(System.currentTimeMillis());
+          return data;
+        }
+      });
+    } catch (IOException e) {
+      logger.warn("Could not read from firmware cache: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Stores outputs in cache, and evicts old entries if needed.
+   *
+   * @param key Cache key
+   * @param outputs Output files
+   */
+  public void store(final String key, final File[] outputs) {
+    try {
+      locked(false, new LockedOperation<Void>() {
+        public Void run() throws IOException {
+          File entry = new File(directory, key);
+          if (entry.exists()) {
+            return null;
+          }
+          File tmp = new File(directory, TEMP_PREFIX + key);
+          deleteRecursive(tmp);
+          if (!tmp.mkdir()) {
+            throw new IOException("Could not create directory: " + tmp);
+          }
+          for (int i = 0; i < outputs.length; i++) {
+            Files.copy(outputs[i].toPath(), new File(tmp, Integer.toString(i)).toPath());
+          }
+          Files.move(tmp.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+          evict();
+          return null;
+        }
+      });
+    } catch (IOException e) {
+      logger.warn("Could not store firmware in cache: " + e.getMessage());
+    }
+  }
+
+  private void evict() {
+    File[] entries = directory.listFiles();
+    if (entries == null) {
+      return;
+    }
+    ArrayList<File> list = new ArrayList<File>();
+    final HashMap<File, Long> sizes = new HashMap<File, Long>();
+    long total = 0;
+    for (File e: entries) {
+      if (!e.isDirectory() || e.getName().startsWith(".")) {
+        continue;
+      }
+      long size = 0;
+      File[] files = e.listFiles();
+      if (files != null) {
+        for (File f: files) {
+          size += f.length();
+        }
+      }
+      list.add(e);
+      sizes.put(e, size);
+      total += size;
+    }
+    if (total <= maxSize) {
+      return;
+    }
+
+    /* Least recently used first */
+    final HashMap<File, Long> used = new HashMap<File, Long>();
+    for (File e: list) {
+      used.put(e, e.lastModified());
+    }
+    Collections.sort(list, new Comparator<File>() {
+      public int compare(File a, File b) {
+        return Long.compare(used.get(a), used.get(b));
+      }
+    });
+    for (File e: list) {
+      if (total <= maxSize) {
+        break;
+      }
+      logger.info("Evicting cached firmware: " + e.getName());
+      total -= sizes.get(e);
+      deleteRecursive(e);
+    }
+  }
+
+  private static void deleteRecursive(File f) {
+    File[] files = f.listFiles();
+    if (files != null) {
+      for (File c: files) {
+        deleteRecursive(c);
+      }
+    }
+    f.delete();
+  }
+}
@@ -38,6 +38,7 @@ import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Observable;
@@ -62,9 +63,32 @@ public abstract class SerialUI extends Log implements SerialPort {
 
   private final static int MAX_LENGTH = 16*1024;
 
+  private final static int TRUNCATED_LENGTH = 20;
+  private final static byte[] TRUNCATED_PREFIX =
+      "# [1024 bytes, no line ending]: ".getBytes(StandardCharsets.US_ASCII);
+  private final static byte[] TRUNCATED_SUFFIX = "...".getBytes(StandardCharsets.US_ASCII);
+
+  /* Printable characters: same as regular expression [\p{Print}\p{Blank}] */
+  private final static boolean[] PRINTABLE = new boolean[256];
+  static {
+    for (int c = 0x20; c < 0x7f; c++) {
+      PRINTABLE[c] = true;
+    }
+    PRINTABLE['\t'] = true;
+  }
+
   private byte lastSerialData = 0; /* SerialPort */
-  private String lastLogMessage = ""; /* Log */
-  private StringBuilder newMessage = new StringBuilder(); /* Log */
+
+  /* Log: lines are assembled from printable bytes only */
+  private byte[] newMessage = new byte[256];
+  private int newMessageLength = 0;
+  private int newMessageReceived = 0;
+  private int newMessageTruncated = 0;
+  /* Last line, guarded by logLock: it may be read from the event dispatch thread */
+  private final Object logLock = new Object();
+  private byte[] lastMessage = new byte[256];
+  private int lastMessageLength = 0;
+  private String lastLogMessage = "";
 
   /* Command history */
   private final static int HISTORY_SIZE = 15;
@@ -73,7 +97,12 @@ public abstract class SerialUI extends Log implements SerialPort {
 
   /* Log */
   public String getLastLogMessage() {
-    return lastLogMessage;
+    synchronized (logLock) {
+      if (lastLogMessage == null) {
+        lastLogMessage = new String(lastMessage, 0, lastMessageLength, StandardCharsets.US_ASCII);
+      }
+      return lastLogMessage;
+    }
   }
 
   /* SerialPort */
@@ -101,18 +130,42 @@ public abstract class SerialUI extends Log implements SerialPort {
   public void dataReceived(int data) {
     if (data == '\n') {
       /* Notify observers of new log */
-      lastLogMessage = newMessage.toString();
-      lastLogMessage = lastLogMessage.replaceAll("[^\\p{Print}\\p{Blank}]", "");
-      newMessage.setLength(0);
+      synchronized (logLock) {
+        byte[] tmp = lastMessage;
+        lastMessage = newMessage;
+        lastMessageLength = newMessageLength;
+        lastLogMessage = null;
+        newMessage = tmp;
+      }
+      newMessageLength = 0;
+      newMessageReceived = 0;
       this.setChanged();
       this.notifyObservers(getMote());
     } else {
-      newMessage.append((char) data);
-      if (newMessage.length() > MAX_LENGTH) {
+      if ((data & ~0xff) == 0 && PRINTABLE[data]) {
+        if (newMessageLength == newMessage.length) {
+          newMessage = java.util.Arrays.copyOf(newMessage, 2*newMessageLength);
+        }
+        newMessage[newMessageLength++] = (byte) data;
+      }
+      if (++newMessageReceived == TRUNCATED_LENGTH) {
+        newMessageTruncated = newMessageLength;
+      }
+      if (newMessageReceived > MAX_LENGTH) {
         /*logger.warn("Dropping too large log message (>" + MAX_LENGTH + " bytes).");*/
-        lastLogMessage = "# [1024 bytes, no line ending]: " + newMessage.substring(0, 20) + "...";
-        lastLogMessage = lastLogMessage.replaceAll("[^\\p{Print}\\p{Blank}]", "");
-        newMessage.setLength(0);
+        int length = TRUNCATED_PREFIX.length + newMessageTruncated + TRUNCATED_SUFFIX.length;
+        synchronized (logLock) {
+          if (lastMessage.length < length) {
+            lastMessage = new byte[length];
+          }
+          System.arraycopy(TRUNCATED_PREFIX, 0, lastMessage, 0, TRUNCATED_PREFIX.length);
+          System.arraycopy(newMessage, 0, lastMessage, TRUNCATED_PREFIX.length, newMessageTruncated);
+          System.arraycopy(TRUNCATED_SUFFIX, 0, lastMessage, length - TRUNCATED_SUFFIX.length, TRUNCATED_SUFFIX.length);
+          lastMessageLength = length;
+          lastLogMessage = null;
+        }
+        newMessageLength = 0;
+        newMessageReceived = 0;
         this.setChanged();
         this.notifyObservers(getMote());
       }
@@ -31,6 +31,7 @@
 package org.contikios.cooja.interfaces;
 
 import org.contikios.cooja.*;
+import org.contikios.cooja.util.ArrayUtils;
 
 /**
  * A Log represents a mote logging output. An implementation should notify all
@@ -46,4 +47,59 @@ public abstract class Log extends MoteInterface {
    */
   public abstract String getLastLogMessage();
 
+  /**
+   * Typed alternative to observing logs.
+   * Listeners are notified at the same time as observers, with the new
+   * log message as argument.
+   *
+   * @see Log#addLogMessageListener(LogMessageListener)
+   */
+  public interface LogMessageListener {
+    public void newLogMessage(Log log, String message);
+  }
+
+  private LogMessageListener[] logMessageListeners = new LogMessageListener[0];
+
+  /**
+   * @param listener Log message listener
+   * @see #removeLogMessageListener(LogMessageListener)
+   */
+  public void addLogMessageListener(LogMessageListener listener) {
+    if (ArrayUtils.indexOf(logMessageListeners, listener) >= 0) {
+      return;
+    }
+    logMessageListeners = ArrayUtils.add(logMessageListeners, listener);
+  }
+
+  /**
+   * @param listener Log message listener
+   * @see #addLogMessageListener(LogMessageListener)
+   */
+  public void removeLogMessageListener(LogMessageListener listener) {
+    logMessageListeners = ArrayUtils.remove(logMessageListeners, listener);
+  }
+
+  /**
+   * Notifies observers, if any, followed by log message listeners.
+   * Log implementations notify via this method after each new log message.
+   */
+  @Override
+  public void notifyObservers(Object arg) {
+    if (countObservers() > 0) {
+      super.notifyObservers(arg);
+    } else {
+      clearChanged();
+    }
+
+    LogMessageListener[] listeners = logMessageListeners;
+    if (listeners.length == 0) {
+      return;
+    }
+    String message = getLastLogMessage();
+    /* Same order as observers: last added is notified first */
+    for (int i = listeners.length - 1; i >= 0; i--) {
+      listeners[i].newLogMessage(this, message);
+    }
+  }
+
 }
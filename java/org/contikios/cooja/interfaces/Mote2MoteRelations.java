@@ -81,9 +81,8 @@ public class Mote2MoteRelations extends MoteInterface {
   private ArrayList<Mote> relations = new ArrayList<Mote>();
   private Cooja gui;
 
-  private Observer logObserver = new Observer() {
-    public void update(Observable o, Object arg) {
-      String msg = ((Log) o).getLastLogMessage();
+  private Log.LogMessageListener logListener = new Log.LogMessageListener() {
+    public void newLogMessage(Log log, String msg) {
       handleNewLog(msg);
     };
   };
@@ -101,7 +100,7 @@ public class Mote2MoteRelations extends MoteInterface {
     /* Observe log interfaces */
     for (MoteInterface mi: mote.getInterfaces().getInterfaces()) {
       if (mi instanceof Log) {
-        ((Log)mi).addObserver(logObserver);
+        ((Log)mi).addLogMessageListener(logListener);
       }
     }
 
@@ -132,10 +131,10 @@ public class Mote2MoteRelations extends MoteInterface {
     /* Stop observing log interfaces */
     for (MoteInterface mi: mote.getInterfaces().getInterfaces()) {
       if (mi instanceof Log) {
-        ((Log)mi).deleteObserver(logObserver);
+        ((Log)mi).removeLogMessageListener(logListener);
       }
     }
-    logObserver = null;
+    logListener = null;
 
     /* Remove all relations to other motes */
     Mote[] relationsArr = relations.toArray(new Mote[0]);
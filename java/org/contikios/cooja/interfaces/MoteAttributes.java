@@ -83,9 +83,8 @@ public class MoteAttributes extends MoteInterface {
 
   private HashMap<String, Object> attributes = new HashMap<String, Object>();
 
-  private Observer logObserver = new Observer() {
-    public void update(Observable o, Object arg) {
-      String msg = ((Log) o).getLastLogMessage();
+  private Log.LogMessageListener logListener = new Log.LogMessageListener() {
+    public void newLogMessage(Log log, String msg) {
       handleNewLog(msg);
     };
   };
@@ -100,7 +99,7 @@ public class MoteAttributes extends MoteInterface {
     /* Observe log interfaces */
     for (MoteInterface mi: mote.getInterfaces().getInterfaces()) {
       if (mi instanceof Log) {
-        ((Log)mi).addObserver(logObserver);
+        ((Log)mi).addLogMessageListener(logListener);
       }
     }
   }
@@ -111,10 +110,10 @@ public class MoteAttributes extends MoteInterface {
     /* Stop observing log interfaces */
     for (MoteInterface mi: mote.getInterfaces().getInterfaces()) {
       if (mi instanceof Log) {
-        ((Log)mi).deleteObserver(logObserver);
+        ((Log)mi).removeLogMessageListener(logListener);
       }
     }
-    logObserver = null;
+    logListener = null;
   }
 
   private void handleNewLog(String msg) {
@@ -46,6 +46,7 @@ import org.contikios.cooja.Mote;
 import org.contikios.cooja.MoteInterface;
 import org.contikios.cooja.RadioPacket;
 import org.contikios.cooja.contikimote.interfaces.ContikiRadio;
+import org.contikios.cooja.util.ArrayUtils;
 
 /**
  * A mote radio transceiver.
@@ -70,6 +71,61 @@ public abstract class Radio extends MoteInterface {
     PACKET_TRANSMITTED, CUSTOM_DATA_TRANSMITTED
   }
 
+  /**
+   * Typed alternative to observing radios.
+   * Listeners are notified at the same time as observers, but without
+   * having to cast the observable and query the last radio event.
+   *
+   * @see Radio#addRadioEventListener(RadioEventListener)
+   */
+  public interface RadioEventListener {
+    public void radioEvent(Radio radio, RadioEvent event);
+  }
+
+  private RadioEventListener[] radioEventListeners = new RadioEventListener[0];
+
+  /**
+   * @param listener Radio event listener
+   * @see #removeRadioEventListener(RadioEventListener)
+   */
+  public void addRadioEventListener(RadioEventListener listener) {
+    if (ArrayUtils.indexOf(radioEventListeners, listener) >= 0) {
+      return;
+    }
+    radioEventListeners = ArrayUtils.add(radioEventListeners, listener);
+  }
+
+  /**
+   * @param listener Radio event listener
+   * @see #addRadioEventListener(RadioEventListener)
+   */
+  public void removeRadioEventListener(RadioEventListener listener) {
+    radioEventListeners = ArrayUtils.remove(radioEventListeners, listener);
+  }
+
+  /**
+   * Notifies observers, if any, followed by radio event listeners.
+   * Radio implementations notify via this method after each radio event.
+   */
+  @Override
+  public void notifyObservers(Object arg) {
+    if (countObservers() > 0) {
+      super.notifyObservers(arg);
+    } else {
+      clearChanged();
+    }
+
+    RadioEventListener[] listeners = radioEventListeners;
+    if (listeners.length == 0) {
+      return;
+    }
+    RadioEvent event = getLastEvent();
+    /* Same order as observers: last added is notified first */
+    for (int i = listeners.length - 1; i >= 0; i--) {
+      listeners[i].radioEvent(this, event);
+    }
+  }
+
   /**
    * Register the radio packet that is being received during a connection. This
    * packet should be supplied to the radio medium as soon as possible.
@@ -28,13 +28,14 @@
 
 package org.contikios.cooja.mote.memory;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.log4j.Logger;
 
+import org.contikios.cooja.util.ArrayUtils;
+
 /**
  * Represents a mote memory consisting of non-overlapping memory sections with
  * symbol addresses.
@@ -261,7 +262,7 @@ public class SectionMoteMemory implements MemoryInterface {
   @Override
   public boolean addSegmentMonitor(SegmentMonitor.EventType flag, long address, int size, SegmentMonitor monitor) {
     PolledMemorySegments t = new PolledMemorySegments(monitor, address, size);
-    polledMemories.add(t);
+    polledMemories = ArrayUtils.add(polledMemories, t);
     return true;
   }
 
@@ -271,7 +272,7 @@ public class SectionMoteMemory implements MemoryInterface {
       if (mcm.mm != monitor || mcm.address != address || mcm.size != size) {
         continue;
       }
-      polledMemories.remove(mcm);
+      polledMemories = ArrayUtils.remove(polledMemories, mcm);
       return true;
     }
     return false;
@@ -295,10 +296,12 @@ public class SectionMoteMemory implements MemoryInterface {
     return clone;
   }
 
-  private ArrayList<PolledMemorySegments> polledMemories = new ArrayList<PolledMemorySegments>();
+  private PolledMemorySegments[] polledMemories = new PolledMemorySegments[0];
   public void pollForMemoryChanges() {
-    for (PolledMemorySegments mem: polledMemories.toArray(new PolledMemorySegments[0])) {
-      mem.notifyIfChanged();
+    /* Called after every mote tick: avoid allocations */
+    PolledMemorySegments[] polled = polledMemories;
+    for (int i = 0; i < polled.length; i++) {
+      polled[i].notifyIfChanged();
     }
   }
 
@@ -306,7 +309,11 @@ public class SectionMoteMemory implements MemoryInterface {
     public final SegmentMonitor mm;
     public final long address;
     public final int size;
-    private byte[] oldMem;
+    private final byte[] oldMem;
+
+    /* Array backed section holding the segment, or null */
+    private final byte[] sectionMem;
+    private final int sectionOffset;
 
     public PolledMemorySegments(SegmentMonitor mm, long address, int size) {
       this.mm = mm;
@@ -314,16 +321,42 @@ public class SectionMoteMemory implements MemoryInterface {
       this.size = size;
       
       oldMem = getMemorySegment(address, size);
+
+      MemoryInterface section = null;
+      for (MemoryInterface sec : sections.values()) {
+        if (inSection(sec, address, size)) {
+          section = sec;
+          break;
+        }
+      }
+      if (section instanceof ArrayMemory) {
+        sectionMem = section.getMemory();
+        sectionOffset = (int) (address - section.getStartAddr());
+      } else {
+        sectionMem = null;
+        sectionOffset = 0;
+      }
     }
 
     private void notifyIfChanged() {
-      byte[] newMem = getMemorySegment(address, size);
-      if (Arrays.equals(oldMem, newMem)) {
-        return;
+      if (sectionMem == null) {
+        byte[] newMem = getMemorySegment(address, size);
+        if (Arrays.equals(oldMem, newMem)) {
+          return;
+        }
+        System.arraycopy(newMem, 0, oldMem, 0, size);
+      } else {
+        int i = 0;
+        while (i < size && oldMem[i] == sectionMem[sectionOffset + i]) {
+          i++;
+        }
+        if (i == size) {
+          return;
+        }
+        System.arraycopy(sectionMem, sectionOffset, oldMem, 0, size);
       }
       
       mm.memoryChanged(SectionMoteMemory.this, SegmentMonitor.EventType.WRITE, address);
-      oldMem = newMem;
     }
   }
 
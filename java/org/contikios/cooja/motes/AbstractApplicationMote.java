@@ -31,8 +31,6 @@ package org.contikios.cooja.motes;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Observable;
-import java.util.Observer;
 
 import org.apache.log4j.Logger;
 import org.jdom.Element;
@@ -43,7 +41,6 @@ import org.contikios.cooja.MoteType;
 import org.contikios.cooja.RadioPacket;
 import org.contikios.cooja.mote.memory.SectionMoteMemory;
 import org.contikios.cooja.Simulation;
-import org.contikios.cooja.interfaces.ApplicationRadio;
 import org.contikios.cooja.interfaces.ApplicationSerialPort;
 import org.contikios.cooja.interfaces.Radio;
 import org.contikios.cooja.mote.memory.MemoryInterface;
@@ -67,15 +64,14 @@ public abstract class AbstractApplicationMote extends AbstractWakeupMote impleme
   protected MoteInterfaceHandler moteInterfaces = null;
 
   /* Observe our own radio for incoming radio packets */
-  private Observer radioDataObserver = new Observer() {
+  private Radio.RadioEventListener radioDataListener = new Radio.RadioEventListener() {
     @Override
-    public void update(Observable obs, Object obj) {
-      ApplicationRadio radio = (ApplicationRadio) obs;
-      if (radio.getLastEvent() == Radio.RadioEvent.RECEPTION_FINISHED) {
+    public void radioEvent(Radio radio, Radio.RadioEvent event) {
+      if (event == Radio.RadioEvent.RECEPTION_FINISHED) {
         /* only send in packets when they exist */
         if (radio.getLastPacketReceived() != null)
             receivedPacket(radio.getLastPacketReceived());
-      } else if (radio.getLastEvent() == Radio.RadioEvent.TRANSMISSION_FINISHED) {
+      } else if (event == Radio.RadioEvent.TRANSMISSION_FINISHED) {
         if (radio.getLastPacketTransmitted() != null)
             sentPacket(radio.getLastPacketTransmitted());
       }
@@ -95,7 +91,7 @@ public abstract class AbstractApplicationMote extends AbstractWakeupMote impleme
     MemoryLayout.getNative();
     this.memory = new SectionMoteMemory(new HashMap<String, Symbol>());
     this.moteInterfaces = new MoteInterfaceHandler(this, moteType.getMoteInterfaceClasses());
-    this.moteInterfaces.getRadio().addObserver(radioDataObserver);
+    this.moteInterfaces.getRadio().addRadioEventListener(radioDataListener);
     requestImmediateWakeup();
   }
 
@@ -154,7 +150,7 @@ public abstract class AbstractApplicationMote extends AbstractWakeupMote impleme
       Collection<Element> configXML, boolean visAvailable) {
     setSimulation(simulation);
     this.memory = new SectionMoteMemory(new HashMap<String, Symbol>());
-    moteInterfaces.getRadio().addObserver(radioDataObserver);
+    moteInterfaces.getRadio().addRadioEventListener(radioDataListener);
 
     for (Element element : configXML) {
       String name = element.getName();
@@ -140,6 +140,23 @@ public abstract class AbstractWakeupMote implements Mote {
     return true;
   }
 
+  /**
+   * Reschedules mote software execution at the given time, regardless of
+   * any currently scheduled wakeup. Used when restoring simulation
+   * checkpoints, and may only be called while the simulation is stopped.
+   *
+   * @param time Simulation time, or -1 for no wakeup
+   * @see #getNextWakeupTime()
+   */
+  protected void restoreNextWakeup(long time) {
+    if (executeMoteEvent.isScheduled()) {
+      executeMoteEvent.remove();
+    }
+    if (time >= 0) {
+      simulation.scheduleEvent(executeMoteEvent, time);
+    }
+  }
+
   public void removed() {
   }
   
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.plugins;
+
+import java.awt.BorderLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Observable;
+import java.util.Observer;
+
+import javax.swing.JLabel;
+import javax.swing.Timer;
+
+import org.apache.log4j.Logger;
+import org.jdom.Element;
+
+import org.contikios.cooja.Cooja;
+import org.contikios.cooja.ConvertedRadioPacket;
+import org.contikios.cooja.RadioConnection;
+import org.contikios.cooja.RadioPacket;
+import org.contikios.cooja.Simulation;
+import org.contikios.cooja.VisPlugin;
+import org.contikios.cooja.radiomediums.AbstractRadioMedium;
+import org.contikios.cooja.radiomediums.AbstractRadioMedium.RadioConnectionListener;
+
+/**
+ * Base class for plugins recording finished radio connections to a file.
+ * Subclasses provide the file format; opening, flushing when the
+ * simulation is stopped, closing, status and file configuration are
+ * handled here. Can be run without visualization.
+ */
+public abstract class AbstractRadioRecorder extends VisPlugin
+    implements RadioConnectionListener {
+  private static final long serialVersionUID = 1L;
+  private static Logger logger = Logger.getLogger(AbstractRadioRecorder.class);
+
+  private static final int UPDATE_INTERVAL = 1000; /* ms */
+
+  protected final Simulation simulation;
+  private final AbstractRadioMedium radioMedium;
+  private final String outputName;
+  private Observer simulationObserver = null;
+
+  protected File file = null;
+  private boolean recording = false;
+
+  private JLabel statusLabel = null;
+  private Timer updateTimer = null;
+
+  /**
+   * @param title Plugin title
+   * @param outputName Output description used in log messages
+   * @param simulation Simulation
+   * @param gui Cooja
+   */
+  public AbstractRadioRecorder(String title, String outputName,
+      Simulation simulation, Cooja gui) {
+    super(title, gui, false);
+    this.simulation = simulation;
+    this.radioMedium = (AbstractRadioMedium) simulation.getRadioMedium();
+    this.outputName = outputName;
+
+    if (!Cooja.isVisualized()) {
+      return;
+    }
+
+    statusLabel = new JLabel();
+    add(BorderLayout.CENTER, statusLabel);
+    updateTimer = new Timer(UPDATE_INTERVAL, new ActionListener() {
+      public void actionPerformed(ActionEvent e) {
+        updateStatus();
+      }
+    });
+    setSize(400, 60);
+  }
+
+  /**
+   * Opens output, called once when the plugin is started.
+   *
+   * @throws IOException If output could not be opened
+   */
+  protected abstract void openOutput() throws IOException;
+
+  /**
+   * Writes a finished radio connection to the open output.
+   *
+   * @param conn Radio connection
+   * @throws IOException If output could not be written
+   */
+  protected abstract void writeConnection(RadioConnection conn) throws IOException;
+
+  protected abstract void flushOutput() throws IOException;
+
+  protected abstract void closeOutput() throws IOException;
+
+  /**
+   * @return Status shown while recording
+   */
+  protected abstract String getStatus();
+
+  /**
+   * @param packet Radio packet, may be null
+   * @return Original packet data, or null if not available
+   */
+  protected static byte[] getPacketData(RadioPacket packet) {
+    if (packet instanceof ConvertedRadioPacket) {
+      return ((ConvertedRadioPacket) packet).getOriginalPacketData();
+    }
+    return packet == null ? null : packet.getPacketData();
+  }
+
+  public void startPlugin() {
+    super.startPlugin();
+
+    synchronized (this) {
+      try {
+        openOutput();
+        recording = true;
+      } catch (IOException e) {
+        logger.error("Could not open " + outputName + ": " + e.getMessage(), e);
+        return;
+      }
+    }
+
+    radioMedium.addRadioConnectionListener(this);
+
+    /* Flush output when simulation is stopped */
+    simulation.addObserver(simulationObserver = new Observer() {
+      public void update(Observable obs, Object obj) {
+        if (!simulation.isRunning()) {
+          flush();
+        }
+      }
+    });
+
+    if (updateTimer != null) {
+      updateStatus();
+      updateTimer.start();
+    }
+  }
+
+  public synchronized void connectionFinished(RadioConnection conn) {
+    if (!recording) {
+      return;
+    }
+    try {
+      writeConnection(conn);
+    } catch (IOException e) {
+      logger.error("Could not write " + outputName + ": " + e.getMessage(), e);
+      close();
+    }
+  }
+
+  private synchronized void flush() {
+    if (!recording) {
+      return;
+    }
+    try {
+      flushOutput();
+    } catch (IOException e) {
+      logger.error("Could not write " + outputName + ": " + e.getMessage(), e);
+      close();
+    }
+  }
+
+  private synchronized void close() {
+    if (!recording) {
+      return;
+    }
+    recording = false;
+    try {
+      closeOutput();
+    } catch (IOException e) {
+      logger.error("Could not close " + outputName + ": " + e.getMessage(), e);
+    }
+  }
+
+  private void updateStatus() {
+    String status;
+    synchronized (this) {
+      status = recording ? getStatus() : "Not recording";
+    }
+    statusLabel.setText(status);
+  }
+
+  public void closePlugin() {
+    if (updateTimer != null) {
+      updateTimer.stop();
+    }
+    radioMedium.removeRadioConnectionListener(this);
+    if (simulationObserver != null) {
+      simulation.deleteObserver(simulationObserver);
+    }
+    close();
+  }
+
+  public Collection<Element> getConfigXML() {
+    ArrayList<Element> config = new ArrayList<Element>();
+    if (file != null) {
+      Element element = new Element("file");
+      File portable = simulation.getCooja().createPortablePath(file);
+      element.setText(portable.getPath().replaceAll("\\\\", "/"));
+      config.add(element);
+    }
+    return config;
+  }
+
+  public boolean setConfigXML(Collection<Element> configXML, boolean visAvailable) {
+    for (Element element : configXML) {
+      if ("file".equals(element.getName())) {
+        file = simulation.getCooja().restorePortablePath(new File(element.getText()));
+      }
+    }
+    return true;
+  }
+}
@@ -51,8 +51,15 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.BitSet;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 import javax.swing.AbstractAction;
@@ -85,6 +92,7 @@ import org.jdom.Element;
 import org.contikios.cooja.ClassDescription;
 import org.contikios.cooja.Cooja;
 import org.contikios.cooja.HasQuickHelp;
+import org.contikios.cooja.LogOutputHistory;
 import org.contikios.cooja.Mote;
 import org.contikios.cooja.Plugin;
 import org.contikios.cooja.PluginType;
@@ -142,6 +150,19 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
   private final JTable logTable;
   private TableRowSorter<TableModel> logFilter;
   private ArrayQueue<LogData> logs = new ArrayQueue<LogData>();
+  private int nextSeq = 0;
+
+  /* Filtering is done on a background thread, using an index of all logs */
+  private final LogIndex logIndex = new LogIndex();
+  private final ExecutorService filterExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, "LogListener filter");
+      t.setDaemon(true);
+      return t;
+    }
+  });
+  private volatile int filterGeneration = 0;
+  private volatile LogFilterSpec filterSpec = null;
 
   private Simulation simulation;
 
@@ -183,7 +204,7 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
 
       /* Add */
       int index = logs.size();
-      logs.addAll(ls);
+      addLogs(ls);
       model.fireTableRowsInserted(index, logs.size()-1);
 
       /* Remove old */
@@ -193,6 +214,7 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
         removed++;
       }
       if (removed > 0) {
+        trimIndex();
         model.fireTableRowsDeleted(0, removed-1);
       }
 
@@ -458,16 +480,17 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
     logTable.setComponentPopupMenu(popupMenu);
 */
     /* Fetch log output history */
-    LogOutputEvent[] history = simulation.getEventCentral().getLogOutputHistory();
-    if (history.length > 0) {
-      for (LogOutputEvent historyEv: history) {
-      	if (!hasHours && historyEv.getTime() > TIME_HOUR) {
-      		hasHours = true;
-      		repaintTimeColumn();
-      	}
-        LogData data = new LogData(historyEv);
-        logs.add(data);
+    LogOutputHistory.Cursor history = simulation.getEventCentral().getLogOutputCursor();
+    ArrayList<LogData> historyLogs = new ArrayList<LogData>();
+    while (history.next()) {
+      if (!hasHours && history.getTime() > TIME_HOUR) {
+        hasHours = true;
+        repaintTimeColumn();
       }
+      historyLogs.add(new LogData(history.getEvent()));
+    }
+    if (!historyLogs.isEmpty()) {
+      addLogs(historyLogs);
       java.awt.EventQueue.invokeLater(new Runnable() {
         public void run() {
           model.fireTableDataChanged();
@@ -515,24 +538,6 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
       public void actionPerformed(ActionEvent e) {
         String str = filterTextField.getText();
         setFilter(str);
-
-        /* Autoscroll */
-        SwingUtilities.invokeLater(new Runnable() {
-          public void run() {
-            int s = logTable.getSelectedRow();
-            if (s < 0) {
-              return;
-            }
-
-            s = logTable.getRowSorter().convertRowIndexToView(s);
-            if (s < 0) {
-              return;
-            }
-
-            int v = logTable.getRowHeight()*s;
-            logTable.scrollRectToVisible(new Rectangle(0, v-5, 1, v+5));
-          }
-        });
       }
     });
     filterPanel.add(Box.createHorizontalStrut(2));
@@ -570,6 +575,28 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
     }
   }
 
+  private void addLogs(List<LogData> ls) {
+    for (LogData data: ls) {
+      data.seq = nextSeq++;
+      logs.add(data);
+    }
+    final LogData[] added = ls.toArray(new LogData[ls.size()]);
+    filterExecutor.execute(new Runnable() {
+      public void run() {
+        logIndex.add(added);
+      }
+    });
+  }
+
+  private void trimIndex() {
+    final int firstSeq = logs.isEmpty() ? nextSeq : logs.get(0).seq;
+    filterExecutor.execute(new Runnable() {
+      public void run() {
+        logIndex.trim(firstSeq);
+      }
+    });
+  }
+
   private void repaintTimeColumn() {
   	logTable.getColumnModel().getColumn(COLUMN_TIME).setHeaderValue(
   			logTable.getModel().getColumnName(COLUMN_TIME));
@@ -586,6 +613,8 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
     appendToFile(null, null);
     logUpdateAggregator.stop();
     simulation.getEventCentral().removeLogOutputListener(logOutputListener);
+    filterGeneration++;
+    filterExecutor.shutdownNow();
   }
 
   public Collection<Element> getConfigXML() {
@@ -662,53 +691,104 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
     return filterTextField.getText();
   }
 
+  /**
+   * Sets the filter regular expression. The logs are filtered on a
+   * background thread, and the table is updated when done.
+   *
+   * @param str Regular expression
+   */
   public void setFilter(String str) {
     filterTextField.setText(str);
 
+    Pattern regex = null;
     try {
-    	final RowFilter<Object,Object> regexp;
       if (str != null && str.length() > 0) {
-      	regexp = RowFilter.regexFilter(str, COLUMN_FROM, COLUMN_DATA, COLUMN_CONCAT);
-      } else {
-      	regexp = null;
-      }
-    	RowFilter<Object, Object> wrapped = new RowFilter<Object, Object>() {
-    		public boolean include(RowFilter.Entry<? extends Object, ? extends Object> entry) {
-    		  if (regexp != null) {
-    				boolean pass = regexp.include(entry);
-    				if (inverseFilter && pass) {
-    					return false;
-    				} else if (!inverseFilter && !pass) {
-    					return false;
-    				}
-    			}
-    			if (hideDebug) {
-    				if (entry.getStringValue(COLUMN_DATA).startsWith("DEBUG: ")) {
-    					return false;
-    				}
-    			}
-    			return true;
-    		}
-    	};
-      logFilter.setRowFilter(wrapped);
+        regex = Pattern.compile(str);
+      }
       filterTextField.setBackground(filterTextFieldBackground);
       filterTextField.setToolTipText(null);
     } catch (PatternSyntaxException e) {
-      logFilter.setRowFilter(null);
       filterTextField.setBackground(Color.red);
       filterTextField.setToolTipText("Syntax error in regular expression: " + e.getMessage());
+      filterGeneration++;
+      filterSpec = null;
+      logFilter.setRowFilter(null);
+      simulation.getCooja().getDesktopPane().repaint();
+      return;
+    }
+
+    final int generation = ++filterGeneration;
+    if (regex == null && !hideDebug) {
+      filterSpec = null;
+      logFilter.setRowFilter(null);
+      scrollToSelection();
+      simulation.getCooja().getDesktopPane().repaint();
+      return;
+    }
+
+    final LogFilterSpec spec = new LogFilterSpec(regex, inverseFilter, hideDebug);
+    filterSpec = spec;
+    filterExecutor.execute(new Runnable() {
+      public void run() {
+        final LogFilterResult result = logIndex.filter(spec, generation);
+        if (result == null) {
+          /* Cancelled */
+          return;
+        }
+        java.awt.EventQueue.invokeLater(new Runnable() {
+          public void run() {
+            if (generation != filterGeneration) {
+              return;
+            }
+            logFilter.setRowFilter(new RowFilter<Object, Object>() {
+              public boolean include(RowFilter.Entry<? extends Object, ? extends Object> entry) {
+                LogData d = logs.get((Integer) entry.getIdentifier());
+                if (d.seq >= result.end) {
+                  /* Added after filtering */
+                  return spec.matches(d);
+                }
+                return result.matches.get(d.seq - result.start);
+              }
+            });
+            scrollToSelection();
+            simulation.getCooja().getDesktopPane().repaint();
+          }
+        });
+      }
+    });
+  }
+
+  private void scrollToSelection() {
+    int s = logTable.getSelectedRow();
+    if (s < 0) {
+      return;
+    }
+
+    s = logTable.getRowSorter().convertRowIndexToView(s);
+    if (s < 0) {
+      return;
     }
-    simulation.getCooja().getDesktopPane().repaint();
+
+    int v = logTable.getRowHeight()*s;
+    logTable.scrollRectToVisible(new Rectangle(0, v-5, 1, v+5));
   }
 
   public void trySelectTime(final long time) {
     java.awt.EventQueue.invokeLater(new Runnable() {
       public void run() {
-        for (int i=0; i < logs.size(); i++) {
-          if (logs.get(i).ev.getTime() < time) {
-            continue;
+        /* Logs are ordered by time: find first log at or after time */
+        int low = 0;
+        int high = logs.size();
+        while (low < high) {
+          int mid = (low + high) >>> 1;
+          if (logs.get(mid).ev.getTime() < time) {
+            low = mid + 1;
+          } else {
+            high = mid;
           }
+        }
 
+        for (int i=low; i < logs.size(); i++) {
           int view = logTable.convertRowIndexToView(i);
           if (view < 0) {
             continue;
@@ -721,8 +801,356 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
     });
   }
 
+  /**
+   * Compiled log filter: regular expression matched against the mote ID,
+   * the message, and both combined.
+   */
+  private static class LogFilterSpec {
+    final Pattern regex;
+    final boolean inverse;
+    final boolean hideDebug;
+
+    /* Text that must be contained in all matches, or null */
+    final String literal;
+
+    LogFilterSpec(Pattern regex, boolean inverse, boolean hideDebug) {
+      this.regex = regex;
+      this.inverse = inverse;
+      this.hideDebug = hideDebug;
+      this.literal = regex == null ? null : getRequiredLiteral(regex.pattern());
+    }
+
+    boolean matchesRegex(String id, String message) {
+      return regex.matcher(id).find()
+          || regex.matcher(message).find()
+          || regex.matcher(id + ' ' + message).find();
+    }
+
+    boolean matches(LogData d) {
+      String message = d.ev.getMessage();
+      if (regex != null) {
+        if (matchesRegex(d.getID(), message) == inverse) {
+          return false;
+        }
+      }
+      if (hideDebug && message.startsWith("DEBUG: ")) {
+        return false;
+      }
+      return true;
+    }
+
+    /**
+     * Extracts the longest run of plain characters that any match of the
+     * given regular expression must contain.
+     *
+     * @param regex Regular expression
+     * @return Literal, or null if none could be found
+     */
+    static String getRequiredLiteral(String regex) {
+      if (regex.indexOf('|') >= 0 || regex.contains("(?")) {
+        /* Alternatives or flags */
+        return null;
+      }
+      String best = "";
+      StringBuilder run = new StringBuilder();
+      int depth = 0;
+      for (int i = 0; i < regex.length(); i++) {
+        char c = regex.charAt(i);
+        char literal = 0;
+        if (c == '\\' && i + 1 < regex.length()) {
+          char e = regex.charAt(++i);
+          if (Character.isLetterOrDigit(e)) {
+            if ("dDsSwWbBAzZ".indexOf(e) < 0) {
+              /* Quoting, back references, character codes etc. */
+              return null;
+            }
+          } else {
+            literal = e;
+          }
+        } else if (c == '[') {
+          /* Skip character class */
+          i++;
+          if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+          }
+          if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+          }
+          while (i < regex.length() && regex.charAt(i) != ']') {
+            if (regex.charAt(i) == '\\' || regex.charAt(i) == '[') {
+              return null;
+            }
+            i++;
+          }
+        } else if (c == '(') {
+          depth++;
+        } else if (c == ')') {
+          depth--;
+        } else if (c == '?' || c == '*' || c == '{') {
+          /* Previous character is optional */
+          if (run.length() > 0) {
+            run.setLength(run.length() - 1);
+          }
+          if (c == '{') {
+            i = regex.indexOf('}', i);
+            if (i < 0) {
+              return null;
+            }
+          }
+        } else if (".^$+".indexOf(c) < 0) {
+          literal = c;
+        }
+
+        if (literal != 0 && depth == 0) {
+          run.append(literal);
+        } else {
+          if (run.length() > best.length()) {
+            best = run.toString();
+          }
+          run.setLength(0);
+        }
+      }
+      if (run.length() > best.length()) {
+        best = run.toString();
+      }
+      return best.length() >= LogIndex.GRAM ? best : null;
+    }
+  }
+
+  private static class LogFilterResult {
+    final int start;
+    final int end;
+    final BitSet matches;
+    LogFilterResult(int start, int end, BitSet matches) {
+      this.start = start;
+      this.end = end;
+      this.matches = matches;
+    }
+  }
+
+  /* Sorted log sequence numbers */
+  private static class SeqList {
+    int[] seqs = new int[4];
+    int first = 0;
+    int size = 0;
+
+    void add(int seq) {
+      if (size > first && seqs[size-1] == seq) {
+        return;
+      }
+      if (size == seqs.length) {
+        if (first > size/2) {
+          System.arraycopy(seqs, first, seqs, 0, size - first);
+          size -= first;
+          first = 0;
+        } else {
+          seqs = java.util.Arrays.copyOf(seqs, size*2);
+        }
+      }
+      seqs[size++] = seq;
+    }
+
+    void trim(int firstSeq) {
+      while (first < size && seqs[first] < firstSeq) {
+        first++;
+      }
+    }
+
+    int count() {
+      return size - first;
+    }
+
+    boolean contains(int seq) {
+      return java.util.Arrays.binarySearch(seqs, first, size, seq) >= 0;
+    }
+  }
+
+  /**
+   * Index over all logs shown in the table, maintained by the filter thread.
+   * Logs are indexed by mote, and by the character trigrams of "ID:x message".
+   */
+  private class LogIndex {
+    static final int GRAM = 3;
+
+    private final ArrayQueue<LogData> logs = new ArrayQueue<LogData>();
+    private final HashMap<Integer, SeqList> moteIndex = new HashMap<Integer, SeqList>();
+    private final HashMap<Long, SeqList> gramIndex = new HashMap<Long, SeqList>();
+    private int trimmed = 0;
+
+    void add(LogData[] added) {
+      for (LogData d: added) {
+        logs.add(d);
+
+        Integer id = d.ev.getMote().getID();
+        SeqList moteSeqs = moteIndex.get(id);
+        if (moteSeqs == null) {
+          moteIndex.put(id, moteSeqs = new SeqList());
+        }
+        moteSeqs.add(d.seq);
+
+        String text = d.getID() + ' ' + d.ev.getMessage();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+          Long gram = getGram(text, i);
+          SeqList seqs = gramIndex.get(gram);
+          if (seqs == null) {
+            gramIndex.put(gram, seqs = new SeqList());
+          }
+          seqs.add(d.seq);
+        }
+      }
+    }
+
+    void trim(int firstSeq) {
+      int removed = 0;
+      while (!logs.isEmpty() && logs.get(0).seq < firstSeq) {
+        logs.remove(0);
+        removed++;
+      }
+      if (removed == 0) {
+        return;
+      }
+
+      /* Posting lists are trimmed lazily, and dropped when empty */
+      trimmed += removed;
+      if (trimmed < logs.size()) {
+        return;
+      }
+      trimmed = 0;
+      trimAll(moteIndex, firstSeq);
+      trimAll(gramIndex, firstSeq);
+    }
+
+    private <K> void trimAll(HashMap<K, SeqList> index, int firstSeq) {
+      java.util.Iterator<Map.Entry<K, SeqList>> it = index.entrySet().iterator();
+      while (it.hasNext()) {
+        SeqList seqs = it.next().getValue();
+        seqs.trim(firstSeq);
+        if (seqs.count() == 0) {
+          it.remove();
+        }
+      }
+    }
+
+    private Long getGram(String text, int i) {
+      return ((long)text.charAt(i) << 32) | ((long)text.charAt(i+1) << 16) | text.charAt(i+2);
+    }
+
+    /**
+     * Filters all indexed logs.
+     *
+     * @param spec Filter
+     * @param generation Filter generation, cancels filtering when outdated
+     * @return Result, or null if cancelled
+     */
+    LogFilterResult filter(LogFilterSpec spec, int generation) {
+      int size = logs.size();
+      int start = size == 0 ? 0 : logs.get(0).seq;
+      int end = size == 0 ? 0 : logs.get(size-1).seq + 1;
+      BitSet matches;
+
+      if (spec.regex != null) {
+        /* Find regular expression matches */
+        BitSet regexMatches = new BitSet(size);
+        for (Map.Entry<Integer, SeqList> e: moteIndex.entrySet()) {
+          if (!spec.regex.matcher("ID:" + e.getKey()).find()) {
+            continue;
+          }
+          /* All logs from this mote match */
+          SeqList seqs = e.getValue();
+          for (int i = seqs.first; i < seqs.size; i++) {
+            if (seqs.seqs[i] >= start) {
+              regexMatches.set(seqs.seqs[i] - start);
+            }
+          }
+        }
+
+        SeqList candidates = null;
+        SeqList[] required = null;
+        if (spec.literal != null) {
+          required = new SeqList[spec.literal.length() - GRAM + 1];
+          for (int i = 0; i < required.length; i++) {
+            required[i] = gramIndex.get(getGram(spec.literal, i));
+            if (required[i] == null) {
+              /* No log contains literal */
+              required = new SeqList[0];
+              break;
+            }
+            if (candidates == null || required[i].count() < candidates.count()) {
+              candidates = required[i];
+            }
+          }
+        }
+
+        if (required == null) {
+          /* No index available: check all logs */
+          for (int i = 0; i < size; i++) {
+            if ((i & 0x3ff) == 0 && generation != filterGeneration) {
+              return null;
+            }
+            if (regexMatches.get(i)) {
+              continue;
+            }
+            LogData d = logs.get(i);
+            if (spec.matchesRegex(d.getID(), d.ev.getMessage())) {
+              regexMatches.set(i);
+            }
+          }
+        } else if (candidates != null) {
+          for (int c = candidates.first; c < candidates.size; c++) {
+            if ((c & 0x3ff) == 0 && generation != filterGeneration) {
+              return null;
+            }
+            int seq = candidates.seqs[c];
+            if (seq < start || regexMatches.get(seq - start)) {
+              continue;
+            }
+            boolean all = true;
+            for (SeqList r: required) {
+              if (r != candidates && !r.contains(seq)) {
+                all = false;
+                break;
+              }
+            }
+            if (!all) {
+              continue;
+            }
+            LogData d = logs.get(seq - start);
+            if (spec.matchesRegex(d.getID(), d.ev.getMessage())) {
+              regexMatches.set(seq - start);
+            }
+          }
+        }
+
+        if (spec.inverse) {
+          regexMatches.flip(0, size);
+        }
+        matches = regexMatches;
+      } else {
+        matches = new BitSet(size);
+        matches.set(0, size);
+      }
+
+      if (spec.hideDebug) {
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i+1)) {
+          if (logs.get(i).ev.getMessage().startsWith("DEBUG: ")) {
+            matches.clear(i);
+          }
+        }
+      }
+
+      if (generation != filterGeneration) {
+        return null;
+      }
+      return new LogFilterResult(start, end, matches);
+    }
+  }
+
   private class LogData {
     public final LogOutputEvent ev;
+
+    /* Sequence number, assigned when added to the table */
+    public int seq;
+
     public LogData(LogOutputEvent ev) {
       this.ev = ev;
     }
@@ -939,6 +1367,7 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
     int size = logs.size();
     if (size > 0) {
       logs.clear();
+      trimIndex();
       model.fireTableRowsDeleted(0, size - 1);
     }
   }
@@ -1022,39 +1451,12 @@ public class LogListener extends VisPlugin implements HasQuickHelp {
 
   /* Experimental feature: let other plugins learn if a log output would be filtered or not */
   public boolean filterWouldAccept(LogOutputEvent ev) {
-    RowFilter<? super TableModel, ? super Integer> rowFilter = logFilter.getRowFilter();
-    if (rowFilter == null) {
+    LogFilterSpec spec = filterSpec;
+    if (spec == null) {
       /* No filter */
       return true;
     }
-
-    final LogData ld = new LogData(ev);
-    RowFilter.Entry<? extends TableModel, ? extends Integer> entry = new RowFilter.Entry<TableModel, Integer>() {
-      public TableModel getModel() {
-        return model;
-      }
-      public int getValueCount() {
-        return model.getColumnCount();
-      }
-      public Object getValue(int index) {
-        if (index == COLUMN_TIME) {
-          return ld.getTime();
-        } else if (index == COLUMN_FROM) {
-          return ld.getID();
-        } else if (index == COLUMN_DATA) {
-          return ld.ev.getMessage();
-        } else if (index == COLUMN_CONCAT) {
-          return ld.getID() + ' ' + ld.ev.getMessage();
-        }
-        return null;
-      }
-      public Integer getIdentifier() {
-        return null;
-      }
-    };
-    boolean show;
-    show = rowFilter.include(entry);
-    return show;
+    return spec.matches(new LogData(ev));
   }
   public Color getColorOfEntry(LogOutputEvent logEvent) {
     int color = (10+logEvent.getMote().getID())%10;
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.plugins;
+
+import java.util.Arrays;
+
+import org.contikios.cooja.Mote;
+import org.contikios.cooja.interfaces.Position;
+
+/**
+ * Snapshot of mote positions in a uniform grid, for culling and hit testing.
+ * Motes are identified by their index in the snapshot, which follows
+ * simulation order (and thus paint order).
+ *
+ * The index is immutable; it is rebuilt when motes move, or are added or
+ * removed.
+ *
+ * @see Visualizer#getVisibleMotes()
+ */
+class MoteSpatialIndex {
+  private static final int MOTES_PER_CELL = 4;
+
+  private final Mote[] motes;
+  private final double[] xs, ys;
+
+  private final double minX, minY, maxX, maxY;
+  private final double cellWidth, cellHeight;
+  private final int cols, rows;
+  private final int[] cellStart; /* Index into cellMotes, per cell (+1) */
+  private final int[] cellMotes; /* Mote indices, ordered by cell */
+
+  private final int version;
+
+  MoteSpatialIndex(Mote[] allMotes, int version) {
+    this.version = version;
+
+    /* Snapshot positioned motes */
+    int n = 0;
+    Mote[] ms = new Mote[allMotes.length];
+    double[] px = new double[allMotes.length];
+    double[] py = new double[allMotes.length];
+    for (Mote m: allMotes) {
+      Position pos = m.getInterfaces().getPosition();
+      if (pos == null) {
+        continue;
+      }
+      ms[n] = m;
+      px[n] = pos.getXCoordinate();
+      py[n] = pos.getYCoordinate();
+      n++;
+    }
+    motes = Arrays.copyOf(ms, n);
+    xs = Arrays.copyOf(px, n);
+    ys = Arrays.copyOf(py, n);
+
+    double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+    double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < n; i++) {
+      x0 = Math.min(x0, xs[i]);
+      y0 = Math.min(y0, ys[i]);
+      x1 = Math.max(x1, xs[i]);
+      y1 = Math.max(y1, ys[i]);
+    }
+    minX = x0;
+    minY = y0;
+    maxX = x1;
+    maxY = y1;
+
+    /* Roughly square cells, a few motes per cell */
+    int cells = Math.max(1, n / MOTES_PER_CELL);
+    double w = Math.max(maxX - minX, 1e-9);
+    double h = Math.max(maxY - minY, 1e-9);
+    int c = (int) Math.max(1, Math.min(cells, Math.round(Math.sqrt(cells * w / h))));
+    int r = Math.max(1, Math.min(cells, cells / c));
+    cols = c;
+    rows = r;
+    cellWidth = w / cols;
+    cellHeight = h / rows;
+
+    /* Counting sort of motes by cell */
+    cellStart = new int[cols * rows + 1];
+    int[] cellOf = new int[n];
+    for (int i = 0; i < n; i++) {
+      cellOf[i] = col(xs[i]) + cols * row(ys[i]);
+      cellStart[cellOf[i] + 1]++;
+    }
+    for (int i = 0; i < cols * rows; i++) {
+      cellStart[i + 1] += cellStart[i];
+    }
+    cellMotes = new int[n];
+    int[] fill = Arrays.copyOf(cellStart, cols * rows);
+    for (int i = 0; i < n; i++) {
+      cellMotes[fill[cellOf[i]]++] = i;
+    }
+  }
+
+  private int col(double x) {
+    return Math.max(0, Math.min(cols - 1, (int) ((x - minX) / cellWidth)));
+  }
+
+  private int row(double y) {
+    return Math.max(0, Math.min(rows - 1, (int) ((y - minY) / cellHeight)));
+  }
+
+  int getVersion() {
+    return version;
+  }
+
+  int size() {
+    return motes.length;
+  }
+
+  Mote getMote(int index) {
+    return motes[index];
+  }
+
+  double getX(int index) {
+    return xs[index];
+  }
+
+  double getY(int index) {
+    return ys[index];
+  }
+
+  /**
+   * @param x0 Min X
+   * @param y0 Min Y
+   * @param x1 Max X
+   * @param y1 Max Y
+   * @return Indices of motes in area, in increasing order
+   */
+  int[] query(double x0, double y0, double x1, double y1) {
+    int n = motes.length;
+    if (n == 0 || x1 < minX || x0 > maxX || y1 < minY || y0 > maxY) {
+      return new int[0];
+    }
+    if (x0 <= minX && x1 >= maxX && y0 <= minY && y1 >= maxY) {
+      /* All motes */
+      int[] all = new int[n];
+      for (int i = 0; i < n; i++) {
+        all[i] = i;
+      }
+      return all;
+    }
+
+    int[] found = new int[16];
+    int count = 0;
+    int c1 = col(x1), r1 = row(y1);
+    for (int r = row(y0); r <= r1; r++) {
+      for (int c = col(x0); c <= c1; c++) {
+        int cell = c + cols * r;
+        for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+          int m = cellMotes[i];
+          if (xs[m] < x0 || xs[m] > x1 || ys[m] < y0 || ys[m] > y1) {
+            continue;
+          }
+          if (count == found.length) {
+            found = Arrays.copyOf(found, 2 * count);
+          }
+          found[count++] = m;
+        }
+      }
+    }
+    found = Arrays.copyOf(found, count);
+    Arrays.sort(found);
+    return found;
+  }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.plugins;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTabbedPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+
+import org.contikios.cooja.ClassDescription;
+import org.contikios.cooja.Cooja;
+import org.contikios.cooja.PluginType;
+import org.contikios.cooja.Simulation;
+import org.contikios.cooja.SimulationProfiler;
+import org.contikios.cooja.VisPlugin;
+
+/**
+ * Shows where simulation execution time is spent: per event type, mote,
+ * mote type, radio medium callback and simulation thread invoke.
+ *
+ * @see SimulationProfiler
+ */
+@ClassDescription("Simulation Profiler")
+@PluginType(PluginType.SIM_PLUGIN)
+public class Profiler extends VisPlugin {
+  private static final long serialVersionUID = 1L;
+
+  private static final int UPDATE_INTERVAL = 1000;
+
+  private static final String[] COLUMN_NAMES = {
+    "Name", "Count", "Time (ms)", "%", "Avg (us)", "Max (us)"
+  };
+
+  private final Simulation simulation;
+  private SimulationProfiler profiler;
+
+  /* Profiler installed by this plugin, removed when plugin is closed */
+  private SimulationProfiler ownProfiler = null;
+
+  private final JLabel summaryLabel = new JLabel();
+  private final JButton startButton = new JButton("Start");
+  private final JCheckBox jfrCheckBox = new JCheckBox("JFR events");
+  private final ProfileTableModel[] models;
+
+  public Profiler(Simulation simulation, Cooja gui) {
+    super("Simulation Profiler", gui);
+    this.simulation = simulation;
+
+    SimulationProfiler.Category[] categories = SimulationProfiler.Category.values();
+    models = new ProfileTableModel[categories.length];
+    JTabbedPane tabs = new JTabbedPane();
+    for (int i = 0; i < categories.length; i++) {
+      models[i] = new ProfileTableModel(categories[i]);
+      JTable table = new JTable(models[i]);
+      table.setAutoCreateRowSorter(true);
+      table.getColumnModel().getColumn(0).setPreferredWidth(300);
+      tabs.addTab(categories[i].toString(), new JScrollPane(table));
+    }
+
+    startButton.addActionListener(new ActionListener() {
+      public void actionPerformed(ActionEvent e) {
+        if (profiler == null) {
+          ownProfiler = new SimulationProfiler();
+          ownProfiler.setJFREnabled(jfrCheckBox.isSelected());
+          Profiler.this.simulation.setProfiler(ownProfiler);
+          profiler = ownProfiler;
+        } else {
+          if (Profiler.this.simulation.getProfiler() == profiler) {
+            Profiler.this.simulation.setProfiler(null);
+          }
+          profiler = null;
+          ownProfiler = null;
+        }
+        update();
+      }
+    });
+    JButton resetButton = new JButton("Reset");
+    resetButton.addActionListener(new ActionListener() {
+      public void actionPerformed(ActionEvent e) {
+        final SimulationProfiler p = profiler;
+        if (p == null) {
+          return;
+        }
+        if (Profiler.this.simulation.isRunning()) {
+          /* Reset by simulation thread, outside profiled sections */
+          p.requestReset();
+        } else {
+          p.reset();
+          update();
+        }
+      }
+    });
+    jfrCheckBox.addActionListener(new ActionListener() {
+      public void actionPerformed(ActionEvent e) {
+        if (profiler != null) {
+          jfrCheckBox.setSelected(profiler.setJFREnabled(jfrCheckBox.isSelected()));
+        }
+      }
+    });
+
+    JPanel controlPanel = new JPanel();
+    controlPanel.add(startButton);
+    controlPanel.add(resetButton);
+    controlPanel.add(jfrCheckBox);
+
+    JPanel topPanel = new JPanel(new BorderLayout());
+    topPanel.add(BorderLayout.WEST, controlPanel);
+    topPanel.add(BorderLayout.CENTER, summaryLabel);
+
+    getContentPane().add(BorderLayout.NORTH, topPanel);
+    getContentPane().add(BorderLayout.CENTER, tabs);
+
+    /* Show profiler installed elsewhere, e.g. from a script */
+    profiler = simulation.getProfiler();
+    if (profiler != null) {
+      jfrCheckBox.setSelected(profiler.isJFREnabled());
+    }
+    update();
+    updateTimer.start();
+
+    setSize(new Dimension(600, 400));
+  }
+
+  private void update() {
+    if (profiler == null) {
+      SimulationProfiler p = simulation.getProfiler();
+      if (p != null) {
+        profiler = p;
+      }
+    }
+
+    if (profiler == null) {
+      startButton.setText("Start");
+      summaryLabel.setText("Profiling disabled");
+    } else {
+      startButton.setText("Stop");
+      summaryLabel.setText(String.format("%.1f ms profiled of %.1f ms",
+          profiler.getProfiledNanos()/1e6, profiler.getElapsedNanos()/1e6));
+    }
+    for (ProfileTableModel model: models) {
+      model.update();
+    }
+  }
+
+  private Timer updateTimer = new Timer(UPDATE_INTERVAL, new ActionListener() {
+    public void actionPerformed(ActionEvent e) {
+      if (profiler != null && !simulation.isRunning()) {
+        return;
+      }
+      update();
+    }
+  });
+
+  public void closePlugin() {
+    updateTimer.stop();
+    if (ownProfiler != null && simulation.getProfiler() == ownProfiler) {
+      simulation.setProfiler(null);
+    }
+  }
+
+  private class ProfileTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    private final SimulationProfiler.Category category;
+    private List<SimulationProfiler.Entry> entries = new ArrayList<SimulationProfiler.Entry>();
+    private long profiledNanos = 0;
+
+    private ProfileTableModel(SimulationProfiler.Category category) {
+      this.category = category;
+    }
+
+    private void update() {
+      if (profiler == null) {
+        entries = new ArrayList<SimulationProfiler.Entry>();
+        profiledNanos = 0;
+      } else {
+        entries = profiler.getEntries(category);
+        profiledNanos = profiler.getProfiledNanos();
+      }
+      fireTableDataChanged();
+    }
+
+    public String getColumnName(int col) {
+      return COLUMN_NAMES[col];
+    }
+    public Class<?> getColumnClass(int col) {
+      return col == 0 ? String.class : col == 1 ? Long.class : Double.class;
+    }
+    public int getRowCount() {
+      return entries.size();
+    }
+    public int getColumnCount() {
+      return COLUMN_NAMES.length;
+    }
+    public Object getValueAt(int row, int col) {
+      SimulationProfiler.Entry e = entries.get(row);
+      switch (col) {
+        case 0: return e.name;
+        case 1: return e.getCount();
+        case 2: return e.getNanos()/1e6;
+        case 3: return profiledNanos == 0 ? 0.0 : 100.0*e.getNanos()/profiledNanos;
+        case 4: return e.getNanos()/1e3/e.getCount();
+        case 5: return e.getMaxNanos()/1e3;
+      }
+      return null;
+    }
+  }
+}
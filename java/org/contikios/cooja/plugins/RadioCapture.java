@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.plugins;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import org.jdom.Element;
+
+import org.contikios.cooja.ClassDescription;
+import org.contikios.cooja.Cooja;
+import org.contikios.cooja.PluginType;
+import org.contikios.cooja.RadioConnection;
+import org.contikios.cooja.Simulation;
+import org.contikios.cooja.SupportedArguments;
+import org.contikios.cooja.plugins.analyzers.CaptureExporter;
+import org.contikios.cooja.plugins.analyzers.PcapExporter;
+import org.contikios.cooja.plugins.analyzers.PcapngExporter;
+import org.contikios.cooja.radiomediums.AbstractRadioMedium;
+
+/**
+ * Captures all radio transmissions to a PCAPNG (or PCAP) file.
+ * This plugin can be run without visualization, i.e. from a Contiki test.
+ *
+ * Configuration:
+ * file - Capture file, default radiolog-[time].pcapng
+ * format - pcapng (default) or pcap
+ * maxsize - Rotate capture file when exceeding size in bytes, default 0 (never)
+ */
+@ClassDescription("Radio capture (PCAP)")
+@PluginType(PluginType.SIM_PLUGIN)
+@SupportedArguments(radioMediums = {AbstractRadioMedium.class})
+public class RadioCapture extends AbstractRadioRecorder {
+  private static final long serialVersionUID = 1L;
+
+  private boolean pcapng = true;
+  private long maxFileSize = 0;
+
+  private CaptureExporter exporter = null;
+
+  public RadioCapture(Simulation simulation, Cooja gui) {
+    super("Radio capture", "capture file", simulation, gui);
+  }
+
+  protected void openOutput() throws IOException {
+    exporter = pcapng ? new PcapngExporter() : new PcapExporter();
+    exporter.setMaxFileSize(maxFileSize);
+    exporter.open(file);
+  }
+
+  protected void writeConnection(RadioConnection conn) throws IOException {
+    byte[] data = getPacketData(conn.getSource().getLastPacketTransmitted());
+    if (data == null) {
+      return;
+    }
+    long time = simulation.convertSimTimeToActualTime(conn.getStartTime());
+    if (exporter instanceof PcapngExporter) {
+      ((PcapngExporter) exporter).exportPacketData(
+          conn.getSource().getMote().getID(), data, time*1000);
+    } else {
+      ((PcapExporter) exporter).exportPacketData(data, time);
+    }
+  }
+
+  protected void flushOutput() throws IOException {
+    exporter.flush();
+  }
+
+  protected void closeOutput() throws IOException {
+    try {
+      exporter.close();
+    } finally {
+      exporter = null;
+    }
+  }
+
+  protected String getStatus() {
+    return exporter.getPacketCount() + " packets captured to " + exporter.getFile();
+  }
+
+  public Collection<Element> getConfigXML() {
+    Collection<Element> config = super.getConfigXML();
+    Element element;
+
+    element = new Element("format");
+    element.setText(pcapng ? "pcapng" : "pcap");
+    config.add(element);
+
+    if (maxFileSize > 0) {
+      element = new Element("maxsize");
+      element.setText(Long.toString(maxFileSize));
+      config.add(element);
+    }
+
+    return config;
+  }
+
+  public boolean setConfigXML(Collection<Element> configXML, boolean visAvailable) {
+    for (Element element : configXML) {
+      String name = element.getName();
+      if ("format".equals(name)) {
+        pcapng = !"pcap".equalsIgnoreCase(element.getText().trim());
+      } else if ("maxsize".equals(name)) {
+        maxFileSize = Long.parseLong(element.getText().trim());
+      }
+    }
+    return super.setConfigXML(configXML, visAvailable);
+  }
+}
@@ -43,15 +43,27 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Properties;
-import java.util.regex.PatternSyntaxException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -82,8 +94,10 @@ import org.apache.log4j.Logger;
 import org.jdom.Element;
 
 import org.contikios.cooja.ClassDescription;
+import org.contikios.cooja.COOJARadioPacket;
 import org.contikios.cooja.ConvertedRadioPacket;
 import org.contikios.cooja.Cooja;
+import org.contikios.cooja.Mote;
 import org.contikios.cooja.Plugin;
 import org.contikios.cooja.PluginType;
 import org.contikios.cooja.RadioConnection;
@@ -137,17 +151,50 @@ public class RadioLogger extends VisPlugin {
   private final Simulation simulation;
   private final JTable dataTable;
   private TableRowSorter<TableModel> logFilter;
-  private ArrayList<RadioConnectionLog> connections = new ArrayList<RadioConnectionLog>();
+  private final PacketStore connections = new PacketStore();
+  /* Number of connections shown in table, only accessed from the event dispatch thread */
+  private int connectionsShown = 0;
+  private boolean newConnectionsPending = false;
   private RadioMedium radioMedium;
   private Observer radioMediumObserver;
   private AbstractTableModel model;
 
   private HashMap<String, Action> analyzerMap = new HashMap<String, Action>();
+
+  /* Brief analyzer output per analyzer suite and packet data */
+  private static final int ANALYSIS_CACHE_SIZE = 10000;
+  private final LinkedHashMap<AnalysisKey, String> analysisCache =
+      new LinkedHashMap<AnalysisKey, String>(1024, 0.75f, true) {
+    private static final long serialVersionUID = 1L;
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<AnalysisKey, String> eldest) {
+      return size() > ANALYSIS_CACHE_SIZE;
+    }
+  };
+
+  /* Row filtering is done in the background */
+  private final ExecutorService filterExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+    @Override
+    public Thread newThread(Runnable r) {
+      Thread t = new Thread(r, "RadioLogger filter");
+      t.setDaemon(true);
+      return t;
+    }
+  });
+  private volatile int filterGeneration = 0;
   private String analyzerName = null;
   private ArrayList<PacketAnalyzer> analyzers = null;
+  /* PCAP export is done once per packet, when captured */
+  private static final String PCAP_ANALYZER_NAME = "6lowpan-pcap";
   private IEEE802154Analyzer analyzerWithPcap;
+  private volatile boolean exportPcap = false;
   private File pcapFile;
 
+  /* Hidden duplicates following each row, see getHiddenDuplicates() */
+  private static final int HIDES_UNKNOWN = -1;
+  private static final int HIDES_DUPLICATE = -2;
+  private int[] hiddenDuplicates = new int[0];
+
   private JTextField searchField = new JTextField(30);
 
   public RadioLogger(final Simulation simulationToControl, final Cooja gui) {
@@ -180,7 +227,7 @@ public class RadioLogger extends VisPlugin {
 
     analyzerWithPcap = new IEEE802154Analyzer(true);
     ArrayList<PacketAnalyzer> lowpanAnalyzersPcap = new ArrayList<PacketAnalyzer>();
-    lowpanAnalyzersPcap.add(analyzerWithPcap);
+    lowpanAnalyzersPcap.add(new IEEE802154Analyzer(false));
     lowpanAnalyzersPcap.add(new FragHeadPacketAnalyzer());
     lowpanAnalyzersPcap.add(new IPHCPacketAnalyzer());
     lowpanAnalyzersPcap.add(new IPv6PacketAnalyzer());
@@ -200,7 +247,7 @@ public class RadioLogger extends VisPlugin {
 
       @Override
       public int getRowCount() {
-        return connections.size();
+        return connectionsShown;
       }
 
       @Override
@@ -210,13 +257,16 @@ public class RadioLogger extends VisPlugin {
 
       @Override
       public Object getValueAt(int row, int col) {
-        if (row < 0 || row >= connections.size()) {
+        if (row < 0 || row >= connectionsShown) {
           return "";
         }
         RadioConnectionLog conn = connections.get(row);
         if (col == COLUMN_NO) {
-          if (!showDuplicates && conn.hides > 0) {
-            return (String) "" + (row + 1) + "+" + conn.hides;
+          if (!showDuplicates) {
+            int hides = getHiddenDuplicates(row, conn);
+            if (hides > 0) {
+              return (String) "" + (row + 1) + "+" + hides;
+            }
           }
           return (String) "" + (row + 1);
         } else if (col == COLUMN_TIME) {
@@ -225,22 +275,22 @@ public class RadioLogger extends VisPlugin {
           }
           return Long.toString(conn.startTime / Simulation.MILLISECOND);
         } else if (col == COLUMN_FROM) {
-          return "" + conn.connection.getSource().getMote().getID();
+          return "" + conn.source;
         } else if (col == COLUMN_TO) {
-          Radio[] dests = conn.connection.getDestinations();
+          int[] dests = conn.destinations;
           if (dests.length == 0) {
             return "-";
           }
           if (dests.length == 1) {
-            return "" + dests[0].getMote().getID();
+            return "" + dests[0];
           }
           if (dests.length == 2) {
-            return "" + dests[0].getMote().getID() + ',' + dests[1].getMote().getID();
+            return "" + dests[0] + ',' + dests[1];
           }
           return "[" + dests.length + " d]";
         } else if (col == COLUMN_DATA) {
           if (conn.data == null) {
-            prepareDataString(connections.get(row));
+            prepareDataString(conn);
           }
           if (aliases != null) {
             /* Check if alias exists */
@@ -258,15 +308,20 @@ public class RadioLogger extends VisPlugin {
       public boolean isCellEditable(int row, int col) {
         if (col == COLUMN_FROM) {
           /* Highlight source */
-          gui.signalMoteHighlight(connections.get(row).connection.getSource().getMote());
+          Mote mote = simulation.getMoteWithID(connections.get(row).source);
+          if (mote != null) {
+            gui.signalMoteHighlight(mote);
+          }
           return false;
         }
 
         if (col == COLUMN_TO) {
           /* Highlight all destinations */
-          Radio dests[] = connections.get(row).connection.getDestinations();
-          for (Radio dest: dests) {
-            gui.signalMoteHighlight(dest.getMote());
+          for (int dest: connections.get(row).destinations) {
+            Mote mote = simulation.getMoteWithID(dest);
+            if (mote != null) {
+              gui.signalMoteHighlight(mote);
+            }
           }
           return false;
         }
@@ -275,7 +330,8 @@ public class RadioLogger extends VisPlugin {
 
       @Override
       public Class<?> getColumnClass(int c) {
-        return getValueAt(0, c).getClass();
+        /* All columns are strings: avoid reading a connection */
+        return String.class;
       }
     };
 
@@ -308,9 +364,9 @@ public class RadioLogger extends VisPlugin {
                   + "Duration (us): " + (conn.endTime - conn.startTime)
                   + "</html>";
         } else if (modelColumnIndex == COLUMN_FROM) {
-          return conn.connection.getSource().getMote().toString();
+          return getMoteString(conn.source);
         } else if (modelColumnIndex == COLUMN_TO) {
-          Radio[] dests = conn.connection.getDestinations();
+          int[] dests = conn.destinations;
           if (dests.length == 0) {
             return "No destinations";
           }
@@ -321,8 +377,8 @@ public class RadioLogger extends VisPlugin {
           } else {
             tip.append(dests.length).append(" destinations:<br>");
           }
-          for (Radio radio: dests) {
-            tip.append(radio.getMote()).append("<br>");
+          for (int dest: dests) {
+            tip.append(getMoteString(dest)).append("<br>");
           }
           tip.append("</html>");
           return tip.toString();
@@ -443,7 +499,7 @@ public class RadioLogger extends VisPlugin {
     analyzerMenu.add(rbMenuItem);
 
     rbMenuItem = new JRadioButtonMenuItem(createAnalyzerAction(
-            "6LoWPAN Analyzer with PCAP", "6lowpan-pcap", lowpanAnalyzersPcap, false));
+            "6LoWPAN Analyzer with PCAP", PCAP_ANALYZER_NAME, lowpanAnalyzersPcap, false));
     group.add(rbMenuItem);
     analyzerMenu.add(rbMenuItem);
 
@@ -516,35 +572,30 @@ public class RadioLogger extends VisPlugin {
         if (conn == null) {
           return;
         }
-        final RadioConnectionLog loggedConn = new RadioConnectionLog();
-        loggedConn.packet = conn.getSource().getLastPacketTransmitted();
-        if (loggedConn.packet == null)
+        RadioPacket packet = conn.getSource().getLastPacketTransmitted();
+        if (packet == null)
           return;
-        loggedConn.startTime = conn.getStartTime();
-        loggedConn.endTime = simulation.getSimulationTime();
-        loggedConn.connection = conn;
-        java.awt.EventQueue.invokeLater(new Runnable() {
-          @Override
-          public void run() {
-            int lastSize = connections.size();
-            // Check if the last row is visible
-            boolean isVisible = false;
-            int rowCount = dataTable.getRowCount();
-            if (rowCount > 0) {
-              Rectangle lastRow = dataTable.getCellRect(rowCount - 1, 0, true);
-              Rectangle visible = dataTable.getVisibleRect();
-              isVisible = visible.y <= lastRow.y && visible.y + visible.height >= lastRow.y + lastRow.height;
-            }
-            connections.add(loggedConn);
-            if (connections.size() > lastSize) {
-              model.fireTableRowsInserted(lastSize, connections.size() - 1);
-            }
-            if (isVisible) {
-              dataTable.scrollRectToVisible(dataTable.getCellRect(dataTable.getRowCount() - 1, 0, true));
+        RadioConnectionLog log = new RadioConnectionLog(conn, packet,
+            conn.getStartTime(), simulation.getSimulationTime());
+        connections.add(log);
+        if (exportPcap) {
+          byte[] data = getAnalyzedData(log);
+          if (data != null) {
+            synchronized (analyzerWithPcap) {
+              analyzerWithPcap.exportPcap(new PacketAnalyzer.Packet(data, PacketAnalyzer.MAC_LEVEL,
+                  simulation.convertSimTimeToActualTime(log.startTime)));
             }
-            setTitle("Radio messages: showing " + dataTable.getRowCount() + "/" + connections.size() + " packets");
           }
-        });
+        }
+
+        /* Show all new connections in one go */
+        synchronized (showNewConnections) {
+          if (newConnectionsPending) {
+            return;
+          }
+          newConnectionsPending = true;
+        }
+        java.awt.EventQueue.invokeLater(showNewConnections);
       }
     });
 
@@ -556,6 +607,34 @@ public class RadioLogger extends VisPlugin {
     }
   }
 
+  private final Runnable showNewConnections = new Runnable() {
+    @Override
+    public void run() {
+      synchronized (showNewConnections) {
+        newConnectionsPending = false;
+      }
+      int lastSize = connectionsShown;
+      int size = connections.size();
+      if (size <= lastSize) {
+        return;
+      }
+      // Check if the last row is visible
+      boolean isVisible = false;
+      int rowCount = dataTable.getRowCount();
+      if (rowCount > 0) {
+        Rectangle lastRow = dataTable.getCellRect(rowCount - 1, 0, true);
+        Rectangle visible = dataTable.getVisibleRect();
+        isVisible = visible.y <= lastRow.y && visible.y + visible.height >= lastRow.y + lastRow.height;
+      }
+      connectionsShown = size;
+      model.fireTableRowsInserted(lastSize, size - 1);
+      if (isVisible) {
+        dataTable.scrollRectToVisible(dataTable.getCellRect(dataTable.getRowCount() - 1, 0, true));
+      }
+      setTitle("Radio messages: showing " + dataTable.getRowCount() + "/" + connectionsShown + " packets");
+    }
+  };
+
   @Override
   public void startPlugin() {
     super.startPlugin();
@@ -625,81 +704,204 @@ public class RadioLogger extends VisPlugin {
     });
   }
 
-  private void applyFilter() {
-    for (RadioConnectionLog conn: connections) {
-      conn.data = null;
-      conn.tooltip = null;
-      conn.hides = 0;
-      conn.hiddenBy = null;
+  private static boolean isDuplicate(RadioConnectionLog previous, RadioConnectionLog current) {
+    return previous.source == current.source
+        && Arrays.equals(previous.packet.getPacketData(), current.packet.getPacketData())
+        && Arrays.equals(previous.allDestinations, current.allDestinations);
+  }
+
+  /**
+   * Counts are kept per row, also for rows no longer in memory. A count is
+   * continued from where it stopped, as duplicates may be added at the end.
+   *
+   * @return Number of duplicates directly following the given connection
+   */
+  private int getHiddenDuplicates(int row, RadioConnectionLog conn) {
+    if (row >= hiddenDuplicates.length) {
+      int length = hiddenDuplicates.length;
+      hiddenDuplicates = Arrays.copyOf(hiddenDuplicates, Math.max(row + 1, 2*length));
+      Arrays.fill(hiddenDuplicates, length, hiddenDuplicates.length, HIDES_UNKNOWN);
+    }
+    int hides = hiddenDuplicates[row];
+    if (hides == HIDES_DUPLICATE) {
+      return 0;
+    }
+    if (hides == HIDES_UNKNOWN) {
+      if (row > 0 && isDuplicate(connections.get(row - 1), conn)) {
+        /* Hidden itself */
+        hiddenDuplicates[row] = HIDES_DUPLICATE;
+        return 0;
+      }
+      hides = 0;
+    }
+    RadioConnectionLog previous = hides == 0 ? conn : connections.get(row + hides);
+    for (int r = row + hides + 1; r < connectionsShown; r++) {
+      RadioConnectionLog next = connections.get(r);
+      if (!isDuplicate(previous, next)) {
+        break;
+      }
+      hides++;
+      previous = next;
     }
+    hiddenDuplicates[row] = hides;
+    return hides;
+  }
 
-    try {
-      logFilter.setRowFilter(null);
-      RowFilter<Object, Object> filter = new RowFilter<Object, Object>() {
-        @Override
-        public boolean include(RowFilter.Entry<? extends Object, ? extends Object> entry) {
-          int row = (Integer) entry.getIdentifier();
-          RadioConnectionLog current = connections.get(row);
-          byte[] currentData = current.packet.getPacketData();
-
-          if (!showDuplicates && row > 0) {
-            RadioConnectionLog previous = connections.get(row - 1);
-            byte[] previousData = previous.packet.getPacketData();
-            if (!showDuplicates
-                    && Arrays.equals(previousData, currentData)
-                    && previous.connection.getSource() == current.connection.getSource()
-                    && Arrays.equals(previous.connection.getAllDestinations(), current.connection.getAllDestinations())) {
-              if (connections.get(row - 1).hiddenBy == null) {
-                connections.get(row - 1).hides++;
-                connections.get(row).hiddenBy = connections.get(row - 1);
-              } else {
-                connections.get(row - 1).hiddenBy.hides++;
-                connections.get(row).hiddenBy = connections.get(row - 1).hiddenBy;
-              }
-              return false;
-            }
+  private String getMoteString(int id) {
+    Mote mote = simulation.getMoteWithID(id);
+    if (mote == null) {
+      return "Mote " + id;
+    }
+    return mote.toString();
+  }
+
+  private boolean isVisible(int row, boolean showDuplicates, boolean hideNoDestinationPackets) {
+    RadioConnectionLog current = connections.get(row);
+
+    if (!showDuplicates && row > 0) {
+      if (isDuplicate(connections.get(row - 1), current)) {
+        return false;
+      }
+    }
+
+    if (hideNoDestinationPackets) {
+      if (current.destinations.length == 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Re-filters all rows on the filter executor, and installs the resulting
+   * row filter when done. Must be called from the event dispatch thread.
+   */
+  private void applyFilter() {
+    connections.clearCachedStrings();
+
+    final int generation = ++filterGeneration;
+    final boolean showDuplicates = this.showDuplicates;
+    final boolean hideNoDestinationPackets = this.hideNoDestinationPackets;
+    filterExecutor.execute(new Runnable() {
+      @Override
+      public void run() {
+        final int size = connections.size();
+        final BitSet visible = new BitSet(size);
+        for (int row = 0; row < size; row++) {
+          if (generation != filterGeneration) {
+            /* Superseded by newer filter */
+            return;
           }
+          if (isVisible(row, showDuplicates, hideNoDestinationPackets)) {
+            visible.set(row);
+          }
+        }
 
-          if (hideNoDestinationPackets) {
-            if (current.connection.getDestinations().length == 0) {
-              return false;
+        java.awt.EventQueue.invokeLater(new Runnable() {
+          @Override
+          public void run() {
+            if (generation != filterGeneration) {
+              return;
             }
+            logFilter.setRowFilter(createRowFilter(size, visible, showDuplicates, hideNoDestinationPackets));
+            setTitle("Radio messages: showing " + dataTable.getRowCount() + "/" + connectionsShown + " packets");
           }
+        });
+      }
+    });
+  }
 
-          return true;
+  /**
+   * @param size Number of filtered rows
+   * @param visible Visible filtered rows
+   * @param showDuplicates Show duplicates
+   * @param hideNoDestinationPackets Hide packets without destinations
+   * @return Row filter, filtering rows added later on demand
+   */
+  private RowFilter<Object, Object> createRowFilter(final int size, final BitSet visible,
+      final boolean showDuplicates, final boolean hideNoDestinationPackets) {
+    return new RowFilter<Object, Object>() {
+      @Override
+      public boolean include(RowFilter.Entry<? extends Object, ? extends Object> entry) {
+        int row = (Integer) entry.getIdentifier();
+        if (row < size) {
+          return visible.get(row);
         }
-      };
-      logFilter.setRowFilter(filter);
-    } catch (PatternSyntaxException e) {
-      logFilter.setRowFilter(null);
-      logger.warn("Error when setting table filter: " + e.getMessage());
-    }
+        /* Added after filtering */
+        return isVisible(row, showDuplicates, hideNoDestinationPackets);
+      }
+    };
   }
 
-  private void prepareDataString(RadioConnectionLog conn) {
-    byte[] data;
+  private static byte[] getAnalyzedData(RadioConnectionLog conn) {
     if (conn.packet == null) {
-      data = null;
+      return null;
     } else if (conn.packet instanceof ConvertedRadioPacket) {
-      data = ((ConvertedRadioPacket) conn.packet).getOriginalPacketData();
+      return ((ConvertedRadioPacket) conn.packet).getOriginalPacketData();
     } else {
-      data = conn.packet.getPacketData();
+      return conn.packet.getPacketData();
     }
+  }
+
+  private boolean isAnalysisCacheable() {
+    return analyzers != null && analyzerName != null;
+  }
+
+  private void prepareDataString(RadioConnectionLog conn) {
+    byte[] data = getAnalyzedData(conn);
     if (data == null) {
       conn.data = "[unknown data]";
       return;
     }
 
+    boolean cacheable = isAnalysisCacheable();
+    AnalysisKey key = null;
+    if (cacheable) {
+      key = new AnalysisKey(analyzerName, data);
+      synchronized (analysisCache) {
+        String cached = analysisCache.get(key);
+        if (cached != null) {
+          conn.data = cached;
+          return;
+        }
+      }
+    }
+
     StringBuilder brief = new StringBuilder();
     StringBuilder verbose = new StringBuilder();
+    if (analyzePacketData(conn, data, brief, verbose, false)) {
+      conn.data = (data.length < 100 ? (data.length < 10 ? "  " : " ") : "")
+              + data.length + ": " + brief;
+    } else {
+      conn.data = data.length + ": 0x" + StringUtils.toHex(data, 4);
+    }
+
+    if (cacheable) {
+      synchronized (analysisCache) {
+        analysisCache.put(key, conn.data);
+      }
+    }
+  }
 
-    /* default analyzer */
+  /**
+   * Runs the analyzer chain on the given packet data, and appends any
+   * remaining payload.
+   *
+   * @param withVerbose If false, verbose output is not needed
+   * @return True if packet was analyzed
+   */
+  private boolean analyzePacketData(RadioConnectionLog conn, byte[] data,
+                                    StringBuilder brief, StringBuilder verbose, boolean withVerbose) {
     PacketAnalyzer.Packet packet = new PacketAnalyzer.Packet(data, PacketAnalyzer.MAC_LEVEL,
                                                              simulation.convertSimTimeToActualTime(conn.startTime));
-    if (analyzePacket(packet, brief, verbose)) {
-      if (packet.hasMoreData()) {
-        byte[] payload = packet.getPayload();
-        brief.append(StringUtils.toHex(payload, 4));
+    if (!analyzePacket(packet, brief, verbose)) {
+      return false;
+    }
+    if (packet.hasMoreData()) {
+      byte[] payload = packet.getPayload();
+      brief.append(StringUtils.toHex(payload, 4));
+      if (withVerbose) {
         if (verbose.length() > 0) {
           verbose.append("<p>");
         }
@@ -708,18 +910,55 @@ public class RadioLogger extends VisPlugin {
                 .append(StringUtils.hexDump(payload))
                 .append("</pre>");
       }
-      conn.data = (data.length < 100 ? (data.length < 10 ? "  " : " ") : "")
-              + data.length + ": " + brief;
-      if (verbose.length() > 0) {
-        conn.tooltip = verbose.toString();
+    }
+    return true;
+  }
+
+  /**
+   * Packet data and protocol analysis cache key.
+   */
+  private static class AnalysisKey {
+    private final String suite;
+    private final byte[] data;
+    private final int hash;
+
+    AnalysisKey(String suite, byte[] data) {
+      this.suite = suite;
+      this.data = data;
+      this.hash = 31*suite.hashCode() + Arrays.hashCode(data);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof AnalysisKey)) {
+        return false;
       }
-    } else {
-      conn.data = data.length + ": 0x" + StringUtils.toHex(data, 4);
+      AnalysisKey k = (AnalysisKey) o;
+      return hash == k.hash && suite.equals(k.suite) && Arrays.equals(data, k.data);
     }
   }
 
   private boolean analyzePacket(PacketAnalyzer.Packet packet, StringBuilder brief, StringBuilder verbose) {
     if (analyzers == null) return false;
+    return analyzePacket(analyzers, packet, brief, verbose);
+  }
+
+  /**
+   * Runs a packet through a chain of analyzers, until no analyzer continues.
+   *
+   * @param analyzers Analyzer chain
+   * @param packet Packet, consumed by the analyzers
+   * @param brief Brief analysis output
+   * @param verbose Verbose analysis output
+   * @return True if packet was analyzed
+   */
+  public static boolean analyzePacket(List<PacketAnalyzer> analyzers, PacketAnalyzer.Packet packet,
+                                      StringBuilder brief, StringBuilder verbose) {
     try {
       boolean analyze = true;
       while (analyze) {
@@ -756,6 +995,17 @@ public class RadioLogger extends VisPlugin {
       return;
     }
 
+    /* Verbose analysis is only done when needed */
+    byte[] analyzed = getAnalyzedData(conn);
+    if (analyzed != null && isAnalysisCacheable()) {
+      StringBuilder verbose = new StringBuilder();
+      if (analyzePacketData(conn, analyzed, new StringBuilder(), verbose, true)
+          && verbose.length() > 0) {
+        conn.tooltip = verbose.toString();
+        return;
+      }
+    }
+
     if (packet instanceof ConvertedRadioPacket && packet.getPacketData().length > 0) {
       byte[] original = ((ConvertedRadioPacket) packet).getOriginalPacketData();
       byte[] converted = ((ConvertedRadioPacket) packet).getPacketData();
@@ -788,6 +1038,12 @@ public class RadioLogger extends VisPlugin {
     if (radioMediumObserver != null) {
       radioMedium.deleteRadioTransmissionObserver(radioMediumObserver);
     }
+    filterGeneration++;
+    filterExecutor.shutdownNow();
+    connections.close();
+    synchronized (analyzerWithPcap) {
+      analyzerWithPcap.closePcap();
+    }
   }
 
   @Override
@@ -878,40 +1134,422 @@ public class RadioLogger extends VisPlugin {
 
   private class RadioConnectionLog {
 
-    long startTime;
-    long endTime;
-    RadioConnection connection;
-    RadioPacket packet;
-
-    RadioConnectionLog hiddenBy = null;
-    int hides = 0;
+    final long startTime;
+    final long endTime;
+    /* Mote IDs */
+    final int source;
+    final int[] destinations;
+    final int[] allDestinations;
+    final RadioPacket packet;
 
     String data = null;
     String tooltip = null;
 
+    RadioConnectionLog(RadioConnection conn, RadioPacket packet, long startTime, long endTime) {
+      this(startTime, endTime, conn.getSource().getMote().getID(),
+          getMoteIDs(conn.getDestinations()), getMoteIDs(conn.getAllDestinations()), packet);
+    }
+
+    RadioConnectionLog(long startTime, long endTime, int source, int[] destinations, int[] allDestinations, RadioPacket packet) {
+      this.startTime = startTime;
+      this.endTime = endTime;
+      this.source = source;
+      this.destinations = destinations;
+      this.allDestinations = allDestinations;
+      this.packet = packet;
+    }
+
     @Override
     public String toString() {
       if (data == null) {
         RadioLogger.this.prepareDataString(this);
       }
       return Long.toString(startTime / Simulation.MILLISECOND) + "\t"
-              + connection.getSource().getMote().getID() + "\t"
+              + source + "\t"
               + getDestString(this) + "\t"
               + data;
     }
   }
 
+  /**
+   * Logged radio connections.
+   *
+   * The most recent connections are kept in memory. Older connections are
+   * appended to a temporary binary log file, and are read back on demand via
+   * memory mapped file windows. A small cache keeps recently read connections,
+   * including their analyzer output.
+   *
+   * Spilled connections still cost some heap per row: their file offset
+   * here, and the per-row state of the table's row sorter and filter.
+   * If the log file cannot be written, spilling is turned off and connections
+   * not yet written are moved back into memory.
+   *
+   * All methods are synchronized: connections are added from the simulation
+   * thread and read from the event dispatch thread.
+   */
+  private class PacketStore {
+    private static final int MEMORY_CONNECTIONS = 5000;
+    private static final int CACHED_CONNECTIONS = 1000;
+    private static final int WINDOW_SIZE = 16*1024*1024;
+    private static final int WRITE_BUFFER_SIZE = 64*1024;
+
+    /* Most recent connections */
+    private RadioConnectionLog[] ring = new RadioConnectionLog[MEMORY_CONNECTIONS];
+    private int ringFirst = 0;
+    private int ringCount = 0;
+
+    /* Connections in log file, with file offsets */
+    private int spilled = 0;
+    private long[] offsets = new long[1024];
+
+    private File file = null;
+    private RandomAccessFile raf = null;
+    private FileChannel channel = null;
+    private boolean fileFailed = false;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    private long fileLength = 0; /* Bytes written to file, excluding write buffer */
+    private final ArrayList<RadioConnectionLog> buffered = new ArrayList<RadioConnectionLog>(); /* In write buffer */
+    private MappedByteBuffer[] windows = new MappedByteBuffer[0];
+
+    private final LinkedHashMap<Integer, RadioConnectionLog> cache =
+        new LinkedHashMap<Integer, RadioConnectionLog>(CACHED_CONNECTIONS, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, RadioConnectionLog> eldest) {
+        return size() > CACHED_CONNECTIONS;
+      }
+    };
+
+    public synchronized int size() {
+      return spilled + ringCount;
+    }
+
+    public synchronized void add(RadioConnectionLog conn) {
+      if (ringCount == ring.length) {
+        if (spill(ring[ringFirst])) {
+          ring[ringFirst] = null;
+          ringFirst = (ringFirst + 1) % ring.length;
+          ringCount--;
+        }
+        if (ringCount == ring.length) {
+          /* No log file: keep all connections in memory */
+          growRing();
+        }
+      }
+      ring[(ringFirst + ringCount) % ring.length] = conn;
+      ringCount++;
+    }
+
+    public synchronized RadioConnectionLog get(int index) {
+      if (index >= spilled) {
+        return ring[(ringFirst + index - spilled) % ring.length];
+      }
+      RadioConnectionLog conn = cache.get(index);
+      if (conn == null) {
+        try {
+          conn = read(offsets[index]);
+        } catch (IOException e) {
+          logger.warn("Failed reading radio log: " + e.getMessage());
+          if (index >= spilled) {
+            /* Moved back into memory */
+            return get(index);
+          }
+          conn = new RadioConnectionLog(0, 0, -1, new int[0], new int[0], new COOJARadioPacket(new byte[0]));
+        }
+        cache.put(index, conn);
+      }
+      return conn;
+    }
+
+    /**
+     * Forgets analyzer output of all connections.
+     */
+    public synchronized void clearCachedStrings() {
+      for (int i = 0; i < ringCount; i++) {
+        RadioConnectionLog conn = ring[(ringFirst + i) % ring.length];
+        conn.data = null;
+        conn.tooltip = null;
+      }
+      cache.clear();
+    }
+
+    public synchronized void clear() {
+      Arrays.fill(ring, null);
+      ringFirst = 0;
+      ringCount = 0;
+      spilled = 0;
+      cache.clear();
+      windows = new MappedByteBuffer[0];
+      writeBuffer.clear();
+      buffered.clear();
+      fileLength = 0;
+      /* The file may still be mapped: continue in a new file */
+      closeFile();
+    }
+
+    public synchronized void close() {
+      clear();
+    }
+
+    private void closeFile() {
+      if (raf != null) {
+        try {
+          raf.close();
+        } catch (IOException e) {
+        }
+        raf = null;
+        channel = null;
+      }
+      if (file != null) {
+        if (!file.delete()) {
+          file.deleteOnExit();
+        }
+        file = null;
+      }
+    }
+
+    private void growRing() {
+      RadioConnectionLog[] grown = new RadioConnectionLog[ring.length*2];
+      for (int i = 0; i < ringCount; i++) {
+        grown[i] = ring[(ringFirst + i) % ring.length];
+      }
+      ring = grown;
+      ringFirst = 0;
+    }
+
+    private void prependToRing(RadioConnectionLog conn) {
+      if (ringCount == ring.length) {
+        growRing();
+      }
+      ringFirst = (ringFirst - 1 + ring.length) % ring.length;
+      ring[ringFirst] = conn;
+      ringCount++;
+    }
+
+    /**
+     * Turns off spilling after a failed write. Connections in the write
+     * buffer are moved back into memory, so that offsets only refer to
+     * connections completely written to the log file.
+     */
+    private void disableSpilling() {
+      fileFailed = true;
+      writeBuffer.clear();
+      for (int i = buffered.size() - 1; i >= 0; i--) {
+        prependToRing(buffered.get(i));
+      }
+      spilled -= buffered.size();
+      buffered.clear();
+      Iterator<Integer> it = cache.keySet().iterator();
+      while (it.hasNext()) {
+        if (it.next() >= spilled) {
+          it.remove();
+        }
+      }
+    }
+
+    private boolean spill(RadioConnectionLog conn) {
+      if (fileFailed) {
+        return false;
+      }
+      if (channel == null) {
+        try {
+          file = File.createTempFile("cooja-radiolog", ".bin");
+          file.deleteOnExit();
+          raf = new RandomAccessFile(file, "rw");
+          channel = raf.getChannel();
+        } catch (IOException e) {
+          logger.warn("Failed creating radio log file, keeping all packets in memory: " + e.getMessage());
+          fileFailed = true;
+          return false;
+        }
+      }
+
+      byte[] data = conn.packet.getPacketData();
+      byte[] original = null;
+      if (conn.packet instanceof ConvertedRadioPacket) {
+        original = ((ConvertedRadioPacket) conn.packet).getOriginalPacketData();
+      }
+      int length = 8 + 8 + 4
+          + 4 + 4*conn.destinations.length
+          + 4 + 4*conn.allDestinations.length
+          + 4 + (data == null ? 0 : data.length)
+          + 4 + (original == null ? 0 : original.length);
+
+      ByteBuffer buf = writeBuffer;
+      if (4 + length > buf.remaining()) {
+        try {
+          flush();
+        } catch (IOException e) {
+          logger.warn("Failed writing radio log, keeping new packets in memory: " + e.getMessage());
+          return false;
+        }
+        if (4 + length > buf.capacity()) {
+          buf = ByteBuffer.allocate(4 + length);
+        }
+      }
+      long offset = fileLength + writeBuffer.position();
+      buf.putInt(length);
+      buf.putLong(conn.startTime);
+      buf.putLong(conn.endTime);
+      buf.putInt(conn.source);
+      putInts(buf, conn.destinations);
+      putInts(buf, conn.allDestinations);
+      putBytes(buf, data);
+      putBytes(buf, original);
+      if (buf != writeBuffer) {
+        /* Larger than write buffer: write directly */
+        buf.flip();
+        long written = 0;
+        try {
+          while (buf.hasRemaining()) {
+            written += channel.write(buf, fileLength + written);
+          }
+        } catch (IOException e) {
+          logger.warn("Failed writing radio log, keeping new packets in memory: " + e.getMessage());
+          disableSpilling();
+          return false;
+        }
+        fileLength += written;
+      } else {
+        buffered.add(conn);
+      }
+
+      if (spilled == offsets.length) {
+        offsets = Arrays.copyOf(offsets, offsets.length*2);
+      }
+      offsets[spilled++] = offset;
+      return true;
+    }
+
+    /* On failure, spilling is disabled and the file length is left unchanged */
+    private void flush() throws IOException {
+      writeBuffer.flip();
+      long written = 0;
+      try {
+        while (writeBuffer.hasRemaining()) {
+          written += channel.write(writeBuffer, fileLength + written);
+        }
+      } catch (IOException e) {
+        disableSpilling();
+        throw e;
+      }
+      fileLength += written;
+      writeBuffer.clear();
+      buffered.clear();
+    }
+
+    private RadioConnectionLog read(long offset) throws IOException {
+      ByteBuffer header = readBytes(offset, 4);
+      int length = header.getInt();
+      ByteBuffer buf = readBytes(offset + 4, length);
+
+      long startTime = buf.getLong();
+      long endTime = buf.getLong();
+      int source = buf.getInt();
+      int[] destinations = getInts(buf);
+      int[] allDestinations = getInts(buf);
+      byte[] data = getBytes(buf);
+      byte[] original = getBytes(buf);
+      RadioPacket packet;
+      if (original != null) {
+        packet = new ConvertedRadioPacket(data, original);
+      } else {
+        packet = new COOJARadioPacket(data);
+      }
+      return new RadioConnectionLog(startTime, endTime, source, destinations, allDestinations, packet);
+    }
+
+    /**
+     * @return Buffer positioned at the given file offset, with at least length bytes remaining
+     */
+    private ByteBuffer readBytes(long offset, int length) throws IOException {
+      if (offset + length > fileLength) {
+        flush();
+      }
+
+      int w = (int) (offset / WINDOW_SIZE);
+      long windowStart = (long) w * WINDOW_SIZE;
+      if (offset + length > windowStart + WINDOW_SIZE) {
+        /* Crosses window boundary */
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+          if (channel.read(buf, offset + buf.position()) < 0) {
+            throw new IOException("Unexpected end of radio log");
+          }
+        }
+        buf.flip();
+        return buf;
+      }
+
+      if (w >= windows.length) {
+        windows = Arrays.copyOf(windows, w + 1);
+      }
+      MappedByteBuffer window = windows[w];
+      if (window == null || windowStart + window.limit() < offset + length) {
+        /* Map window, or remap after file grew */
+        long size = Math.min(WINDOW_SIZE, fileLength - windowStart);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, size);
+        windows[w] = window;
+      }
+      ByteBuffer buf = window.duplicate();
+      buf.position((int) (offset - windowStart));
+      return buf;
+    }
+  }
+
+  private static void putInts(ByteBuffer buf, int[] values) {
+    buf.putInt(values.length);
+    for (int v: values) {
+      buf.putInt(v);
+    }
+  }
+
+  private static int[] getInts(ByteBuffer buf) {
+    int[] values = new int[buf.getInt()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = buf.getInt();
+    }
+    return values;
+  }
+
+  private static void putBytes(ByteBuffer buf, byte[] values) {
+    if (values == null) {
+      buf.putInt(-1);
+      return;
+    }
+    buf.putInt(values.length);
+    buf.put(values);
+  }
+
+  private static byte[] getBytes(ByteBuffer buf) {
+    int length = buf.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] values = new byte[length];
+    buf.get(values);
+    return values;
+  }
+
+  private static int[] getMoteIDs(Radio[] radios) {
+    int[] ids = new int[radios.length];
+    for (int i = 0; i < radios.length; i++) {
+      ids[i] = radios[i].getMote().getID();
+    }
+    return ids;
+  }
+
   private static String getDestString(RadioConnectionLog c) {
-    Radio[] dests = c.connection.getDestinations();
+    int[] dests = c.destinations;
     if (dests.length == 0) {
       return "-";
     }
     if (dests.length == 1) {
-      return "" + dests[0].getMote().getID();
+      return "" + dests[0];
     }
     StringBuilder sb = new StringBuilder();
-    for (Radio dest: dests) {
-      sb.append(dest.getMote().getID()).append(',');
+    for (int dest: dests) {
+      sb.append(dest).append(',');
     }
     sb.setLength(sb.length() - 1);
     return sb.toString();
@@ -920,12 +1558,12 @@ public class RadioLogger extends VisPlugin {
   private void rebuildAllEntries() {
     applyFilter();
 
-    if (connections.size() > 0) {
-      model.fireTableRowsUpdated(0, connections.size() - 1);
+    if (connectionsShown > 0) {
+      model.fireTableRowsUpdated(0, connectionsShown - 1);
     }
     verboseBox.setText("");
 
-    setTitle("Radio messages: showing " + dataTable.getRowCount() + "/" + connections.size() + " packets");
+    setTitle("Radio messages: showing " + dataTable.getRowCount() + "/" + connectionsShown + " packets");
     simulation.getCooja().getDesktopPane().repaint();
   }
 
@@ -939,6 +1577,7 @@ public class RadioLogger extends VisPlugin {
         if (analyzers != analyzerList) {
           analyzers = analyzerList;
           analyzerName = actionName;
+          exportPcap = PCAP_ANALYZER_NAME.equals(actionName);
           rebuildAllEntries();
         }
       }
@@ -953,11 +1592,17 @@ public class RadioLogger extends VisPlugin {
 
     @Override
     public void actionPerformed(ActionEvent e) {
-      int size = connections.size();
+      int size = connectionsShown;
+      connections.clear();
+      connectionsShown = 0;
+      hiddenDuplicates = new int[0];
+
+      /* Drop filter state of cleared rows, and any filtering in progress */
+      filterGeneration++;
+      logFilter.setRowFilter(createRowFilter(0, new BitSet(), showDuplicates, hideNoDestinationPackets));
       if (size > 0) {
-        connections.clear();
         model.fireTableRowsDeleted(0, size - 1);
-        setTitle("Radio messages: showing " + dataTable.getRowCount() + "/" + connections.size() + " packets");
+        setTitle("Radio messages: showing " + dataTable.getRowCount() + "/" + connectionsShown + " packets");
       }
     }
   };
@@ -1182,9 +1827,9 @@ public class RadioLogger extends VisPlugin {
 
   public String getConnectionsString() {
     StringBuilder sb = new StringBuilder();
-    RadioConnectionLog[] cs = connections.toArray(new RadioConnectionLog[0]);
-    for (RadioConnectionLog c : cs) {
-      sb.append(c.toString() + "\n");
+    int size = connections.size();
+    for (int i = 0; i < size; i++) {
+      sb.append(connections.get(i).toString() + "\n");
     }
     return sb.toString();
   }
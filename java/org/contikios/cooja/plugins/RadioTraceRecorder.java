@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.plugins;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.log4j.Logger;
+
+import org.contikios.cooja.ClassDescription;
+import org.contikios.cooja.Cooja;
+import org.contikios.cooja.PluginType;
+import org.contikios.cooja.RadioConnection;
+import org.contikios.cooja.Simulation;
+import org.contikios.cooja.SupportedArguments;
+import org.contikios.cooja.interfaces.Radio;
+import org.contikios.cooja.radiomediums.AbstractRadioMedium;
+import org.contikios.cooja.util.RadioTraceReader;
+import org.contikios.cooja.util.RadioTraceWriter;
+
+/**
+ * Records all radio connections to a binary radio trace, for offline analysis.
+ * This plugin can be run without visualization, i.e. from a Contiki test.
+ *
+ * Configuration:
+ * file - Trace file, default radiotrace-[time].trace
+ *
+ * @see RadioTraceReader
+ */
+@ClassDescription("Radio trace recorder")
+@PluginType(PluginType.SIM_PLUGIN)
+@SupportedArguments(radioMediums = {AbstractRadioMedium.class})
+public class RadioTraceRecorder extends AbstractRadioRecorder {
+  private static final long serialVersionUID = 1L;
+  private static Logger logger = Logger.getLogger(RadioTraceRecorder.class);
+
+  private RadioTraceWriter writer = null;
+  private long records = 0;
+
+  public RadioTraceRecorder(Simulation simulation, Cooja gui) {
+    super("Radio trace recorder", "radio trace", simulation, gui);
+  }
+
+  protected void openOutput() throws IOException {
+    if (file == null) {
+      file = new File("radiotrace-" + System.currentTimeMillis() + ".trace");
+    }
+    writer = new RadioTraceWriter(file);
+    logger.info("Recording radio trace to " + file);
+  }
+
+  private static int[] getMoteIDs(Radio[] radios) {
+    int[] ids = new int[radios.length];
+    for (int i = 0; i < radios.length; i++) {
+      ids[i] = radios[i].getMote().getID();
+    }
+    return ids;
+  }
+
+  protected void writeConnection(RadioConnection conn) throws IOException {
+    byte[] data = getPacketData(conn.getSource().getLastPacketTransmitted());
+    if (data == null) {
+      data = new byte[0];
+    }
+    writer.write(conn.getStartTime(), simulation.getSimulationTime(),
+        conn.getSource().getMote().getID(), conn.getSource().getChannel(),
+        getMoteIDs(conn.getDestinations()), getMoteIDs(conn.getInterfered()),
+        data);
+    records++;
+  }
+
+  protected void flushOutput() throws IOException {
+    writer.flush();
+  }
+
+  protected void closeOutput() throws IOException {
+    try {
+      writer.close();
+    } finally {
+      writer = null;
+    }
+  }
+
+  protected String getStatus() {
+    return records + " connections recorded to " + file;
+  }
+}
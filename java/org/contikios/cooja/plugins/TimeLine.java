@@ -35,6 +35,7 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
@@ -48,7 +49,10 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Observable;
 import java.util.Observer;
 
@@ -97,6 +101,7 @@ import org.contikios.cooja.interfaces.LED;
 import org.contikios.cooja.interfaces.Radio;
 import org.contikios.cooja.interfaces.Radio.RadioEvent;
 import org.contikios.cooja.motes.AbstractEmulatedMote;
+import org.contikios.cooja.util.TiledRenderer;
 
 /**
  * Shows events such as mote logs, LEDs, and radio transmissions, in a timeline.
@@ -115,6 +120,8 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
   private static final Color COLOR_BACKGROUND = Color.WHITE;
   private static final boolean PAINT_ZERO_WIDTH_EVENTS = true;
   private static final int TIMELINE_UPDATE_INTERVAL = 100;
+  private static final int TIMELINE_FILTER_UPDATE_TICKS = 10;
+  private static final int TILE_SIZE = 256;
 
   private double currentPixelDivisor = 200;
 
@@ -137,7 +144,7 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
 
   private JScrollPane timelineScrollPane;
   private MoteRuler timelineMoteRuler;
-  private JComponent timeline;
+  private Timeline timeline;
 
   private Observer moteHighlightObserver = null;
   private ArrayList<Mote> highlightedMotes = new ArrayList<Mote>();
@@ -733,6 +740,7 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
     for (MoteEvents me : allMoteEvents) {
       me.clear();
     }
+    timeline.invalidateAll();
     repaint();
   }
 
@@ -794,39 +802,24 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
       allStats.add(stats);
       stats.mote = moteEvents.mote;
 
+      long now = simulation.getSimulationTime();
       if (leds) {
-        for (MoteEvent ev: moteEvents.ledEvents) {
+        EventList events = moteEvents.ledEvents;
+        for (int i = 0, n = events.size(); i < n; i++) {
+          MoteEvent ev = events.get(i);
           if (!(ev instanceof LEDEvent)) continue;
           LEDEvent ledEvent = (LEDEvent) ev;
 
-          /* Red */
+          /* LED is on, add time interval */
+          long diff = (i + 1 < n ? events.getTime(i + 1) : now) - ledEvent.time;
           if (ledEvent.red) {
-            /* LED is on, add time interval */
-            if (ledEvent.next == null) {
-              stats.onTimeRedLED += (simulation.getSimulationTime() - ledEvent.time);
-            } else {
-              stats.onTimeRedLED += (ledEvent.next.time - ledEvent.time);
-            }
+            stats.onTimeRedLED += diff;
           }
-
-          /* Green */
           if (ledEvent.green) {
-            /* LED is on, add time interval */
-            if (ledEvent.next == null) {
-              stats.onTimeGreenLED += (simulation.getSimulationTime() - ledEvent.time);
-            } else {
-              stats.onTimeGreenLED += (ledEvent.next.time - ledEvent.time);
-            }
+            stats.onTimeGreenLED += diff;
           }
-
-          /* Blue */
           if (ledEvent.blue) {
-            /* LED is on, add time interval */
-            if (ledEvent.next == null) {
-              stats.onTimeBlueLED += (simulation.getSimulationTime() - ledEvent.time);
-            } else {
-              stats.onTimeBlueLED += (ledEvent.next.time - ledEvent.time);
-            }
+            stats.onTimeBlueLED += diff;
           }
         }
       }
@@ -839,34 +832,29 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
       }
 
       if (radioHW) {
-        for (MoteEvent ev: moteEvents.radioHWEvents) {
+        EventList events = moteEvents.radioHWEvents;
+        for (int i = 0, n = events.size(); i < n; i++) {
+          MoteEvent ev = events.get(i);
           if (!(ev instanceof RadioHWEvent)) continue;
           RadioHWEvent hwEvent = (RadioHWEvent) ev;
           if (hwEvent.on) {
             /* HW is on */
-            if (hwEvent.next == null) {
-              stats.radioOn += (simulation.getSimulationTime() - hwEvent.time);
-            } else {
-              stats.radioOn += (hwEvent.next.time - hwEvent.time);
-            }
+            stats.radioOn += (i + 1 < n ? events.getTime(i + 1) : now) - hwEvent.time;
           }
         }
       }
 
       if (radioRXTX) {
-        for (MoteEvent ev: moteEvents.radioRXTXEvents) {
+        EventList events = moteEvents.radioRXTXEvents;
+        for (int i = 0, n = events.size(); i < n; i++) {
+          MoteEvent ev = events.get(i);
           if (!(ev instanceof RadioRXTXEvent)) continue;
           RadioRXTXEvent rxtxEvent = (RadioRXTXEvent) ev;
           if (rxtxEvent.state == RXTXRadioEvent.IDLE) {
             continue;
           }
 
-          long diff;
-          if (rxtxEvent.next == null) {
-            diff = (simulation.getSimulationTime() - rxtxEvent.time);
-          } else {
-            diff = (rxtxEvent.next.time - rxtxEvent.time);
-          }
+          long diff = (i + 1 < n ? events.getTime(i + 1) : now) - rxtxEvent.time;
 
           if (rxtxEvent.state == RXTXRadioEvent.TRANSMITTING) {
             stats.onTimeTX += diff;
@@ -1001,6 +989,7 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
     timelineMoteRuler.revalidate();
     timelineMoteRuler.repaint();
     timeline.revalidate();
+    timeline.invalidateAll();
     timeline.repaint();
   }
 
@@ -1261,6 +1250,7 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
     if (h != paintedMoteHeight) {
       paintedMoteHeight = h;
       timelineMoteRuler.repaint();
+      timeline.invalidateAll();
       timeline.repaint();
     }
   }
@@ -1268,6 +1258,7 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
   public void closePlugin() {
     /* Remove repaint timer */
     repaintTimelineTimer.stop();
+    timeline.dispose();
 
     if (moteHighlightObserver != null) {
       simulation.getCooja().deleteMoteHighlightObserver(moteHighlightObserver);
@@ -1586,6 +1577,14 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
     };
 
     private final Color SEPARATOR_COLOR = new Color(220, 220, 220);
+
+    /* Mote events are cached in tiles, only invalidated areas are repainted */
+    private final TiledRenderer renderer = new TiledRenderer(this, TILE_SIZE, new TiledRenderer.TilePainter() {
+      public void paintRegion(Graphics2D g, Rectangle region) {
+        paintTimeline(g, region);
+      }
+    });
+
     public void paintComponent(Graphics g) {
       Rectangle bounds = g.getClipBounds();
       /*logger.info("Clip bounds: " + bounds);*/
@@ -1607,19 +1606,53 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
         return;
       }
 
+      if (bounds.x > Integer.MAX_VALUE - 1000) {
+        /* Strange bounds */
+        return;
+      }
+
+      renderer.paint(g);
+
       long intervalStart = (long)(bounds.x*currentPixelDivisor);
       long intervalEnd = (long) (intervalStart + bounds.width*currentPixelDivisor);
-
       if (intervalEnd > simulation.getSimulationTime()) {
         intervalEnd = simulation.getSimulationTime();
       }
 
-      /*logger.info("Painting interval: " + intervalStart + " -> " + intervalEnd);*/
-      if (bounds.x > Integer.MAX_VALUE - 1000) {
-        /* Strange bounds */
-        return;
+      /* Draw vertical time marker (if mouse is dragged) */
+      drawMouseTime(g, intervalStart, intervalEnd);
+    }
+
+    /**
+     * Invalidates rendered timeline between given pixels.
+     *
+     * @param fromX First pixel
+     * @param toX Last pixel
+     */
+    public void invalidate(int fromX, int toX) {
+      renderer.invalidate(new Rectangle(fromX, 0, toX - fromX + 1, Integer.MAX_VALUE/2));
+    }
+
+    /**
+     * Invalidates entire rendered timeline.
+     */
+    public void invalidateAll() {
+      renderer.invalidateAll();
+    }
+
+    public void dispose() {
+      renderer.dispose();
+    }
+
+    private void paintTimeline(Graphics g, Rectangle bounds) {
+      long intervalStart = (long)(bounds.x*currentPixelDivisor);
+      long intervalEnd = (long) (intervalStart + bounds.width*currentPixelDivisor);
+
+      if (intervalEnd > simulation.getSimulationTime()) {
+        intervalEnd = simulation.getSimulationTime();
       }
 
+      /*logger.info("Painting interval: " + intervalStart + " -> " + intervalEnd);*/
       g.setColor(COLOR_BACKGROUND);
       g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
 
@@ -1641,78 +1674,47 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
         dark = !dark;
 
         if (showRadioRXTX) {
-          MoteEvent firstEvent = getFirstIntervalEvent(allMoteEvents.get(mIndex).radioRXTXEvents, intervalStart);
-          if (firstEvent != null) {
-            firstEvent.paintInterval(g, lineHeightOffset, intervalEnd);
-          }
+          paintEvents(g, allMoteEvents.get(mIndex).radioRXTXEvents, intervalStart, lineHeightOffset, intervalEnd);
           lineHeightOffset += EVENT_PIXEL_HEIGHT;
         }
         if (showRadioChannels) {
-          MoteEvent firstEvent = getFirstIntervalEvent(allMoteEvents.get(mIndex).radioChannelEvents, intervalStart);
-          if (firstEvent != null) {
-            firstEvent.paintInterval(g, lineHeightOffset, intervalEnd);
-          }
+          paintEvents(g, allMoteEvents.get(mIndex).radioChannelEvents, intervalStart, lineHeightOffset, intervalEnd);
           lineHeightOffset += EVENT_PIXEL_HEIGHT;
         }
         if (showRadioOnoff) {
-          MoteEvent firstEvent = getFirstIntervalEvent(allMoteEvents.get(mIndex).radioHWEvents, intervalStart);
-          if (firstEvent != null) {
-            firstEvent.paintInterval(g, lineHeightOffset, intervalEnd);
-          }
+          paintEvents(g, allMoteEvents.get(mIndex).radioHWEvents, intervalStart, lineHeightOffset, intervalEnd);
           lineHeightOffset += EVENT_PIXEL_HEIGHT;
         }
         if (showLeds) {
-          MoteEvent firstEvent = getFirstIntervalEvent(allMoteEvents.get(mIndex).ledEvents, intervalStart);
-          if (firstEvent != null) {
-            firstEvent.paintInterval(g, lineHeightOffset, intervalEnd);
-          }
+          paintEvents(g, allMoteEvents.get(mIndex).ledEvents, intervalStart, lineHeightOffset, intervalEnd);
           lineHeightOffset += 3*LED_PIXEL_HEIGHT;
         }
         if (showLogOutputs) {
-          MoteEvent firstEvent = getFirstIntervalEvent(allMoteEvents.get(mIndex).logEvents, intervalStart);
-          if (firstEvent != null) {
-            firstEvent.paintInterval(g, lineHeightOffset, intervalEnd);
-          }
+          paintEvents(g, allMoteEvents.get(mIndex).logEvents, intervalStart, lineHeightOffset, intervalEnd);
           lineHeightOffset += EVENT_PIXEL_HEIGHT;
         }
         if (showWatchpoints) {
-          MoteEvent firstEvent = getFirstIntervalEvent(allMoteEvents.get(mIndex).watchpointEvents, intervalStart);
-          if (firstEvent != null) {
-            firstEvent.paintInterval(g, lineHeightOffset, intervalEnd);
-          }
+          paintEvents(g, allMoteEvents.get(mIndex).watchpointEvents, intervalStart, lineHeightOffset, intervalEnd);
           lineHeightOffset += EVENT_PIXEL_HEIGHT;
         }
 
         lineHeightOffset += EVENT_PIXEL_HEIGHT;
       }
-
-      /* Draw vertical time marker (if mouse is dragged) */
-      drawMouseTime(g, intervalStart, intervalEnd);
     }
 
-    private <T extends MoteEvent> T getFirstIntervalEvent(ArrayList<T> events, long time) {
-      /* TODO IMPLEMENT ME: Binary search */
-      int nrEvents = events.size();
-      if (nrEvents == 0) {
-        return null;
-      }
-      if (nrEvents == 1) {
-        events.get(0);
-      }
-
-      int ev = 0;
-      while (ev < nrEvents && events.get(ev).time < time) {
-        ev++;
-      }
-      ev--;
-      if (ev < 0) {
-        ev = 0;
+    private void paintEvents(Graphics g, EventList events, long start, int lineHeightOffset, long end) {
+      int first = getFirstIntervalEvent(events, start);
+      if (first >= 0) {
+        events.get(first).paintInterval(events, first, g, lineHeightOffset, end);
       }
+    }
 
-      if (ev >= events.size()) {
-        return events.get(events.size()-1);
+    private int getFirstIntervalEvent(EventList events, long time) {
+      if (events.size() == 0) {
+        return -1;
       }
-      return events.get(ev);
+      /* Last event before time, if any */
+      return Math.max(0, events.getIndexBefore(time));
     }
 
     private void drawTimeRule(Graphics g, long start, long end) {
@@ -1791,7 +1793,7 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
       tooltip += "Time (ms): " + (double)time/Simulation.MILLISECOND + "<br>";
 
       /* Event */
-      ArrayList<? extends MoteEvent> events = null;
+      EventList events = null;
       int evMatched = 0;
       int evMouse = ((event.getPoint().y-FIRST_MOTE_PIXEL_OFFSET) % paintedMoteHeight) / EVENT_PIXEL_HEIGHT;
       if (showRadioRXTX) {
@@ -1831,7 +1833,8 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
         evMatched++;
       }
       if (events != null) {
-        MoteEvent ev = getFirstIntervalEvent(events, time);
+        int index = getFirstIntervalEvent(events, time);
+        MoteEvent ev = index >= 0 ? events.get(index) : null;
         if (ev != null && time >= ev.time) {
           tooltip += ev + "<br>";
 
@@ -1933,8 +1936,6 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
 
   /* Event classes */
   abstract class MoteEvent {
-    MoteEvent prev = null;
-    MoteEvent next = null;
     String details = null;
     long time;
     public MoteEvent(long time) {
@@ -1945,22 +1946,56 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
      * Used by the default paint method to color events.
      * The event is not painted if the returned color is null.
      *
-     * @see #paintInterval(Graphics, int, long)
+     * @see #paintInterval(EventList, int, Graphics, int, long)
      * @return Event color or null
      */
     public abstract Color getEventColor();
 
-    /* Default paint method */
-    public void paintInterval(Graphics g, int lineHeightOffset, long end) {
-      MoteEvent ev = this;
-      while (ev != null && ev.time < end) {
+    /**
+     * Paints this event with the given color and pixel width.
+     */
+    protected void paintEvent(Graphics g, Color color, int x, int w, int lineHeightOffset) {
+      g.setColor(color);
+      g.fillRect(x, lineHeightOffset, w, EVENT_PIXEL_HEIGHT);
+    }
+
+    /**
+     * Default paint method: paints events from index until end time.
+     * Of several events starting in the same pixel, only the last colored
+     * event is visible, and only that event is painted.
+     *
+     * @param events Events
+     * @param index Index of this event
+     * @param g Graphics
+     * @param lineHeightOffset Y offset
+     * @param end End time
+     */
+    public void paintInterval(EventList events, int index, Graphics g, int lineHeightOffset, long end) {
+      int size = events.size();
+      int i = index;
+      while (i < size && events.getTime(i) < end) {
+        int x = (int) (events.getTime(i)/currentPixelDivisor);
+        int last = events.getLastInPixel(i, x, end);
+        if (last > i) {
+          /* Zero pixel width events */
+          if (PAINT_ZERO_WIDTH_EVENTS) {
+            int colored = events.getLastColored(i, last - 1);
+            if (colored >= 0) {
+              MoteEvent ev = events.get(colored);
+              ev.paintEvent(g, ev.getEventColor(), x, 1, lineHeightOffset);
+            }
+          }
+          i = last;
+        }
+
         int w; /* Pixel width */
+        long time = events.getTime(i);
 
         /* Calculate event width */
-        if (ev.next != null) {
-          w = (int) ((ev.next.time - ev.time)/currentPixelDivisor);
+        if (i + 1 < size) {
+          w = (int) ((events.getTime(i + 1) - time)/currentPixelDivisor);
         } else {
-          w = (int) ((end - ev.time)/currentPixelDivisor); /* No more events */
+          w = (int) ((end - time)/currentPixelDivisor); /* No more events */
         }
 
         /* Handle zero pixel width events */
@@ -1968,25 +2003,17 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
           if (PAINT_ZERO_WIDTH_EVENTS) {
             w = 1;
           } else {
-            ev = ev.next;
+            i++;
             continue;
           }
         }
 
+        MoteEvent ev = events.get(i);
         Color color = ev.getEventColor();
-        if (color == null) {
-          /* Skip painting event */
-          ev = ev.next;
-          continue;
+        if (color != null) {
+          ev.paintEvent(g, color, x, w, lineHeightOffset);
         }
-        g.setColor(color);
-
-        g.fillRect(
-            (int)(ev.time/currentPixelDivisor), lineHeightOffset,
-            w, EVENT_PIXEL_HEIGHT
-        );
-
-        ev = ev.next;
+        i++;
       }
     }
   }
@@ -2122,56 +2149,18 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
       }
     }
     /* LEDs are painted in three lines */
-    public void paintInterval(Graphics g, int lineHeightOffset, long end) {
-      MoteEvent ev = this;
-      while (ev != null && ev.time < end) {
-        int w; /* Pixel width */
-
-        /* Calculate event width */
-        if (ev.next != null) {
-          w = (int) ((ev.next.time - ev.time)/currentPixelDivisor);
-        } else {
-          w = (int) ((end - ev.time)/currentPixelDivisor); /* No more events */
-        }
-
-        /* Handle zero pixel width events */
-        if (w == 0) {
-          if (PAINT_ZERO_WIDTH_EVENTS) {
-            w = 1;
-          } else {
-            ev = ev.next;
-            continue;
-          }
-        }
-
-        Color color = ev.getEventColor();
-        if (color == null) {
-          /* Skip painting event */
-          ev = ev.next;
-          continue;
-        }
-        if (color.getRed() > 0) {
-          g.setColor(new Color(color.getRed(), 0, 0));
-          g.fillRect(
-              (int)(ev.time/currentPixelDivisor), lineHeightOffset,
-              w, LED_PIXEL_HEIGHT
-          );
-        }
-        if (color.getGreen() > 0) {
-          g.setColor(new Color(0, color.getGreen(), 0));
-          g.fillRect(
-              (int)(ev.time/currentPixelDivisor), lineHeightOffset+LED_PIXEL_HEIGHT,
-              w, LED_PIXEL_HEIGHT
-          );
-        }
-        if (color.getBlue() > 0) {
-          g.setColor(new Color(0, 0, color.getBlue()));
-          g.fillRect(
-              (int)(ev.time/currentPixelDivisor), lineHeightOffset+2*LED_PIXEL_HEIGHT,
-              w, LED_PIXEL_HEIGHT
-          );
-        }
-        ev = ev.next;
+    protected void paintEvent(Graphics g, Color color, int x, int w, int lineHeightOffset) {
+      if (color.getRed() > 0) {
+        g.setColor(new Color(color.getRed(), 0, 0));
+        g.fillRect(x, lineHeightOffset, w, LED_PIXEL_HEIGHT);
+      }
+      if (color.getGreen() > 0) {
+        g.setColor(new Color(0, color.getGreen(), 0));
+        g.fillRect(x, lineHeightOffset+LED_PIXEL_HEIGHT, w, LED_PIXEL_HEIGHT);
+      }
+      if (color.getBlue() > 0) {
+        g.setColor(new Color(0, 0, color.getBlue()));
+        g.fillRect(x, lineHeightOffset+2*LED_PIXEL_HEIGHT, w, LED_PIXEL_HEIGHT);
       }
     }
     public String toString() {
@@ -2195,40 +2184,43 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
       }
       return Color.GRAY;
     }
-    /* Default paint method */
-    public void paintInterval(Graphics g, int lineHeightOffset, long end) {
-      LogEvent ev = this;
-      while (ev != null && ev.time < end) {
-        /* Ask active log listener whether this should be filtered  */
-        
-        if (logEventFilterPlugin != null) {
-          boolean show = logEventFilterPlugin.filterWouldAccept(ev.logEvent);
-          if (!show) {
+    /* Log events are painted four pixels wide: only the last shown log starting in each pixel is visible */
+    public void paintInterval(EventList events, int index, Graphics g, int lineHeightOffset, long end) {
+      int size = events.size();
+      int i = index;
+      while (i < size && events.getTime(i) < end) {
+        int x = (int) (events.getTime(i)/currentPixelDivisor);
+        int last = events.getLastInPixel(i, x, end);
+
+        for (int j = last; j >= i; j--) {
+          MoteEvent ev = events.get(j);
+          if (!(ev instanceof LogEvent)) {
+            continue;
+          }
+
+          /* Ask active log listener whether this should be filtered  */
+          if (logEventFilterPlugin != null) {
+            boolean show = logEventFilterPlugin.filterWouldAccept(((LogEvent) ev).logEvent);
+            if (!show) {
+              /* Skip painting event */
+              continue;
+            }
+          }
+
+          Color color = ev.getEventColor();
+          if (color == null) {
             /* Skip painting event */
-            ev = (LogEvent) ev.next;
             continue;
           }
-        }
 
-        Color color = ev.getEventColor();
-        if (color == null) {
-          /* Skip painting event */
-          ev = (LogEvent) ev.next;
-          continue;
+          g.setColor(color);
+          g.fillRect(x, lineHeightOffset, 4, EVENT_PIXEL_HEIGHT);
+          g.setColor(Color.BLACK);
+          g.fillRect(x, lineHeightOffset, 1, EVENT_PIXEL_HEIGHT);
+          break;
         }
 
-        g.setColor(color);
-        g.fillRect(
-            (int)(ev.time/currentPixelDivisor), lineHeightOffset,
-            4, EVENT_PIXEL_HEIGHT
-        );
-        g.setColor(Color.BLACK);
-        g.fillRect(
-            (int)(ev.time/currentPixelDivisor), lineHeightOffset,
-            1, EVENT_PIXEL_HEIGHT
-        );
-
-        ev = (LogEvent) ev.next;
+        i = last + 1;
       }
     }
     public String toString() {
@@ -2256,166 +2248,264 @@ public class TimeLine extends VisPlugin implements HasQuickHelp {
       + desc + "<br>";
     }
 
-    /* Default paint method */
-    public void paintInterval(Graphics g, int lineHeightOffset, long end) {
-      MoteEvent ev = this;
-      while (ev != null && ev.time < end) {
-        int w = 2; /* Watchpoints are always two pixels wide */
+    /* Watchpoints are always two pixels wide */
+    public void paintInterval(EventList events, int index, Graphics g, int lineHeightOffset, long end) {
+      int size = events.size();
+      int i = index;
+      while (i < size && events.getTime(i) < end) {
+        int x = (int) (events.getTime(i)/currentPixelDivisor);
+        int last = events.getLastInPixel(i, x, end);
+        int colored = events.getLastColored(i, last);
+        if (colored >= 0) {
+          MoteEvent ev = events.get(colored);
+          ev.paintEvent(g, ev.getEventColor(), x, 2, lineHeightOffset);
+        }
+        i = last + 1;
+      }
+    }
+  }
 
-        Color color = ev.getEventColor();
-        if (color == null) {
-          /* Skip painting event */
-          ev = ev.next;
-          continue;
+  /**
+   * Time-sorted events of one type, for one mote.
+   *
+   * Event times are stored in chunked primitive arrays, allowing binary
+   * search of the visible time interval. Two levels of block summaries keep
+   * the last colored event of every block, so that many events collapsing
+   * into one pixel can be painted without visiting them all.
+   *
+   * Events are only ever appended, by a single thread. Readers on other
+   * threads see a consistent prefix by reading the size first. Lists are
+   * cleared by replacing them, see {@link MoteEvents#clear()}.
+   */
+  class EventList implements Iterable<MoteEvent> {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+    private static final int BLOCK_BITS = 6;
+    private static final int SUPER_BLOCK_BITS = 12;
+
+    private long[][] times = new long[16][];
+    private MoteEvent[][] events = new MoteEvent[16][];
+    private int[] lastColored = new int[16];
+    private int[] lastColoredSuper = new int[1];
+
+    /* Written last when adding events */
+    private volatile int size = 0;
+
+    public int size() {
+      return size;
+    }
+
+    public long getTime(int i) {
+      return times[i >>> CHUNK_BITS][i & CHUNK_MASK];
+    }
+
+    public MoteEvent get(int i) {
+      return events[i >>> CHUNK_BITS][i & CHUNK_MASK];
+    }
+
+    public void add(MoteEvent ev) {
+      int i = size;
+      int chunk = i >>> CHUNK_BITS;
+      if (chunk == times.length) {
+        times = Arrays.copyOf(times, 2*chunk);
+        events = Arrays.copyOf(events, 2*chunk);
+      }
+      if (times[chunk] == null) {
+        times[chunk] = new long[CHUNK_MASK + 1];
+        events[chunk] = new MoteEvent[CHUNK_MASK + 1];
+      }
+      times[chunk][i & CHUNK_MASK] = ev.time;
+      events[chunk][i & CHUNK_MASK] = ev;
+
+      /* Block summaries */
+      int block = i >>> BLOCK_BITS;
+      if (block == lastColored.length) {
+        lastColored = Arrays.copyOf(lastColored, 2*block);
+      }
+      int superBlock = i >>> SUPER_BLOCK_BITS;
+      if (superBlock == lastColoredSuper.length) {
+        lastColoredSuper = Arrays.copyOf(lastColoredSuper, 2*superBlock);
+      }
+      if ((i & ((1 << BLOCK_BITS) - 1)) == 0) {
+        lastColored[block] = -1;
+      }
+      if ((i & ((1 << SUPER_BLOCK_BITS) - 1)) == 0) {
+        lastColoredSuper[superBlock] = -1;
+      }
+      if (ev.getEventColor() != null) {
+        lastColored[block] = i;
+        lastColoredSuper[superBlock] = i;
+      }
+
+      size = i + 1;
+    }
+
+    /**
+     * @param time Time
+     * @return Index of last event before given time, or -1
+     */
+    public int getIndexBefore(long time) {
+      int low = 0;
+      int high = size - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (getTime(mid) < time) {
+          low = mid + 1;
+        } else {
+          high = mid - 1;
         }
-        g.setColor(color);
+      }
+      return low - 1;
+    }
 
-        g.fillRect(
-            (int)(ev.time/currentPixelDivisor), lineHeightOffset,
-            w, EVENT_PIXEL_HEIGHT
-        );
+    /**
+     * @param i Index of first event in pixel
+     * @param x Pixel
+     * @param end End time
+     * @return Index of last event before end time, starting in the same pixel
+     */
+    public int getLastInPixel(int i, int x, long end) {
+      int last = getIndexBefore(Math.min(end, (long) Math.ceil((x + 1)*currentPixelDivisor)));
+      while (last > i && (int) (getTime(last)/currentPixelDivisor) != x) {
+        last--;
+      }
+      return Math.max(i, last);
+    }
 
-        ev = ev.next;
+    /**
+     * @param first First index
+     * @param last Last index
+     * @return Index of last event with color in range, or -1
+     */
+    public int getLastColored(int first, int last) {
+      int superMask = (1 << SUPER_BLOCK_BITS) - 1;
+      int blockMask = (1 << BLOCK_BITS) - 1;
+      int i = last;
+      while (i >= first) {
+        if ((i & superMask) == superMask && i - superMask >= first) {
+          int c = lastColoredSuper[i >>> SUPER_BLOCK_BITS];
+          if (c >= 0) {
+            return c;
+          }
+          i -= superMask + 1;
+        } else if ((i & blockMask) == blockMask && i - blockMask >= first) {
+          int c = lastColored[i >>> BLOCK_BITS];
+          if (c >= 0) {
+            return c;
+          }
+          i -= blockMask + 1;
+        } else {
+          if (get(i).getEventColor() != null) {
+            return i;
+          }
+          i--;
+        }
       }
+      return -1;
+    }
+
+    public Iterator<MoteEvent> iterator() {
+      return new Iterator<MoteEvent>() {
+        private int next = 0;
+        public boolean hasNext() {
+          return next < size;
+        }
+        public MoteEvent next() {
+          if (next >= size) {
+            throw new NoSuchElementException();
+          }
+          return get(next++);
+        }
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
     }
   }
   class MoteEvents {
     Mote mote;
-    ArrayList<MoteEvent> radioRXTXEvents;
-    ArrayList<MoteEvent> radioChannelEvents;
-    ArrayList<MoteEvent> radioHWEvents;
-    ArrayList<MoteEvent> ledEvents;
-    ArrayList<MoteEvent> logEvents;
-    ArrayList<MoteEvent> watchpointEvents;
-
-    private MoteEvent lastRadioRXTXEvent = null;
-    private MoteEvent lastRadioChannelEvent = null;
-    private MoteEvent lastRadioHWEvent = null;
-    private MoteEvent lastLEDEvent = null;
-    private MoteEvent lastLogEvent = null;
-    private MoteEvent lastWatchpointEvent = null;
+    volatile EventList radioRXTXEvents = new EventList();
+    volatile EventList radioChannelEvents = new EventList();
+    volatile EventList radioHWEvents = new EventList();
+    volatile EventList ledEvents = new EventList();
+    volatile EventList logEvents = new EventList();
+    volatile EventList watchpointEvents = new EventList();
 
     public MoteEvents(Mote mote) {
       this.mote = mote;
-      this.radioRXTXEvents = new ArrayList<MoteEvent>();
-      this.radioChannelEvents = new ArrayList<MoteEvent>();
-      this.radioHWEvents = new ArrayList<MoteEvent>();
-      this.ledEvents = new ArrayList<MoteEvent>();
-      this.logEvents = new ArrayList<MoteEvent>();
-      this.watchpointEvents = new ArrayList<MoteEvent>();
+      addNoHistoryEvents();
+    }
 
+    private void addNoHistoryEvents() {
       if (mote.getSimulation().getSimulationTime() > 0) {
         /* Create no history events */
-        lastRadioRXTXEvent = new NoHistoryEvent(0);
-        lastRadioChannelEvent = new NoHistoryEvent(0);
-        lastRadioHWEvent = new NoHistoryEvent(0);
-        lastLEDEvent = new NoHistoryEvent(0);
-        lastLogEvent = new NoHistoryEvent(0);
-        lastWatchpointEvent = new NoHistoryEvent(0);
-        radioRXTXEvents.add(lastRadioRXTXEvent);
-        radioChannelEvents.add(lastRadioChannelEvent);
-        radioHWEvents.add(lastRadioHWEvent);
-        ledEvents.add(lastLEDEvent);
-        logEvents.add(lastLogEvent);
-        watchpointEvents.add(lastWatchpointEvent);
+        radioRXTXEvents.add(new NoHistoryEvent(0));
+        radioChannelEvents.add(new NoHistoryEvent(0));
+        radioHWEvents.add(new NoHistoryEvent(0));
+        ledEvents.add(new NoHistoryEvent(0));
+        logEvents.add(new NoHistoryEvent(0));
+        watchpointEvents.add(new NoHistoryEvent(0));
       }
     }
 
+    /* Publishes fresh lists: painting may still be reading the old ones */
     protected void clear() {
-      this.radioRXTXEvents.clear();
-      this.radioChannelEvents.clear();
-      this.radioHWEvents.clear();
-      this.ledEvents.clear();
-      this.logEvents.clear();
-      this.watchpointEvents.clear();
+      this.radioRXTXEvents = new EventList();
+      this.radioChannelEvents = new EventList();
+      this.radioHWEvents = new EventList();
+      this.ledEvents = new EventList();
+      this.logEvents = new EventList();
+      this.watchpointEvents = new EventList();
 
-      if (mote.getSimulation().getSimulationTime() > 0) {
-        /* Create no history events */
-        lastRadioRXTXEvent = new NoHistoryEvent(0);
-        lastRadioChannelEvent = new NoHistoryEvent(0);
-        lastRadioHWEvent = new NoHistoryEvent(0);
-        lastLEDEvent = new NoHistoryEvent(0);
-        lastLogEvent = new NoHistoryEvent(0);
-        lastWatchpointEvent = new NoHistoryEvent(0);
-        radioRXTXEvents.add(lastRadioRXTXEvent);
-        radioChannelEvents.add(lastRadioChannelEvent);
-        radioHWEvents.add(lastRadioHWEvent);
-        ledEvents.add(lastLEDEvent);
-        logEvents.add(lastLogEvent);
-        watchpointEvents.add(lastWatchpointEvent);
-      }
+      addNoHistoryEvents();
     }
 
     public void addRadioRXTX(RadioRXTXEvent ev) {
-      /* Link with previous events */
-      if (lastRadioRXTXEvent != null) {
-        ev.prev = lastRadioRXTXEvent;
-        lastRadioRXTXEvent.next = ev;
-      }
-      lastRadioRXTXEvent = ev;
-
       radioRXTXEvents.add(ev);
     }
     public void addRadioChannel(RadioChannelEvent ev) {
-      /* Link with previous events */
-      if (lastRadioChannelEvent != null) {
-        ev.prev = lastRadioChannelEvent;
-        lastRadioChannelEvent.next = ev;
-      }
-      lastRadioChannelEvent = ev;
-
       radioChannelEvents.add(ev);
     }
     public void addRadioHW(RadioHWEvent ev) {
-      /* Link with previous events */
-      if (lastRadioHWEvent != null) {
-        ev.prev = lastRadioHWEvent;
-        lastRadioHWEvent.next = ev;
-      }
-      lastRadioHWEvent = ev;
-
       radioHWEvents.add(ev);
     }
     public void addLED(LEDEvent ev) {
-      /* Link with previous events */
-      if (lastLEDEvent != null) {
-        ev.prev = lastLEDEvent;
-        lastLEDEvent.next = ev;
-      }
-      lastLEDEvent = ev;
-
       ledEvents.add(ev);
     }
     public void addLog(LogEvent ev) {
-      /* Link with previous events */
-      if (lastLogEvent != null) {
-        ev.prev = lastLogEvent;
-        lastLogEvent.next = ev;
-      }
-      lastLogEvent = ev;
-
       logEvents.add(ev);
     }
     public void addWatchpoint(WatchpointEvent ev) {
-      /* Link with previous events */
-      if (lastWatchpointEvent != null) {
-        ev.prev = lastWatchpointEvent;
-        lastWatchpointEvent.next = ev;
-      }
-      lastWatchpointEvent = ev;
-
       watchpointEvents.add(ev);
     }
   }
 
   private long lastRepaintSimulationTime = -1;
+  private int ticksSinceFilterUpdate = 0;
   private Timer repaintTimelineTimer = new Timer(TIMELINE_UPDATE_INTERVAL, new ActionListener() {
     public void actionPerformed(ActionEvent e) {
+      /* Log event colors depend on the log listener filter */
+      if (showLogOutputs && logEventFilterPlugin != null
+          && ++ticksSinceFilterUpdate >= TIMELINE_FILTER_UPDATE_TICKS) {
+        ticksSinceFilterUpdate = 0;
+        timeline.invalidateAll();
+        timeline.repaint();
+      }
+
       /* Only set new size if simulation time has changed */
       long now = simulation.getSimulationTime();
       if (now == lastRepaintSimulationTime) {
         return;
       }
+
+      /* Invalidate rendered timeline since last update */
+      if (lastRepaintSimulationTime < 0 || now < lastRepaintSimulationTime) {
+        timeline.invalidateAll();
+      } else {
+        timeline.invalidate(
+            (int) (lastRepaintSimulationTime/currentPixelDivisor) - 1,
+            (int) Math.min(Integer.MAX_VALUE/2, now/currentPixelDivisor + 1));
+      }
       lastRepaintSimulationTime = now;
 
       /* Update timeline size */
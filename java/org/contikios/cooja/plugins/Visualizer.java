@@ -39,6 +39,7 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Polygon;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
@@ -150,6 +151,12 @@ public class Visualizer extends VisPlugin implements HasQuickHelp {
   private Cooja gui = null;
   private Simulation simulation = null;
   private final JPanel canvas;
+
+  /* Motes near painted area, for skins' mote labels extending outside the mote */
+  private static final int VISIBLE_MOTES_MARGIN = 200;
+  private volatile int moteIndexVersion = 0;
+  private MoteSpatialIndex moteIndex = null;
+  private Mote[] frameMotes = null;
   private boolean loadedConfig = false;
 
   private final JMenu viewMenu;
@@ -339,12 +346,18 @@ public class Visualizer extends VisPlugin implements HasQuickHelp {
         }
 
         ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        for (VisualizerSkin skin : currentSkins) {
-          skin.paintBeforeMotes(g);
-        }
-        paintMotes(g);
-        for (VisualizerSkin skin : currentSkins) {
-          skin.paintAfterMotes(g);
+        Rectangle clip = g.getClipBounds();
+        frameMotes = findVisibleMotes(clip == null ? getVisibleRect() : clip);
+        try {
+          for (VisualizerSkin skin : currentSkins) {
+            skin.paintBeforeMotes(g);
+          }
+          paintMotes(g);
+          for (VisualizerSkin skin : currentSkins) {
+            skin.paintAfterMotes(g);
+          }
+        } finally {
+          frameMotes = null;
         }
         selection.drawSelection(g);
       }
@@ -387,12 +400,14 @@ public class Visualizer extends VisPlugin implements HasQuickHelp {
     posObserver = new Observer() {
       @Override
       public void update(Observable obs, Object obj) {
+        moteIndexVersion++;
         repaint();
       }
     };
     simulation.getEventCentral().addMoteCountListener(newMotesListener = new MoteCountListener() {
       @Override
       public void moteWasAdded(Mote mote) {
+        moteIndexVersion++;
         Position pos = mote.getInterfaces().getPosition();
         if (pos != null) {
           pos.addObserver(posObserver);
@@ -408,6 +423,7 @@ public class Visualizer extends VisPlugin implements HasQuickHelp {
 
       @Override
       public void moteWasRemoved(Mote mote) {
+        moteIndexVersion++;
         Position pos = mote.getInterfaces().getPosition();
         if (pos != null) {
           pos.deleteObserver(posObserver);
@@ -1184,7 +1200,7 @@ public class Visualizer extends VisPlugin implements HasQuickHelp {
    */
   public Mote[] findMotesInRange(int startX, int startY, int width, int height) {
     List<Mote> motes = new LinkedList<>();
-    for (Mote m : simulation.getMotes()) {
+    for (Mote m : findMotesInPixelArea(new Rectangle(startX, startY, width, height))) {
       Position pos = m.getInterfaces().getPosition();
       int moteX = transformToPixelX(pos.getXCoordinate());
       int moteY = transformToPixelY(pos.getYCoordinate());
@@ -1222,8 +1238,11 @@ public class Visualizer extends VisPlugin implements HasQuickHelp {
     double paintedMoteHeight = transformToPositionY(MOTE_RADIUS)
             - transformToPositionY(0);
 
-    for (int i = 0; i < simulation.getMotesCount(); i++) {
-      Position pos = simulation.getMote(i).getInterfaces().getPosition();
+    Rectangle area = new Rectangle(
+            clickedX - MOTE_RADIUS - 1, clickedY - MOTE_RADIUS - 1,
+            2 * MOTE_RADIUS + 2, 2 * MOTE_RADIUS + 2);
+    for (Mote mote : findMotesInPixelArea(area)) {
+      Position pos = mote.getInterfaces().getPosition();
 
       // Transform to unit circle before checking if mouse hit this mote
       double distanceX = Math.abs(xCoord - pos.getXCoordinate())
@@ -1232,7 +1251,7 @@ public class Visualizer extends VisPlugin implements HasQuickHelp {
               / paintedMoteHeight;
 
       if (distanceX * distanceX + distanceY * distanceY <= 1) {
-        motes.add(simulation.getMote(i));
+        motes.add(mote);
       }
     }
     if (motes.isEmpty()) {
@@ -1243,8 +1262,54 @@ public class Visualizer extends VisPlugin implements HasQuickHelp {
     return motes.toArray(motesArr);
   }
 
+  /**
+   * Returns motes in or near the painted area, in paint order.
+   * While painting, this is a snapshot shared by all skins; skins painting
+   * per-mote graphics should use it instead of iterating all simulation motes.
+   *
+   * @return Visible motes
+   */
+  public Mote[] getVisibleMotes() {
+    Mote[] motes = frameMotes;
+    if (motes != null) {
+      return motes;
+    }
+    return findVisibleMotes(canvas.getVisibleRect());
+  }
+
+  private Mote[] findVisibleMotes(Rectangle area) {
+    return findMotesInPixelArea(new Rectangle(
+            area.x - VISIBLE_MOTES_MARGIN, area.y - VISIBLE_MOTES_MARGIN,
+            area.width + 2 * VISIBLE_MOTES_MARGIN, area.height + 2 * VISIBLE_MOTES_MARGIN));
+  }
+
+  private MoteSpatialIndex getMoteIndex() {
+    MoteSpatialIndex index = moteIndex;
+    int version = moteIndexVersion;
+    if (index == null || index.getVersion() != version) {
+      index = new MoteSpatialIndex(simulation.getMotes(), version);
+      moteIndex = index;
+    }
+    return index;
+  }
+
+  private Mote[] findMotesInPixelArea(Rectangle area) {
+    MoteSpatialIndex index = getMoteIndex();
+    double x0 = transformToPositionX(area.x);
+    double x1 = transformToPositionX(area.x + area.width);
+    double y0 = transformToPositionY(area.y);
+    double y1 = transformToPositionY(area.y + area.height);
+    int[] found = index.query(
+            Math.min(x0, x1), Math.min(y0, y1), Math.max(x0, x1), Math.max(y0, y1));
+    Mote[] motes = new Mote[found.length];
+    for (int i = 0; i < found.length; i++) {
+      motes[i] = index.getMote(found[i]);
+    }
+    return motes;
+  }
+
   public void paintMotes(Graphics g) {
-    Mote[] allMotes = simulation.getMotes();
+    Mote[] allMotes = getVisibleMotes();
 
     /* Paint mote relations */
     if (showMoteToMoteRelations) {
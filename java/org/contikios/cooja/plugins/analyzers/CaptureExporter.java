@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.plugins.analyzers;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Base class for packet capture file exporters.
+ *
+ * Output is buffered, and flushed at most once per flush interval while
+ * packets are exported, as well as on flush and close.
+ * Optionally, the capture is rotated to a new file when the current file
+ * exceeds a maximum size: capture.pcap, capture.1.pcap, capture.2.pcap, ...
+ */
+public abstract class CaptureExporter {
+  private static final Logger logger = Logger.getLogger(CaptureExporter.class);
+
+  private static final int BUFFER_SIZE = 256*1024;
+  private static final long DEFAULT_FLUSH_INTERVAL = 1000; /* ms */
+
+  protected DataOutputStream out = null;
+  private CountingOutputStream counter = null;
+
+  private File baseFile = null;
+  private File file = null;
+  private int rotation = 0;
+  private long maxFileSize = 0;
+  private long flushInterval = DEFAULT_FLUSH_INTERVAL;
+  private long lastFlush;
+  private long packets = 0;
+
+  /**
+   * @return Default file name suffix, e.g. ".pcap"
+   */
+  protected abstract String getFileSuffix();
+
+  /**
+   * Writes file header. Called for every opened file, also when rotating.
+   */
+  protected abstract void writeFileHeader() throws IOException;
+
+  /**
+   * @param maxFileSize Rotate to new file when file exceeds size (bytes), or 0 to never rotate
+   */
+  public void setMaxFileSize(long maxFileSize) {
+    this.maxFileSize = maxFileSize;
+  }
+
+  /**
+   * @param flushInterval Maximum time output is buffered while exporting (ms)
+   */
+  public void setFlushInterval(long flushInterval) {
+    this.flushInterval = flushInterval;
+  }
+
+  /**
+   * Opens capture file. Any previously opened file is closed.
+   *
+   * @param captureFile File, or null for default file name
+   * @throws IOException On file errors
+   */
+  public void open(File captureFile) throws IOException {
+    if (out != null) {
+      close();
+    }
+    if (captureFile == null) {
+      /* capture file not specified, use default file name */
+      captureFile = new File("radiolog-" + System.currentTimeMillis() + getFileSuffix());
+    }
+    baseFile = captureFile;
+    rotation = 0;
+    openFile(captureFile);
+  }
+
+  private void openFile(File f) throws IOException {
+    file = f;
+    counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(f), BUFFER_SIZE));
+    out = new DataOutputStream(counter);
+    writeFileHeader();
+    flush();
+    logger.info("Opened capture file " + f);
+  }
+
+  /**
+   * Called before each exported packet.
+   * Opens the default file if no file was opened, and rotates file if needed.
+   *
+   * @throws IOException On file errors
+   */
+  protected void beginPacket() throws IOException {
+    if (out == null) {
+      /* capture file never set, open default */
+      open(null);
+    } else if (maxFileSize > 0 && counter.count >= maxFileSize) {
+      out.close();
+      rotation++;
+      openFile(getRotatedFile(baseFile, rotation));
+    }
+    packets++;
+  }
+
+  /**
+   * Called after each exported packet. Flushes output if flush interval passed.
+   *
+   * @throws IOException On file errors
+   */
+  protected void endPacket() throws IOException {
+    if (System.currentTimeMillis() - lastFlush >= flushInterval) {
+      flush();
+    }
+  }
+
+  /* DataOutputStream.size() saturates at 2 GB */
+  private static class CountingOutputStream extends FilterOutputStream {
+    long count = 0;
+    CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+  }
+
+  private static File getRotatedFile(File base, int rotation) {
+    String name = base.getName();
+    int dot = name.lastIndexOf('.');
+    if (dot > 0) {
+      name = name.substring(0, dot) + "." + rotation + name.substring(dot);
+    } else {
+      name = name + "." + rotation;
+    }
+    return new File(base.getParentFile(), name);
+  }
+
+  /**
+   * @return Current capture file, or null
+   */
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * @return Number of exported packets
+   */
+  public long getPacketCount() {
+    return packets;
+  }
+
+  /**
+   * Writes buffered output to file.
+   *
+   * @throws IOException On file errors
+   */
+  public void flush() throws IOException {
+    lastFlush = System.currentTimeMillis();
+    if (out != null) {
+      out.flush();
+    }
+  }
+
+  /**
+   * Flushes and closes capture file.
+   *
+   * @throws IOException On file errors
+   */
+  public void close() throws IOException {
+    if (out == null) {
+      return;
+    }
+    try {
+      out.close();
+    } finally {
+      out = null;
+    }
+  }
+}
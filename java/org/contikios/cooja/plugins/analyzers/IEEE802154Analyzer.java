@@ -51,6 +51,16 @@ public class IEEE802154Analyzer extends PacketAnalyzer {
     }
   }
 
+  public void closePcap() {
+    if (pcapExporter != null) {
+      try {
+        pcapExporter.closePcap();
+      } catch (IOException e) {
+        logger.error("Could not close pcap file", e);
+      }
+    }
+  }
+
   @Override
   public boolean matchPacket(Packet packet) {
     return packet.level == MAC_LEVEL;
@@ -64,9 +74,10 @@ public class IEEE802154Analyzer extends PacketAnalyzer {
    * next handler
    */
 
-  @Override
-  public int analyzePacket(Packet packet, StringBuilder brief, StringBuilder verbose) {
-
+  /**
+   * Exports packet to PCAP file, if PCAP export is enabled.
+   */
+  public void exportPcap(Packet packet) {
     if (pcapExporter != null) {
       try {
         pcapExporter.exportPacketData(packet.getPayload(), packet.getTimestamp());
@@ -74,6 +85,12 @@ public class IEEE802154Analyzer extends PacketAnalyzer {
         logger.error("Could not export PCap data", e);
       }
     }
+  }
+
+  @Override
+  public int analyzePacket(Packet packet, StringBuilder brief, StringBuilder verbose) {
+
+    exportPcap(packet);
 
     int pos = packet.pos;
     // FCF field
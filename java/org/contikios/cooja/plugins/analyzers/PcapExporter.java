@@ -1,28 +1,27 @@
 package org.contikios.cooja.plugins.analyzers;
 
-import java.io.DataOutputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.io.File;
-import org.apache.log4j.Logger;
-
-public class PcapExporter {
-  private static final Logger logger = Logger.getLogger(PcapExporter.class);
+import java.io.IOException;
 
-  DataOutputStream out;
+/**
+ * Exports IEEE 802.15.4 frames to libpcap capture files.
+ */
+public class PcapExporter extends CaptureExporter {
 
   public PcapExporter() throws IOException {
   }
 
+  @Override
+  protected String getFileSuffix() {
+    return ".pcap";
+  }
+
   public void openPcap(File pcapFile) throws IOException {
-    if (out != null) {
-      closePcap();
-    }
-    if (pcapFile == null) {
-      /* pcap file not specified, use default file name */
-      pcapFile = new File("radiolog-" + System.currentTimeMillis() + ".pcap");
-    }
-    out = new DataOutputStream(new FileOutputStream(pcapFile));
+    open(pcapFile);
+  }
+
+  @Override
+  protected void writeFileHeader() throws IOException {
     /* pcap header */
     out.writeInt(0xa1b2c3d4);
     out.writeShort(0x0002);
@@ -31,33 +30,27 @@ public class PcapExporter {
     out.writeInt(0);
     out.writeInt(4096);
     out.writeInt(195); /* 195 for LINKTYPE_IEEE802_15_4 */
-
-    out.flush();
-    logger.info("Opened pcap file " + pcapFile);
   }
 
   public void closePcap() throws IOException {
-    out.close();
-    out = null;
+    close();
   }
 
+  /**
+   * @param data Frame
+   * @param ts Timestamp (microseconds)
+   * @throws IOException On file errors
+   */
   public void exportPacketData(byte[] data, long ts) throws IOException {
-    if (out == null) {
-      /* pcap file never set, open default */
-      openPcap(null);
-    }
-    try {
-      /* pcap packet header */
-      out.writeInt((int) (ts / 1000000));
-      out.writeInt((int) (ts % 1000000));
-      out.writeInt(data.length);
-      out.writeInt(data.length);
-      /* and the data */
-      out.write(data);
-      out.flush();
-    } catch (Exception e) {
-      logger.error(e);
-    }
+    beginPacket();
+    /* pcap packet header */
+    out.writeInt((int) (ts / 1000000));
+    out.writeInt((int) (ts % 1000000));
+    out.writeInt(data.length);
+    out.writeInt(data.length);
+    /* and the data */
+    out.write(data);
+    endPacket();
   }
 
 }
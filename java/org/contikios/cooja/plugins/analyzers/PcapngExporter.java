@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.plugins.analyzers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+/**
+ * Exports IEEE 802.15.4 frames to PCAPNG capture files.
+ *
+ * Each capturing mote gets its own interface, named after the mote ID,
+ * and timestamps have nanosecond resolution.
+ */
+public class PcapngExporter extends CaptureExporter {
+  private static final int LINKTYPE_IEEE802_15_4 = 195;
+
+  private static final int BLOCK_SECTION_HEADER = 0x0A0D0D0A;
+  private static final int BLOCK_INTERFACE_DESCRIPTION = 0x00000001;
+  private static final int BLOCK_ENHANCED_PACKET = 0x00000006;
+
+  private static final int OPT_ENDOFOPT = 0;
+  private static final int OPT_IF_NAME = 2;
+  private static final int OPT_IF_TSRESOL = 9;
+
+  private static final byte[] PADDING = new byte[3];
+
+  /* Interface ID of each mote in current file */
+  private final HashMap<Integer, Integer> interfaces = new HashMap<Integer, Integer>();
+
+  @Override
+  protected String getFileSuffix() {
+    return ".pcapng";
+  }
+
+  @Override
+  protected void writeFileHeader() throws IOException {
+    interfaces.clear();
+
+    /* Section header block, big endian */
+    out.writeInt(BLOCK_SECTION_HEADER);
+    out.writeInt(28);
+    out.writeInt(0x1A2B3C4D);
+    out.writeShort(1);
+    out.writeShort(0);
+    out.writeLong(-1); /* Section length not specified */
+    out.writeInt(28);
+  }
+
+  private int getInterface(int moteID) throws IOException {
+    Integer id = interfaces.get(moteID);
+    if (id != null) {
+      return id;
+    }
+    id = interfaces.size();
+    interfaces.put(moteID, id);
+
+    /* Interface description block */
+    byte[] name = ("mote " + moteID).getBytes(StandardCharsets.UTF_8);
+    int nameLength = (name.length + 3) & ~3;
+    int length = 20 + 4 + nameLength + 4 + 4 + 4;
+    out.writeInt(BLOCK_INTERFACE_DESCRIPTION);
+    out.writeInt(length);
+    out.writeShort(LINKTYPE_IEEE802_15_4);
+    out.writeShort(0);
+    out.writeInt(0); /* No snap length */
+    out.writeShort(OPT_IF_NAME);
+    out.writeShort(name.length);
+    out.write(name);
+    out.write(PADDING, 0, nameLength - name.length);
+    out.writeShort(OPT_IF_TSRESOL);
+    out.writeShort(1);
+    out.writeByte(9); /* Nanoseconds */
+    out.write(PADDING, 0, 3);
+    out.writeShort(OPT_ENDOFOPT);
+    out.writeShort(0);
+    out.writeInt(length);
+    return id;
+  }
+
+  /**
+   * @param moteID Capturing mote
+   * @param data Frame
+   * @param ts Timestamp (nanoseconds)
+   * @throws IOException On file errors
+   */
+  public void exportPacketData(int moteID, byte[] data, long ts) throws IOException {
+    beginPacket();
+    int iface = getInterface(moteID);
+
+    /* Enhanced packet block */
+    int dataLength = (data.length + 3) & ~3;
+    int length = 32 + dataLength;
+    out.writeInt(BLOCK_ENHANCED_PACKET);
+    out.writeInt(length);
+    out.writeInt(iface);
+    out.writeInt((int) (ts >>> 32));
+    out.writeInt((int) ts);
+    out.writeInt(data.length);
+    out.writeInt(data.length);
+    out.write(data);
+    out.write(PADDING, 0, dataLength - data.length);
+    out.writeInt(length);
+    endPacket();
+  }
+}
@@ -37,8 +37,10 @@ import java.awt.Point;
 import java.awt.Toolkit;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
+import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 
@@ -67,8 +69,13 @@ public class AddressVisualizerSkin implements VisualizerSkin {
   private Simulation simulation = null;
   private Visualizer visualizer = null;
 
+  /* Painted addresses, replaced when any address changes */
+  private static final String NO_ADDRESS = new String();
+  private volatile Map<Mote, String> addressCache = new ConcurrentHashMap<Mote, String>();
+
   private Observer addrObserver = new Observer() {
     public void update(Observable obs, Object obj) {
+      addressCache = new ConcurrentHashMap<Mote, String>();
       visualizer.repaint();
     }
   };
@@ -84,6 +91,7 @@ public class AddressVisualizerSkin implements VisualizerSkin {
       }
     }
     public void moteWasRemoved(Mote mote) {
+      addressCache.remove(mote);
       IPAddress ipAddr = mote.getInterfaces().getIPAddress();
       if (ipAddr != null) {
         ipAddr.deleteObserver(addrObserver);
@@ -146,10 +154,15 @@ public class AddressVisualizerSkin implements VisualizerSkin {
     g.setColor(Color.BLACK);
 
     /* Paint last output below motes */
-    Mote[] allMotes = simulation.getMotes();
+    Map<Mote, String> cache = addressCache;
+    Mote[] allMotes = visualizer.getVisibleMotes();
     for (Mote mote: allMotes) {
-      String msg = getMoteString(mote);
+      String msg = cache.get(mote);
       if (msg == null) {
+        msg = getMoteString(mote);
+        cache.put(mote, msg == null ? NO_ADDRESS : msg);
+      }
+      if (msg == null || msg == NO_ADDRESS) {
         continue;
       }
       
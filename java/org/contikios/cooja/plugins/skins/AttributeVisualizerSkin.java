@@ -158,7 +158,7 @@ public class AttributeVisualizerSkin implements VisualizerSkin {
     g.setColor(Color.BLACK);
 
     /* Paint attributes below motes */
-    Mote[] allMotes = simulation.getMotes();
+    Mote[] allMotes = visualizer.getVisibleMotes();
     for (Mote mote: allMotes) {
       String[] as = getAttributesStrings(mote);
       if (as == null) {
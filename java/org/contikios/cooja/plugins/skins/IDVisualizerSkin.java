@@ -77,7 +77,7 @@ public class IDVisualizerSkin implements VisualizerSkin {
     g.setColor(Color.BLACK);
     
     /* Paint ID inside each mote */
-    Mote[] allMotes = simulation.getMotes();
+    Mote[] allMotes = visualizer.getVisibleMotes();
     for (Mote mote: allMotes) {
       Position pos = mote.getInterfaces().getPosition();
       Point pixel = visualizer.transformPositionToPixel(pos);
@@ -107,7 +107,7 @@ public class LEDVisualizerSkin implements VisualizerSkin {
 
   public void paintAfterMotes(Graphics g) {
     /* Paint LEDs left of each mote */
-    Mote[] allMotes = simulation.getMotes();
+    Mote[] allMotes = visualizer.getVisibleMotes();
     for (Mote mote: allMotes) {
       LED leds = mote.getInterfaces().getLED();
       if (leds == null) {
@@ -34,8 +34,8 @@ import java.awt.Color;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Point;
-import java.util.Observable;
-import java.util.Observer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 
@@ -66,14 +66,21 @@ public class LogVisualizerSkin implements VisualizerSkin {
   private Simulation simulation = null;
   private Visualizer visualizer = null;
 
+  /* Last log message of each mote */
+  private final Map<Mote, String> lastMessages = new ConcurrentHashMap<Mote, String>();
+
   private LogOutputListener logOutputListener = new LogOutputListener() {
     public void moteWasAdded(Mote mote) {
       visualizer.repaint();
     }
     public void moteWasRemoved(Mote mote) {
+      lastMessages.remove(mote);
       visualizer.repaint();
     }
     public void newLogOutput(LogOutputEvent ev) {
+      if (ev.msg != null) {
+        lastMessages.put(ev.getMote(), ev.msg);
+      }
       visualizer.repaint();
     }
     public void removedLogOutput(LogOutputEvent ev) {
@@ -84,11 +91,19 @@ public class LogVisualizerSkin implements VisualizerSkin {
     this.simulation = simulation;
     this.visualizer = vis;
 
+    lastMessages.clear();
+    for (Mote mote: simulation.getMotes()) {
+      String msg = getLastLogMessage(mote);
+      if (msg != null) {
+        lastMessages.put(mote, msg);
+      }
+    }
     simulation.getEventCentral().addLogOutputListener(logOutputListener);
   }
 
   public void setInactive() {
     simulation.getEventCentral().removeLogOutputListener(logOutputListener);
+    lastMessages.clear();
   }
 
   public Color[] getColorOf(Mote mote) {
@@ -98,24 +113,29 @@ public class LogVisualizerSkin implements VisualizerSkin {
   public void paintBeforeMotes(Graphics g) {
   }
 
+  private static String getLastLogMessage(Mote mote) {
+    String msg = null;
+    for (MoteInterface mi: mote.getInterfaces().getInterfaces()) {
+      if (!(mi instanceof Log)) {
+        continue;
+      }
+      Log log = (Log) mi;
+      if (log.getLastLogMessage() == null) {
+        continue;
+      }
+      msg = log.getLastLogMessage();
+    }
+    return msg;
+  }
+
   public void paintAfterMotes(Graphics g) {
     FontMetrics fm = g.getFontMetrics();
     g.setColor(Color.BLACK);
 
     /* Paint last output below motes */
-    Mote[] allMotes = simulation.getMotes();
+    Mote[] allMotes = visualizer.getVisibleMotes();
     for (Mote mote: allMotes) {
-      String msg = null;
-      for (MoteInterface mi: mote.getInterfaces().getInterfaces()) {
-        if (!(mi instanceof Log)) {
-          continue;
-        }
-        Log log = (Log) mi;
-        if (log.getLastLogMessage() == null) {
-          continue;
-        }
-        msg = log.getLastLogMessage();
-      }
+      String msg = lastMessages.get(mote);
       if (msg == null) {
         continue;
       }
@@ -33,8 +33,10 @@ package org.contikios.cooja.plugins.skins;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Point;
+import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 
@@ -60,6 +62,22 @@ public class PositionVisualizerSkin implements VisualizerSkin {
   private Simulation simulation = null;
   private Visualizer visualizer = null;
 
+  /* Painted position strings */
+  private static class PositionString {
+    final double x, y, z;
+    final String msg;
+    PositionString(Position pos) {
+      x = pos.getXCoordinate();
+      y = pos.getYCoordinate();
+      z = pos.getZCoordinate();
+      msg = getPositionString(x, y, z);
+    }
+    boolean isAt(Position pos) {
+      return x == pos.getXCoordinate() && y == pos.getYCoordinate() && z == pos.getZCoordinate();
+    }
+  }
+  private final Map<Position, PositionString> positionCache = new ConcurrentHashMap<Position, PositionString>();
+
   private Observer positionObserver = new Observer() {
     public void update(Observable obs, Object obj) {
       visualizer.repaint();
@@ -76,6 +94,7 @@ public class PositionVisualizerSkin implements VisualizerSkin {
       Position p = mote.getInterfaces().getPosition();
       if (p != null) {
         p.deleteObserver(positionObserver);
+        positionCache.remove(p);
       }
     }
   };
@@ -104,51 +123,59 @@ public class PositionVisualizerSkin implements VisualizerSkin {
   public void paintBeforeMotes(Graphics g) {
   }
 
-  public void paintAfterMotes(Graphics g) {
-    g.setColor(Color.BLACK);
-
-    /* Paint position coordinates right of motes */
-    Mote[] allMotes = simulation.getMotes();
-    for (Mote mote: allMotes) {
-      Position pos = mote.getInterfaces().getPosition();
-      Point pixel = visualizer.transformPositionToPixel(pos);
-
-      String msg = "";
-      String posString;
-      String[] parts;
+  private static String getPositionString(double x, double y, double z) {
+    String msg = "";
+    String posString;
+    String[] parts;
+
+    /* X */
+    posString = String.valueOf(x) + "000";
+    parts = posString.split("\\.");
+    if (parts[0].length() >= 4) {
+      msg += parts[0];
+    } else {
+      msg += posString.substring(0, 5);
+    }
+    
+    /* Y */
+    msg += ", ";
+    posString = String.valueOf(y) + "000";
+    parts = posString.split("\\.");
+    if (parts[0].length() >= 4) {
+      msg += parts[0];
+    } else {
+      msg += posString.substring(0, 5);
+    }
 
-      /* X */
-      posString = String.valueOf(pos.getXCoordinate()) + "000";
-      parts = posString.split("\\.");
-      if (parts[0].length() >= 4) {
-        msg += parts[0];
-      } else {
-        msg += posString.substring(0, 5);
-      }
-      
-      /* Y */
+    /* Z */
+    if (z != 0) {
       msg += ", ";
-      posString = String.valueOf(pos.getYCoordinate()) + "000";
+      posString = String.valueOf(z) + "000";
       parts = posString.split("\\.");
       if (parts[0].length() >= 4) {
         msg += parts[0];
       } else {
         msg += posString.substring(0, 5);
       }
+    }
+    return msg;
+  }
+
+  public void paintAfterMotes(Graphics g) {
+    g.setColor(Color.BLACK);
+
+    /* Paint position coordinates right of motes */
+    Mote[] allMotes = visualizer.getVisibleMotes();
+    for (Mote mote: allMotes) {
+      Position pos = mote.getInterfaces().getPosition();
+      Point pixel = visualizer.transformPositionToPixel(pos);
 
-      /* Z */
-      if (pos.getZCoordinate() != 0) {
-        msg += ", ";
-        posString = String.valueOf(pos.getZCoordinate()) + "000";
-        parts = posString.split("\\.");
-        if (parts[0].length() >= 4) {
-          msg += parts[0];
-        } else {
-          msg += posString.substring(0, 5);
-        }
+      PositionString str = positionCache.get(pos);
+      if (str == null || !str.isAt(pos)) {
+        str = new PositionString(pos);
+        positionCache.put(pos, str);
       }
-      
-      g.drawString(msg, pixel.x + Visualizer.MOTE_RADIUS + 4, pixel.y + 4);
+      g.drawString(str.msg, pixel.x + Visualizer.MOTE_RADIUS + 4, pixel.y + 4);
     }
   }
 
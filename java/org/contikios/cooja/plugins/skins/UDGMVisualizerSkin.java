@@ -368,7 +368,7 @@ public class UDGMVisualizerSkin implements VisualizerSkin {
     if (selectedMotes.size() == 1) {
       Mote selectedMote = selectedMotes.toArray(new Mote[0])[0];
       Radio selectedRadio = selectedMote.getInterfaces().getRadio();
-      for (Mote m : simulation.getMotes()) {
+      for (Mote m : visualizer.getVisibleMotes()) {
         if (m == selectedMote) {
           continue;
         }
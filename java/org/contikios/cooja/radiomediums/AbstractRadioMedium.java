@@ -46,9 +46,11 @@ import org.contikios.cooja.RadioConnection;
 import org.contikios.cooja.RadioMedium;
 import org.contikios.cooja.RadioPacket;
 import org.contikios.cooja.Simulation;
+import org.contikios.cooja.SimulationProfiler;
 import org.contikios.cooja.TimeEvent;
 import org.contikios.cooja.interfaces.CustomDataRadio;
 import org.contikios.cooja.interfaces.Radio;
+import org.contikios.cooja.util.ArrayUtils;
 import org.contikios.cooja.util.ScnObservable;
 import org.jdom.Element;
 
@@ -100,6 +102,18 @@ public abstract class AbstractRadioMedium extends RadioMedium {
 	protected ScnObservable radioMediumObservable = new ScnObservable();
 	protected ScnObservable radioTransmissionObservable = new ScnObservable();
 	
+	/**
+	 * Typed alternative to observing radio transmissions for plugins that only
+	 * need finished connections, such as recorders.
+	 *
+	 * @see #addRadioConnectionListener(RadioConnectionListener)
+	 */
+	public interface RadioConnectionListener {
+		public void connectionFinished(RadioConnection connection);
+	}
+	
+	private RadioConnectionListener[] radioConnectionListeners = new RadioConnectionListener[0];
+	
 	/**
 	 * This constructor should always be called from implemented radio mediums.
 	 *
@@ -217,19 +231,25 @@ public abstract class AbstractRadioMedium extends RadioMedium {
 	}
 	
 	/**
-	 * This observer is responsible for detecting radio interface events, for example
+	 * This listener is responsible for detecting radio interface events, for example
 	 * new transmissions.
 	 */
-	private Observer radioEventsObserver = new Observer() {
-		public void update(Observable obs, Object obj) {
-			if (!(obs instanceof Radio)) {
-				logger.fatal("Radio event dispatched by non-radio object");
+	private Radio.RadioEventListener radioEventsListener = new Radio.RadioEventListener() {
+		public void radioEvent(Radio radio, final Radio.RadioEvent event) {
+			SimulationProfiler profiler = simulation.getProfiler();
+			if (profiler == null) {
+				handleRadioEvent(radio, event);
 				return;
 			}
-			Radio radio = (Radio) obs;
-			
-			final Radio.RadioEvent event = radio.getLastEvent();
-			
+			long start = profiler.enterRadioMedium();
+			try {
+				handleRadioEvent(radio, event);
+			} finally {
+				profiler.exitRadioMedium(radio, event, start);
+			}
+		}
+
+		private void handleRadioEvent(Radio radio, final Radio.RadioEvent event) {
 			switch (event) {
 				case RECEPTION_STARTED:
 				case RECEPTION_INTERFERED:
@@ -332,6 +352,12 @@ public abstract class AbstractRadioMedium extends RadioMedium {
 					
 					/* Notify observers */
 					radioTransmissionObservable.setChangedAndNotify();
+					
+					/* Notify connection listeners, last added first */
+					RadioConnectionListener[] listeners = radioConnectionListeners;
+					for (int i = listeners.length - 1; i >= 0; i--) {
+						listeners[i].connectionFinished(connection);
+					}
 				}
 				break;
 				case CUSTOM_DATA_TRANSMITTED: {
@@ -443,7 +469,7 @@ public abstract class AbstractRadioMedium extends RadioMedium {
 		}
 		
 		registeredRadios.add(radio);
-		radio.addObserver(radioEventsObserver);
+		radio.addRadioEventListener(radioEventsListener);
 		radioMediumObservable.setChangedAndNotify();
 		
 		/* Update signal strengths */
@@ -456,7 +482,7 @@ public abstract class AbstractRadioMedium extends RadioMedium {
 			return;
 		}
 		
-		radio.deleteObserver(radioEventsObserver);
+		radio.removeRadioEventListener(radioEventsListener);
 		registeredRadios.remove(radio);
 		
 		removeFromActiveConnections(radio);
@@ -548,6 +574,26 @@ public abstract class AbstractRadioMedium extends RadioMedium {
 		radioTransmissionObservable.deleteObserver(observer);
 	}
 	
+	/**
+	 * Register a listener that gets notified when a radio connection finishes.
+	 * @see #removeRadioConnectionListener(RadioConnectionListener)
+	 * @param listener the listener to register
+	 */
+	public void addRadioConnectionListener(RadioConnectionListener listener) {
+		if (ArrayUtils.indexOf(radioConnectionListeners, listener) >= 0) {
+			return;
+		}
+		radioConnectionListeners = ArrayUtils.add(radioConnectionListeners, listener);
+	}
+	
+	/**
+	 * @see #addRadioConnectionListener(RadioConnectionListener)
+	 * @param listener the listener to remove
+	 */
+	public void removeRadioConnectionListener(RadioConnectionListener listener) {
+		radioConnectionListeners = ArrayUtils.remove(radioConnectionListeners, listener);
+	}
+	
 	/**
 	 * Register an observer that gets notified when the radio medium changed.
 	 * This includes changes in the settings and (de-)registration of radios. 
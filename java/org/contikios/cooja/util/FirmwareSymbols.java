@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.apache.log4j.Logger;
+
+import org.contikios.cooja.dialogs.FirmwareCache;
+
+/**
+ * Symbols, sections and debug line tables parsed from a firmware,
+ * stored as compact arrays.
+ *
+ * Tables can be stored in the firmware cache, keyed by firmware contents,
+ * to avoid parsing the same firmware again in later runs.
+ * The returned arrays are shared and must not be modified.
+ */
+public class FirmwareSymbols {
+  private static Logger logger = Logger.getLogger(FirmwareSymbols.class);
+
+  private static final int MAGIC = 0x43465359; /* CFSY */
+  private static final int VERSION = 1;
+
+  /* Sections */
+  private final String[] sectionNames;
+  private final long[] sectionStarts;
+  private final int[] sectionSizes;
+
+  /* Symbols: section index, address and size */
+  private final String[] symbolNames;
+  private final int[] symbolSections;
+  private final long[] symbolAddresses;
+  private final int[] symbolSizes;
+
+  /* Source files referenced by debug information */
+  private final String[] sourceFiles;
+
+  /* Debug line tables: per file, sorted line numbers and their addresses */
+  private final String[] lineFiles;
+  private final int[][] lines;
+  private final int[][] lineAddresses;
+
+  public FirmwareSymbols(String[] sectionNames, long[] sectionStarts, int[] sectionSizes,
+      String[] symbolNames, int[] symbolSections, long[] symbolAddresses, int[] symbolSizes,
+      String[] sourceFiles, String[] lineFiles, int[][] lines, int[][] lineAddresses) {
+    this.sectionNames = sectionNames;
+    this.sectionStarts = sectionStarts;
+    this.sectionSizes = sectionSizes;
+    this.symbolNames = symbolNames;
+    this.symbolSections = symbolSections;
+    this.symbolAddresses = symbolAddresses;
+    this.symbolSizes = symbolSizes;
+    this.sourceFiles = sourceFiles;
+    this.lineFiles = lineFiles;
+    this.lines = lines;
+    this.lineAddresses = lineAddresses;
+  }
+
+  public String[] getSectionNames() {
+    return sectionNames;
+  }
+  public long[] getSectionStarts() {
+    return sectionStarts;
+  }
+  public int[] getSectionSizes() {
+    return sectionSizes;
+  }
+  public String[] getSymbolNames() {
+    return symbolNames;
+  }
+  public int[] getSymbolSections() {
+    return symbolSections;
+  }
+  public long[] getSymbolAddresses() {
+    return symbolAddresses;
+  }
+  public int[] getSymbolSizes() {
+    return symbolSizes;
+  }
+  public String[] getSourceFiles() {
+    return sourceFiles;
+  }
+  public String[] getLineFiles() {
+    return lineFiles;
+  }
+  public int[][] getLines() {
+    return lines;
+  }
+  public int[][] getLineAddresses() {
+    return lineAddresses;
+  }
+
+  /**
+   * Creates cache key for tables parsed from the given files.
+   *
+   * @param inputs Parsed files, such as firmware and map file
+   * @param parser Parser description, including any settings affecting output
+   * @return Cache key
+   * @throws IOException On file errors
+   */
+  public static String createKey(File[] inputs, String parser) throws IOException {
+    return FirmwareCache.createKey(inputs, "symbols-v" + VERSION + ":" + parser, new String[0]);
+  }
+
+  /**
+   * Loads tables from the firmware cache.
+   *
+   * @param key Cache key
+   * @return Tables, or null if not cached
+   */
+  public static FirmwareSymbols load(String key) {
+    FirmwareCache cache = FirmwareCache.getDefault();
+    if (cache == null || key == null) {
+      return null;
+    }
+    byte[] data = cache.read(key, 0);
+    if (data == null) {
+      return null;
+    }
+    try {
+      return read(ByteBuffer.wrap(data), key);
+    } catch (IOException e) {
+      logger.warn("Could not load cached symbols: " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Stores tables in the firmware cache.
+   *
+   * @param key Cache key
+   */
+  public void store(String key) {
+    FirmwareCache cache = FirmwareCache.getDefault();
+    if (cache == null || key == null) {
+      return;
+    }
+    File tmp = null;
+    try {
+      tmp = File.createTempFile("cooja-symbols", null);
+      write(tmp);
+      cache.store(key, new File[] { tmp });
+    } catch (IOException e) {
+      logger.warn("Could not cache symbols: " + e.getMessage());
+    } finally {
+      if (tmp != null && !tmp.delete()) {
+        tmp.deleteOnExit();
+      }
+    }
+  }
+
+  /**
+   * Writes tables to file.
+   *
+   * @param file File
+   * @throws IOException On write errors
+   */
+  public void write(File file) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+
+      out.writeInt(sectionNames.length);
+      for (int i = 0; i < sectionNames.length; i++) {
+        writeString(out, sectionNames[i]);
+        out.writeLong(sectionStarts[i]);
+        out.writeInt(sectionSizes[i]);
+      }
+
+      out.writeInt(symbolNames.length);
+      for (int i = 0; i < symbolNames.length; i++) {
+        writeString(out, symbolNames[i]);
+        out.writeInt(symbolSections[i]);
+        out.writeLong(symbolAddresses[i]);
+        out.writeInt(symbolSizes[i]);
+      }
+
+      out.writeInt(sourceFiles.length);
+      for (String f: sourceFiles) {
+        writeString(out, f);
+      }
+
+      out.writeInt(lineFiles.length);
+      for (int i = 0; i < lineFiles.length; i++) {
+        writeString(out, lineFiles[i]);
+        out.writeInt(lines[i].length);
+        for (int line: lines[i]) {
+          out.writeInt(line);
+        }
+        for (int address: lineAddresses[i]) {
+          out.writeInt(address);
+        }
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Reads tables from file.
+   *
+   * @param file File
+   * @return Tables
+   * @throws IOException On read errors or bad file format
+   */
+  public static FirmwareSymbols read(File file) throws IOException {
+    return read(ByteBuffer.wrap(Files.readAllBytes(file.toPath())), file.getPath());
+  }
+
+  /**
+   * Reads tables written by {@link #write(File)}.
+   *
+   * @param buf Tables
+   * @param source Source description used in error messages
+   * @return Tables
+   * @throws IOException On bad format
+   */
+  private static FirmwareSymbols read(ByteBuffer buf, String source) throws IOException {
+    try {
+      if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+        throw new IOException("Bad symbol file format: " + source);
+      }
+
+      int n = buf.getInt();
+      String[] sectionNames = new String[n];
+      long[] sectionStarts = new long[n];
+      int[] sectionSizes = new int[n];
+      for (int i = 0; i < n; i++) {
+        sectionNames[i] = readString(buf);
+        sectionStarts[i] = buf.getLong();
+        sectionSizes[i] = buf.getInt();
+      }
+
+      n = buf.getInt();
+      String[] symbolNames = new String[n];
+      int[] symbolSections = new int[n];
+      long[] symbolAddresses = new long[n];
+      int[] symbolSizes = new int[n];
+      for (int i = 0; i < n; i++) {
+        symbolNames[i] = readString(buf);
+        symbolSections[i] = buf.getInt();
+        symbolAddresses[i] = buf.getLong();
+        symbolSizes[i] = buf.getInt();
+      }
+
+      n = buf.getInt();
+      String[] sourceFiles = new String[n];
+      for (int i = 0; i < n; i++) {
+        sourceFiles[i] = readString(buf);
+      }
+
+      n = buf.getInt();
+      String[] lineFiles = new String[n];
+      int[][] lines = new int[n][];
+      int[][] lineAddresses = new int[n][];
+      for (int i = 0; i < n; i++) {
+        lineFiles[i] = readString(buf);
+        int count = buf.getInt();
+        lines[i] = new int[count];
+        lineAddresses[i] = new int[count];
+        buf.asIntBuffer().get(lines[i]);
+        buf.position(buf.position() + 4*count);
+        buf.asIntBuffer().get(lineAddresses[i]);
+        buf.position(buf.position() + 4*count);
+      }
+
+      return new FirmwareSymbols(sectionNames, sectionStarts, sectionSizes,
+          symbolNames, symbolSections, symbolAddresses, symbolSizes,
+          sourceFiles, lineFiles, lines, lineAddresses);
+    } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+      throw new IOException("Corrupt symbol file: " + source);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] data = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(data.length);
+    out.write(data);
+  }
+
+  private static String readString(ByteBuffer buf) {
+    int length = buf.getInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] data = new byte[length];
+    buf.get(data);
+    return new String(data, StandardCharsets.UTF_8);
+  }
+}
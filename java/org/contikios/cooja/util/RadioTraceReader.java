@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.util;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads radio traces written by {@link RadioTraceWriter}.
+ *
+ * Only the block index is read when opening a trace. Queries decompress
+ * the blocks that may contain matching records.
+ * Traces that were never closed have no index; the index is then rebuilt
+ * from the block headers.
+ */
+public class RadioTraceReader implements Closeable {
+
+  /**
+   * Radio connection in trace.
+   */
+  public static class Record {
+    public final long startTime;
+    public final long endTime;
+    public final int source;
+    public final int channel;
+    public final int[] destinations;
+    public final int[] interfered;
+    public final byte[] data;
+
+    Record(long startTime, long endTime, int source, int channel,
+        int[] destinations, int[] interfered, byte[] data) {
+      this.startTime = startTime;
+      this.endTime = endTime;
+      this.source = source;
+      this.channel = channel;
+      this.destinations = destinations;
+      this.interfered = interfered;
+      this.data = data;
+    }
+
+    /**
+     * @param mote Mote ID
+     * @return True if mote is source, destination, or interfered
+     */
+    public boolean involves(int mote) {
+      if (source == mote) {
+        return true;
+      }
+      for (int id: destinations) {
+        if (id == mote) {
+          return true;
+        }
+      }
+      for (int id: interfered) {
+        if (id == mote) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  private static class Block {
+    long offset; /* Compressed data */
+    int records;
+    long minStart, maxStart, maxEnd;
+    int[] motes;
+    int length, compressedLength;
+  }
+
+  private final RandomAccessFile file;
+  private final Block[] blocks;
+  private final Inflater inflater = new Inflater();
+
+  /**
+   * @param traceFile Trace file
+   * @throws IOException On file errors, or if file is not a radio trace
+   */
+  public RadioTraceReader(File traceFile) throws IOException {
+    file = new RandomAccessFile(traceFile, "r");
+    try {
+      if (file.length() < 8 || file.readInt() != RadioTraceWriter.FILE_MAGIC) {
+        throw new IOException("Not a radio trace: " + traceFile);
+      }
+      if (file.readInt() != RadioTraceWriter.VERSION) {
+        throw new IOException("Unsupported radio trace version: " + traceFile);
+      }
+      blocks = readIndex();
+    } catch (IOException e) {
+      file.close();
+      throw e;
+    }
+  }
+
+  private Block[] readIndex() throws IOException {
+    long length = file.length();
+    if (length >= 20) {
+      file.seek(length - 12);
+      long indexOffset = file.readLong();
+      if (file.readInt() == RadioTraceWriter.FOOTER_MAGIC
+          && indexOffset >= 8 && indexOffset < length - 12) {
+        file.seek(indexOffset);
+        Block[] index = new Block[file.readInt()];
+        for (int i = 0; i < index.length; i++) {
+          long offset = file.readLong();
+          index[i] = readBlockHeader();
+          index[i].offset = offset + 4 + getHeaderLength(index[i]);
+        }
+        return index;
+      }
+    }
+
+    /* No index: scan block headers */
+    ArrayList<Block> scanned = new ArrayList<Block>();
+    long pos = 8;
+    file.seek(pos);
+    while (pos + 4 <= length) {
+      try {
+        if (file.readInt() != RadioTraceWriter.BLOCK_MAGIC) {
+          break;
+        }
+        Block b = readBlockHeader();
+        b.offset = file.getFilePointer();
+        if (b.offset + b.compressedLength > length) {
+          break; /* Truncated */
+        }
+        scanned.add(b);
+        pos = b.offset + b.compressedLength;
+        file.seek(pos);
+      } catch (EOFException e) {
+        break;
+      }
+    }
+    return scanned.toArray(new Block[0]);
+  }
+
+  private Block readBlockHeader() throws IOException {
+    Block b = new Block();
+    b.records = file.readInt();
+    b.minStart = file.readLong();
+    b.maxStart = file.readLong();
+    b.maxEnd = file.readLong();
+    b.motes = new int[file.readInt()];
+    for (int i = 0; i < b.motes.length; i++) {
+      b.motes[i] = file.readInt();
+    }
+    b.length = file.readInt();
+    b.compressedLength = file.readInt();
+    return b;
+  }
+
+  private static int getHeaderLength(Block b) {
+    return 4 + 3*8 + 4 + 4*b.motes.length + 4 + 4;
+  }
+
+  /**
+   * @return Number of records in trace
+   */
+  public long getRecordCount() {
+    long count = 0;
+    for (Block b: blocks) {
+      count += b.records;
+    }
+    return count;
+  }
+
+  /**
+   * @return Number of blocks in trace
+   */
+  public int getBlockCount() {
+    return blocks.length;
+  }
+
+  /**
+   * @return Start time of first record, or -1 if trace is empty
+   */
+  public long getStartTime() {
+    long start = Long.MAX_VALUE;
+    for (Block b: blocks) {
+      start = Math.min(start, b.minStart);
+    }
+    return blocks.length == 0 ? -1 : start;
+  }
+
+  /**
+   * @return End time of last record, or -1 if trace is empty
+   */
+  public long getEndTime() {
+    long end = -1;
+    for (Block b: blocks) {
+      end = Math.max(end, b.maxEnd);
+    }
+    return end;
+  }
+
+  /**
+   * @param from Start time, inclusive
+   * @param to End time, exclusive
+   * @return Records starting in time range, in trace order
+   * @throws IOException On file errors
+   */
+  public List<Record> getRecords(long from, long to) throws IOException {
+    return getRecords(from, to, -1);
+  }
+
+  /**
+   * @param mote Mote ID
+   * @param from Start time, inclusive
+   * @param to End time, exclusive
+   * @return Records starting in time range with mote as source, destination, or interfered
+   * @throws IOException On file errors
+   */
+  public List<Record> getMoteRecords(int mote, long from, long to) throws IOException {
+    if (mote < 0) {
+      throw new IllegalArgumentException("Bad mote ID: " + mote);
+    }
+    return getRecords(from, to, mote);
+  }
+
+  private List<Record> getRecords(long from, long to, int mote) throws IOException {
+    ArrayList<Record> result = new ArrayList<Record>();
+    for (Block b: blocks) {
+      if (b.maxStart < from || b.minStart >= to) {
+        continue;
+      }
+      if (mote >= 0 && Arrays.binarySearch(b.motes, mote) < 0) {
+        continue;
+      }
+      for (Record r: readBlock(b)) {
+        if (r.startTime < from || r.startTime >= to) {
+          continue;
+        }
+        if (mote >= 0 && !r.involves(mote)) {
+          continue;
+        }
+        result.add(r);
+      }
+    }
+    return result;
+  }
+
+  private static class ColumnReader {
+    final byte[] buf;
+    int pos;
+    ColumnReader(byte[] buf, int pos) {
+      this.buf = buf;
+      this.pos = pos;
+    }
+    long readVarLong() {
+      long v = 0;
+      int shift = 0;
+      while (true) {
+        byte b = buf[pos++];
+        v |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return v;
+        }
+        shift += 7;
+      }
+    }
+    long readSignedVarLong() {
+      long v = readVarLong();
+      return (v >>> 1) ^ -(v & 1);
+    }
+    int[] readIDs() {
+      int[] ids = new int[(int) readVarLong()];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = (int) readSignedVarLong();
+      }
+      return ids;
+    }
+  }
+
+  private Record[] readBlock(Block b) throws IOException {
+    byte[] compressed = new byte[b.compressedLength];
+    file.seek(b.offset);
+    file.readFully(compressed);
+
+    byte[] data = new byte[b.length];
+    inflater.reset();
+    inflater.setInput(compressed);
+    try {
+      if (inflater.inflate(data) != b.length) {
+        throw new IOException("Corrupt radio trace block at " + b.offset);
+      }
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupt radio trace block at " + b.offset, e);
+    }
+
+    /* Column offsets */
+    ColumnReader header = new ColumnReader(data, 0);
+    int[] lengths = new int[RadioTraceWriter.COLUMNS];
+    for (int i = 0; i < lengths.length; i++) {
+      lengths[i] = (int) header.readVarLong();
+    }
+    ColumnReader[] columns = new ColumnReader[RadioTraceWriter.COLUMNS];
+    int pos = header.pos;
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = new ColumnReader(data, pos);
+      pos += lengths[i];
+    }
+
+    Record[] records = new Record[b.records];
+    long start = 0;
+    for (int i = 0; i < records.length; i++) {
+      start += columns[RadioTraceWriter.COLUMN_START].readSignedVarLong();
+      long end = start + columns[RadioTraceWriter.COLUMN_DURATION].readSignedVarLong();
+      int source = (int) columns[RadioTraceWriter.COLUMN_SOURCE].readSignedVarLong();
+      int channel = (int) columns[RadioTraceWriter.COLUMN_CHANNEL].readSignedVarLong();
+      int[] destinations = columns[RadioTraceWriter.COLUMN_DESTINATIONS].readIDs();
+      int[] interfered = columns[RadioTraceWriter.COLUMN_INTERFERED].readIDs();
+      ColumnReader dataColumn = columns[RadioTraceWriter.COLUMN_DATA];
+      int length = (int) dataColumn.readVarLong();
+      byte[] packet = Arrays.copyOfRange(data, dataColumn.pos, dataColumn.pos + length);
+      dataColumn.pos += length;
+      records[i] = new Record(start, end, source, channel, destinations, interfered, packet);
+    }
+    return records;
+  }
+
+  public void close() throws IOException {
+    inflater.end();
+    file.close();
+  }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.zip.Deflater;
+
+/**
+ * Writes radio traces in a compact, block compressed columnar format.
+ *
+ * File layout:
+ * header: magic, version
+ * blocks: block header (record count, time range, motes), deflated columns
+ * index: block headers with file offsets
+ * footer: index offset, magic
+ *
+ * Each block stores up to BLOCK_RECORDS records, column by column:
+ * start times (delta coded), durations, sources, channels, destinations,
+ * interfered radios, and packet data. Integers are variable length encoded.
+ *
+ * @see RadioTraceReader
+ */
+public class RadioTraceWriter implements Closeable {
+  static final int FILE_MAGIC = 0x43525452; /* CRTR */
+  static final int BLOCK_MAGIC = 0x424c4b31; /* BLK1 */
+  static final int FOOTER_MAGIC = 0x494e4458; /* INDX */
+  static final int VERSION = 1;
+
+  static final int COLUMN_START = 0;
+  static final int COLUMN_DURATION = 1;
+  static final int COLUMN_SOURCE = 2;
+  static final int COLUMN_CHANNEL = 3;
+  static final int COLUMN_DESTINATIONS = 4;
+  static final int COLUMN_INTERFERED = 5;
+  static final int COLUMN_DATA = 6;
+  static final int COLUMNS = 7;
+
+  private static final int BLOCK_RECORDS = 4096;
+
+  private final DataOutputStream out;
+  private long offset;
+
+  /* Current block */
+  private final Column[] columns = new Column[COLUMNS];
+  private int records = 0;
+  private long minStart, maxStart, maxEnd, lastStart;
+  private final TreeSet<Integer> motes = new TreeSet<Integer>();
+
+  /* Index */
+  private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+  private final DataOutputStream indexOut = new DataOutputStream(index);
+  private int blocks = 0;
+
+  private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+  private byte[] deflated = new byte[64*1024];
+
+  static class Column extends ByteArrayOutputStream {
+    void writeVarLong(long v) {
+      while ((v & ~0x7FL) != 0) {
+        write((int) ((v & 0x7F) | 0x80));
+        v >>>= 7;
+      }
+      write((int) v);
+    }
+    void writeSignedVarLong(long v) {
+      writeVarLong((v << 1) ^ (v >> 63));
+    }
+    void writeIDs(int[] ids) {
+      writeVarLong(ids.length);
+      for (int id: ids) {
+        writeSignedVarLong(id);
+      }
+    }
+    byte[] getBuffer() {
+      return buf;
+    }
+  }
+
+  /**
+   * @param file Trace file, overwritten
+   * @throws IOException On file errors
+   */
+  public RadioTraceWriter(File file) throws IOException {
+    out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64*1024));
+    out.writeInt(FILE_MAGIC);
+    out.writeInt(VERSION);
+    offset = 8;
+    for (int i = 0; i < COLUMNS; i++) {
+      columns[i] = new Column();
+    }
+  }
+
+  /**
+   * Appends radio connection to trace.
+   *
+   * @param startTime Start time
+   * @param endTime End time
+   * @param source Source mote ID
+   * @param channel Channel
+   * @param destinations Destination mote IDs
+   * @param interfered Interfered mote IDs
+   * @param data Packet data
+   * @throws IOException On file errors
+   */
+  public void write(long startTime, long endTime, int source, int channel,
+      int[] destinations, int[] interfered, byte[] data) throws IOException {
+    if (records == 0) {
+      /* First start time in block is stored as is */
+      minStart = maxStart = startTime;
+      maxEnd = endTime;
+      lastStart = 0;
+    }
+    columns[COLUMN_START].writeSignedVarLong(startTime - lastStart);
+    columns[COLUMN_DURATION].writeSignedVarLong(endTime - startTime);
+    columns[COLUMN_SOURCE].writeSignedVarLong(source);
+    columns[COLUMN_CHANNEL].writeSignedVarLong(channel);
+    columns[COLUMN_DESTINATIONS].writeIDs(destinations);
+    columns[COLUMN_INTERFERED].writeIDs(interfered);
+    columns[COLUMN_DATA].writeVarLong(data.length);
+    columns[COLUMN_DATA].write(data, 0, data.length);
+
+    lastStart = startTime;
+    minStart = Math.min(minStart, startTime);
+    maxStart = Math.max(maxStart, startTime);
+    maxEnd = Math.max(maxEnd, endTime);
+    motes.add(source);
+    for (int id: destinations) {
+      motes.add(id);
+    }
+    for (int id: interfered) {
+      motes.add(id);
+    }
+
+    records++;
+    if (records >= BLOCK_RECORDS) {
+      writeBlock();
+    }
+  }
+
+  private void writeBlock() throws IOException {
+    if (records == 0) {
+      return;
+    }
+
+    /* Column lengths, then columns */
+    Column block = new Column();
+    for (Column c: columns) {
+      block.writeVarLong(c.size());
+    }
+    for (Column c: columns) {
+      block.write(c.getBuffer(), 0, c.size());
+      c.reset();
+    }
+
+    deflater.reset();
+    deflater.setInput(block.getBuffer(), 0, block.size());
+    deflater.finish();
+    int compressed = 0;
+    while (!deflater.finished()) {
+      if (compressed == deflated.length) {
+        deflated = Arrays.copyOf(deflated, 2*deflated.length);
+      }
+      compressed += deflater.deflate(deflated, compressed, deflated.length - compressed);
+    }
+
+    /* Block header, also copied to index */
+    ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+    DataOutputStream header = new DataOutputStream(headerBytes);
+    header.writeInt(records);
+    header.writeLong(minStart);
+    header.writeLong(maxStart);
+    header.writeLong(maxEnd);
+    header.writeInt(motes.size());
+    for (int id: motes) {
+      header.writeInt(id);
+    }
+    header.writeInt(block.size());
+    header.writeInt(compressed);
+
+    indexOut.writeLong(offset);
+    headerBytes.writeTo(indexOut);
+    blocks++;
+
+    out.writeInt(BLOCK_MAGIC);
+    headerBytes.writeTo(out);
+    out.write(deflated, 0, compressed);
+    offset += 4 + headerBytes.size() + compressed;
+
+    records = 0;
+    motes.clear();
+  }
+
+  /**
+   * Writes buffered records as a block, and flushes file.
+   * Blocks are self-describing: the file is readable also if never closed.
+   *
+   * @throws IOException On file errors
+   */
+  public void flush() throws IOException {
+    writeBlock();
+    out.flush();
+  }
+
+  /**
+   * Writes remaining records and block index, and closes file.
+   *
+   * @throws IOException On file errors
+   */
+  public void close() throws IOException {
+    try {
+      writeBlock();
+      long indexOffset = offset;
+      out.writeInt(blocks);
+      index.writeTo(out);
+      out.writeLong(indexOffset);
+      out.writeInt(FOOTER_MAGIC);
+    } finally {
+      deflater.end();
+      out.close();
+    }
+  }
+}
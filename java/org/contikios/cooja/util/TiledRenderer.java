@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2026, Swedish Institute of Computer Science.
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation and/or other materials provided with the distribution.
+ * 3. Neither the name of the Institute nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE INSTITUTE AND CONTRIBUTORS ``AS IS'' AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED.  IN NO EVENT SHALL THE INSTITUTE OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS
+ * OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+ * OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ *
+ */
+
+package org.contikios.cooja.util;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+import javax.swing.JComponent;
+
+/**
+ * Caches a component's rendering in image tiles.
+ *
+ * The component's paint method blits the tiles via {@link #paint(Graphics)}.
+ * Visible tiles that are missing or invalidated are first repainted, all in
+ * one pass, so an update only costs painting the invalidated area.
+ *
+ * Painting reads component and simulation state the same way a plain
+ * paintComponent would: all methods must be called from the event dispatch
+ * thread.
+ */
+public class TiledRenderer {
+
+  /**
+   * Paints part of the component. Called from the event dispatch thread.
+   */
+  public interface TilePainter {
+    /**
+     * @param g Graphics, in component coordinates and clipped to region
+     * @param region Region to paint
+     */
+    public void paintRegion(Graphics2D g, Rectangle region);
+  }
+
+  private static class Tile {
+    final int col, row;
+    BufferedImage image = null;
+    boolean dirty = true;
+    Tile(int col, int row) {
+      this.col = col;
+      this.row = row;
+    }
+  }
+
+  private final JComponent component;
+  private final int tileSize;
+  private final TilePainter painter;
+
+  private final HashMap<Long, Tile> tiles = new HashMap<Long, Tile>();
+  private BufferedImage scratch = null;
+
+  /**
+   * @param component Rendered component
+   * @param tileSize Tile width and height in pixels
+   * @param painter Painter
+   */
+  public TiledRenderer(JComponent component, int tileSize, TilePainter painter) {
+    this.component = component;
+    this.tileSize = tileSize;
+    this.painter = painter;
+  }
+
+  private static long key(int col, int row) {
+    return ((long) col << 32) | (row & 0xffffffffL);
+  }
+
+  private int firstTile(int pixel) {
+    return Math.floorDiv(pixel, tileSize);
+  }
+
+  private int lastTile(int pixel, int size) {
+    return Math.floorDiv(pixel + size - 1, tileSize);
+  }
+
+  /**
+   * Invalidates all tiles intersecting the given component area.
+   *
+   * @param area Area
+   */
+  public void invalidate(Rectangle area) {
+    if (area.isEmpty()) {
+      return;
+    }
+    for (Tile t: tiles.values()) {
+      if (t.col >= firstTile(area.x) && t.col <= lastTile(area.x, area.width)
+          && t.row >= firstTile(area.y) && t.row <= lastTile(area.y, area.height)) {
+        t.dirty = true;
+      }
+    }
+  }
+
+  /**
+   * Invalidates all tiles.
+   */
+  public void invalidateAll() {
+    for (Tile t: tiles.values()) {
+      t.dirty = true;
+    }
+  }
+
+  /**
+   * Repaints visible tiles that are missing or dirty, and blits all tiles
+   * intersecting the clip. Must be called from the component's paint method.
+   *
+   * @param g Graphics
+   */
+  public void paint(Graphics g) {
+    Rectangle clip = g.getClipBounds();
+    Rectangle visible = component.getVisibleRect();
+    if (clip == null) {
+      clip = visible;
+    }
+    if (clip.isEmpty()) {
+      return;
+    }
+
+    evictTiles(visible);
+
+    ArrayList<Tile> dirty = new ArrayList<Tile>();
+    Rectangle bounds = null;
+    for (int col = firstTile(clip.x); col <= lastTile(clip.x, clip.width); col++) {
+      for (int row = firstTile(clip.y); row <= lastTile(clip.y, clip.height); row++) {
+        Tile t = tiles.get(key(col, row));
+        if (t == null) {
+          tiles.put(key(col, row), t = new Tile(col, row));
+        }
+        if (t.dirty) {
+          Rectangle r = new Rectangle(col*tileSize, row*tileSize, tileSize, tileSize);
+          dirty.add(t);
+          bounds = bounds == null ? r : bounds.union(r);
+        }
+      }
+    }
+    if (bounds != null) {
+      render(dirty, bounds);
+    }
+
+    for (int col = firstTile(clip.x); col <= lastTile(clip.x, clip.width); col++) {
+      for (int row = firstTile(clip.y); row <= lastTile(clip.y, clip.height); row++) {
+        g.drawImage(tiles.get(key(col, row)).image, col*tileSize, row*tileSize, null);
+      }
+    }
+  }
+
+  /**
+   * Releases all tiles.
+   */
+  public void dispose() {
+    tiles.clear();
+    scratch = null;
+  }
+
+  private void render(ArrayList<Tile> dirty, Rectangle bounds) {
+    if (scratch == null || scratch.getWidth() < bounds.width || scratch.getHeight() < bounds.height) {
+      scratch = new BufferedImage(
+          Math.max(bounds.width, scratch == null ? 0 : scratch.getWidth()),
+          Math.max(bounds.height, scratch == null ? 0 : scratch.getHeight()),
+          BufferedImage.TYPE_INT_RGB);
+    }
+
+    /* Paint all dirty tiles in one pass */
+    Graphics2D g = scratch.createGraphics();
+    try {
+      Color background = component.getBackground();
+      g.setColor(background == null ? Color.WHITE : background);
+      g.fillRect(0, 0, bounds.width, bounds.height);
+      g.translate(-bounds.x, -bounds.y);
+      g.clipRect(bounds.x, bounds.y, bounds.width, bounds.height);
+      painter.paintRegion(g, bounds);
+    } finally {
+      g.dispose();
+    }
+
+    for (Tile t: dirty) {
+      if (t.image == null) {
+        t.image = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_RGB);
+      }
+      Graphics tg = t.image.getGraphics();
+      int sx = t.col*tileSize - bounds.x;
+      int sy = t.row*tileSize - bounds.y;
+      tg.drawImage(scratch, 0, 0, tileSize, tileSize, sx, sy, sx + tileSize, sy + tileSize, null);
+      tg.dispose();
+      t.dirty = false;
+    }
+  }
+
+  private void evictTiles(Rectangle area) {
+    /* Keep tiles near visible area */
+    Rectangle keep = new Rectangle(
+        area.x - area.width, area.y - area.height, 3*area.width, 3*area.height);
+    Iterator<Tile> it = tiles.values().iterator();
+    while (it.hasNext()) {
+      Tile t = it.next();
+      Rectangle r = new Rectangle(t.col*tileSize, t.row*tileSize, tileSize, tileSize);
+      if (!r.intersects(keep)) {
+        it.remove();
+      }
+    }
+  }
+}